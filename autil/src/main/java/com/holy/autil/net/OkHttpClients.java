@@ -0,0 +1,114 @@
+package com.holy.autil.net;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * 共享的 OkHttpClient
+ * <p>
+ *     所有客户端都应由 {@link #newBuilder()} 派生，共用同一个连接池和调度线程池，
+ *     各自只修改超时、拦截器等设置。连接池、keep-alive、HTTP/2 设置须在首次 {@link #get()} 之前调用，
+ *     之后调用抛出 IllegalStateException；调度器的并发数随时可改。
+ * </p>
+ */
+public final class OkHttpClients {
+	private OkHttpClients() { }
+
+	private static int maxIdleConnections = 5;
+	private static long keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+	private static boolean http2 = true;
+	private static int maxRequests = 64;
+	private static int maxRequestsPerHost = 5;
+
+	private static volatile OkHttpClient client;
+
+	/**
+	 * 共享客户端，首次调用时创建
+	 * @return
+	 */
+	public static OkHttpClient get() {
+		OkHttpClient current = client;
+		if (null == current) {
+			synchronized (OkHttpClients.class) {
+				current = client;
+				if (null == current) {
+					Dispatcher dispatcher = new Dispatcher();
+					dispatcher.setMaxRequests(maxRequests);
+					dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+					current = new OkHttpClient.Builder()
+							.connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS))
+							.dispatcher(dispatcher)
+							.protocols(http2 ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Collections.singletonList(Protocol.HTTP_1_1))
+							.build();
+					client = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * 派生客户端，与共享客户端共用连接池和调度器
+	 * @return
+	 */
+	public static OkHttpClient.Builder newBuilder() {
+		return get().newBuilder();
+	}
+
+	/**
+	 * @param maxIdleConnections 连接池保留的最大空闲连接数
+	 */
+	public static synchronized void setMaxIdleConnections(int maxIdleConnections) {
+		checkNotCreated();
+		OkHttpClients.maxIdleConnections = maxIdleConnections;
+	}
+
+	/**
+	 * @param keepAlive 空闲连接保留时间
+	 * @param unit
+	 */
+	public static synchronized void setKeepAlive(long keepAlive, TimeUnit unit) {
+		checkNotCreated();
+		OkHttpClients.keepAliveMillis = unit.toMillis(keepAlive);
+	}
+
+	/**
+	 * @param http2 false 时只使用 HTTP/1.1
+	 */
+	public static synchronized void setHttp2(boolean http2) {
+		checkNotCreated();
+		OkHttpClients.http2 = http2;
+	}
+
+	/**
+	 * @param maxRequests 异步请求的最大并发数
+	 */
+	public static synchronized void setMaxRequests(int maxRequests) {
+		OkHttpClients.maxRequests = maxRequests;
+		if (null != client) {
+			client.dispatcher().setMaxRequests(maxRequests);
+		}
+	}
+
+	/**
+	 * @param maxRequestsPerHost 同一主机异步请求的最大并发数
+	 */
+	public static synchronized void setMaxRequestsPerHost(int maxRequestsPerHost) {
+		OkHttpClients.maxRequestsPerHost = maxRequestsPerHost;
+		if (null != client) {
+			client.dispatcher().setMaxRequestsPerHost(maxRequestsPerHost);
+		}
+	}
+
+	private static void checkNotCreated() {
+		if (null != client) {
+			throw new IllegalStateException("shared OkHttpClient already created");
+		}
+	}
+}
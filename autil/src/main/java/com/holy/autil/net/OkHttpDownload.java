@@ -24,7 +24,6 @@ import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
 import okhttp3.Callback;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
@@ -37,12 +36,6 @@ public class OkHttpDownload {
 	public static void setRetryMax(int retryMax) {
 		OkHttpDownload.retryMax = retryMax;
 	}
-	private static OkHttpClient client = new OkHttpClient.Builder()
-			.retryOnConnectionFailure(true)
-			.connectTimeout(30, TimeUnit.SECONDS)
-			.writeTimeout(30, TimeUnit.SECONDS)
-			.readTimeout(30, TimeUnit.SECONDS)
-			.build();
 
 	/**
 	 * 多线程下载api
@@ -96,7 +89,7 @@ public class OkHttpDownload {
 			}
 
 			Request req = new Request.Builder().url(url).build();
-			client.newCall(req).enqueue(new Callback() {
+			OkHttpUtil.getClient().newCall(req).enqueue(new Callback() {
 				private int retryCount = 0;
 
 				@Override
@@ -108,7 +101,7 @@ public class OkHttpDownload {
 							Thread.sleep(1000 * (retryCount * 2)); // 2s, 4s, 6s
 						} catch (InterruptedException ex) {
 						}
-						client.newCall(call.request()).enqueue(this);
+						OkHttpUtil.getClient().newCall(call.request()).enqueue(this);
 
 						mLogger.warn(TAG + "connect error. retryCount: " + retryCount);
 					} else {
@@ -157,7 +150,7 @@ public class OkHttpDownload {
 		private String mUrl;
 		private File mOutFile;
 		private long mTotal;
-		private long mProgress;
+		private ProgressThrottle mThrottle;
 		private Listener mListener;
 		private volatile int mFinishNum = 0;
 		public Task(String url, File out, long total, Listener listener) {
@@ -166,6 +159,7 @@ public class OkHttpDownload {
 			mTotal = total;
 			mListener = listener;
 			mUnits = new ArrayList<>();
+			mThrottle = new ProgressThrottle(total, (current, length, percent, bytesPerSecond, etaMillis) -> mListener.onProgress(percent));
 		}
 
 		public ExecutorService getService() {
@@ -200,6 +194,7 @@ public class OkHttpDownload {
 						synchronized (Task.this) {
 							mFinishNum++;
 							if (mFinishNum == THREAD_SIZE) {
+								mThrottle.finish();
 								try {
 									FileUtil.copyFile(file, mOutFile);
 									mListener.onSuccess(mOutFile);
@@ -225,10 +220,8 @@ public class OkHttpDownload {
 
 					@Override
 					public void onProgress(long progress) {
-						synchronized (Task.this) {
-							mProgress += progress;
-							mListener.onProgress((long) ((mProgress * 1.0) / mTotal * 100));
-						}
+						// 各单元无锁累加，合并后回调
+						mThrottle.add(progress);
 					}
 				});
 				getService().execute(unit); // 通过线程池执行
@@ -299,7 +292,7 @@ public class OkHttpDownload {
 					.build();
 
 			try {
-				Response res = client.newCall(req).execute();
+				Response res = OkHttpUtil.getClient().newCall(req).execute();
 
 				if (!mFile.exists()) {
 					mFile.createNewFile();
@@ -2,13 +2,18 @@ package com.holy.autil.net;
 
 import android.util.Log;
 
+import com.holy.jutil.io.FileUtil;
+
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.OkHttpClient;
@@ -20,17 +25,31 @@ public class OkHttpUtil {
 	private static final String TAG = "[OkHttpUtil]";
 	private OkHttpUtil() { }
 
-	private static OkHttpClient client;
+	private static final ConcurrentHashMap<String, DownloadFlight> downloads = new ConcurrentHashMap<>();
+
+	private static volatile OkHttpClient client;
+
+	/**
+	 * 由 {@link OkHttpClients} 派生，共用连接池和调度器
+	 * @return
+	 */
 	public static OkHttpClient getClient() {
-		if (null == client) {
-			client = new OkHttpClient.Builder()
-					.retryOnConnectionFailure(true)
-					.connectTimeout(30, TimeUnit.SECONDS)
-					.writeTimeout(30, TimeUnit.SECONDS)
-					.readTimeout(30, TimeUnit.SECONDS)
-					.build();
+		OkHttpClient current = client;
+		if (null == current) {
+			synchronized (OkHttpUtil.class) {
+				current = client;
+				if (null == current) {
+					current = OkHttpClients.newBuilder()
+							.retryOnConnectionFailure(true)
+							.connectTimeout(30, TimeUnit.SECONDS)
+							.writeTimeout(30, TimeUnit.SECONDS)
+							.readTimeout(30, TimeUnit.SECONDS)
+							.build();
+					client = current;
+				}
+			}
 		}
-		return client;
+		return current;
 	}
 
 	public interface DownloadListener {
@@ -44,12 +63,174 @@ public class OkHttpUtil {
 	 * <p>
 	 *     小文件下载，大文件会中断
 	 * </p>
+	 * <p>
+	 *     同一链接已在下载时不重复请求：等待在途的下载完成后复制到 outFile，进度随在途下载回调
+	 * </p>
 	 * @param url
 	 * @param outFile
 	 * @param listener
 	 * @return
 	 */
 	public static boolean downloadFile(String url, File outFile, DownloadListener listener) {
+		for (;;) {
+			DownloadFlight flight = new DownloadFlight();
+			DownloadFlight existing = downloads.putIfAbsent(url, flight);
+			if (null == existing) {
+				return lead(url, outFile, listener, flight);
+			}
+			if (existing.join(listener)) {
+				return follow(existing, outFile, listener);
+			}
+			// 在途下载刚结束，重试
+		}
+	}
+
+	private static boolean lead(String url, File outFile, DownloadListener listener, DownloadFlight flight) {
+		try {
+			flight.success = download(url, outFile, new DownloadListener() {
+				@Override
+				public void onSuccess(File file) {
+				}
+
+				@Override
+				public void onFailed(int code, String msg) {
+					flight.code = code;
+					flight.msg = msg;
+				}
+
+				@Override
+				public void onProgress(int progress) {
+					if (listener != null) {
+						listener.onProgress(progress);
+					}
+					flight.progress(progress);
+				}
+			});
+		} finally {
+			downloads.remove(url, flight);
+			flight.finish(outFile);
+		}
+		// 等待合并的下载复制完成后再回调，避免回调中移动、删除文件
+		flight.awaitCopied();
+		if (flight.success) {
+			listener.onSuccess(outFile);
+		} else {
+			listener.onFailed(flight.code, flight.msg);
+		}
+		return flight.success;
+	}
+
+	private static boolean follow(DownloadFlight flight, File outFile, DownloadListener listener) {
+		boolean interrupted = false;
+		try {
+			interrupted = flight.awaitDone();
+			if (!flight.success) {
+				listener.onFailed(flight.code, flight.msg);
+				return false;
+			}
+			if (!flight.file.getAbsoluteFile().equals(outFile.getAbsoluteFile())) {
+				FileUtil.copyFile(flight.file, outFile);
+			}
+		} catch (IOException e) {
+			listener.onFailed(500, e.getMessage());
+			e.printStackTrace();
+			return false;
+		} finally {
+			flight.copied();
+			// 复制完成后再恢复中断状态，否则 FileChannel 复制会抛出 ClosedByInterruptException
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		listener.onSuccess(outFile);
+		return true;
+	}
+
+	/**
+	 * 等待同一链接在途下载的调用数
+	 * @param url
+	 * @return 没有在途下载时返回 0
+	 */
+	static int getFollowerCount(String url) {
+		DownloadFlight flight = downloads.get(url);
+		return null == flight ? 0 : flight.followers.size();
+	}
+
+	/**
+	 * 一次在途的下载，合并同一链接的并发下载
+	 */
+	private static final class DownloadFlight {
+		private final CountDownLatch done = new CountDownLatch(1);
+		private final List<DownloadListener> followers = new CopyOnWriteArrayList<>();
+		private boolean finished;
+		private CountDownLatch copied;
+
+		boolean success;
+		int code = 500;
+		String msg = "Download failed!";
+		File file;
+
+		synchronized boolean join(DownloadListener listener) {
+			if (finished) {
+				return false;
+			}
+			followers.add(listener);
+			return true;
+		}
+
+		void progress(int progress) {
+			for (DownloadListener listener : followers) {
+				if (listener != null) {
+					listener.onProgress(progress);
+				}
+			}
+		}
+
+		synchronized void finish(File file) {
+			this.file = file;
+			finished = true;
+			copied = new CountDownLatch(followers.size());
+			done.countDown();
+		}
+
+		/**
+		 * 等待在途下载结束，期间的中断不恢复，由调用方复制完成后恢复
+		 * @return 等待期间是否被中断
+		 */
+		boolean awaitDone() {
+			boolean interrupted = false;
+			for (;;) {
+				try {
+					done.await();
+					return interrupted;
+				} catch (InterruptedException e) {
+					// 在途下载有超时，必须等到结束，否则发起者一直等待复制
+					interrupted = true;
+				}
+			}
+		}
+
+		void copied() {
+			copied.countDown();
+		}
+
+		void awaitCopied() {
+			boolean interrupted = false;
+			for (;;) {
+				try {
+					copied.await();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static boolean download(String url, File outFile, DownloadListener listener) {
 		OkHttpClient client = getClient();
 		Request request = new Request.Builder().url(url).build();
 		FileOutputStream fos = null;
@@ -65,21 +246,23 @@ public class OkHttpUtil {
 				return false;
 			}
 			long total = body.contentLength();
-			long sum = 0;
+			ProgressThrottle throttle = listener == null ? null
+					: new ProgressThrottle(total, (current, length, percent, bytesPerSecond, etaMillis) -> listener.onProgress(percent));
 
 			InputStream inputStream = body.byteStream();
 			fos = new FileOutputStream(outFile);
-			byte[] buffer = new byte[1024];
+			byte[] buffer = new byte[8192];
 			int count;
 			while ((count = inputStream.read(buffer)) >= 0) {
 				fos.write(buffer, 0, count);
-				sum += count;
-				int progress = (int) ((sum * 1.0) / total * 100);
-				if (listener != null) {
-					listener.onProgress(progress);
+				if (throttle != null) {
+					throttle.add(count);
 				}
 			}
 			fos.flush();
+			if (throttle != null) {
+				throttle.finish();
+			}
 
 			listener.onSuccess(outFile);
 			return true;
@@ -120,6 +303,7 @@ public class OkHttpUtil {
 
 		private long total = 0;
 		private long downTotal = 0;
+		private ProgressThrottle throttle;
 		private int retryCount = 0;
 
 		private boolean isStart = false;
@@ -194,6 +378,7 @@ public class OkHttpUtil {
 
 			isStart = true;
 			this.total = total;
+			this.throttle = new ProgressThrottle(total, (current, length, percent, bytesPerSecond, etaMillis) -> call.onProgress(percent));
 			downList.add(url);
 			down();
 		}
@@ -243,9 +428,10 @@ public class OkHttpUtil {
 				while ((len = is.read(buffer)) != - 1) {
 					fos.write(buffer, 0, len);
 					downTotal += len;
-					call.onProgress((int) ((downTotal * 1.0) / total * 100));
+					throttle.add(len);
 				}
 				fos.flush();
+				throttle.finish();
 				call.onSuccess(out);
 			} catch (IOException e) {
 				call.onFailed(DOWNLOAD_FAILED_RETRY, e.getMessage());
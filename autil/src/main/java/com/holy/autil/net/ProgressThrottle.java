@@ -0,0 +1,156 @@
+package com.holy.autil.net;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进度合并
+ * <p>
+ *     {@link #add(long)} 只做原子累加，按时间间隔和百分比变化决定是否回调：百分比变化达到 percentDelta、
+ *     或距上次回调超过 intervalMillis 时回调，且每秒不超过 maxEventsPerSecond 次。
+ *     可从多个线程调用，回调按顺序串行执行；最终的 100% 一定回调且只回调一次。
+ * </p>
+ */
+public class ProgressThrottle {
+	public static final long DEFAULT_INTERVAL_MILLIS = 500;
+	public static final int DEFAULT_PERCENT_DELTA = 1;
+	public static final int DEFAULT_MAX_EVENTS_PER_SECOND = 10;
+	/**
+	 * 速率的指数平滑系数
+	 */
+	private static final double RATE_SMOOTHING = 0.3;
+
+	public interface Callback {
+		/**
+		 * @param current 已完成字节数
+		 * @param total 总字节数，未知时不大于 0
+		 * @param percent 0-100，总数未知时为 -1，结束时总是 100
+		 * @param bytesPerSecond 平滑后的瞬时速率
+		 * @param etaMillis 预计剩余时间，未知时为 -1
+		 */
+		void onProgress(long current, long total, int percent, long bytesPerSecond, long etaMillis);
+	}
+
+	private final long total;
+	private final long intervalNanos;
+	private final long minGapNanos;
+	private final int percentDelta;
+	private final Callback callback;
+
+	private final AtomicLong current = new AtomicLong();
+	private final AtomicLong lastEmitNanos;
+	private volatile int lastPercent;
+	private volatile boolean finished;
+
+	// 以下只在回调锁内访问
+	private long rateNanos;
+	private long rateBytes;
+	private double bytesPerSecond = -1;
+
+	public ProgressThrottle(long total, Callback callback) {
+		this(total, DEFAULT_INTERVAL_MILLIS, DEFAULT_PERCENT_DELTA, DEFAULT_MAX_EVENTS_PER_SECOND, callback);
+	}
+
+	/**
+	 * @param total 总字节数，未知时传 -1，只按时间回调
+	 * @param intervalMillis 百分比变化不足时，最长多久回调一次
+	 * @param percentDelta 百分比变化达到该值时回调
+	 * @param maxEventsPerSecond 每秒最多回调次数，不含最终的 100%
+	 * @param callback
+	 */
+	public ProgressThrottle(long total, long intervalMillis, int percentDelta, int maxEventsPerSecond, Callback callback) {
+		if (maxEventsPerSecond <= 0) {
+			throw new IllegalArgumentException("maxEventsPerSecond must be positive: " + maxEventsPerSecond);
+		}
+		this.total = total;
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+		this.minGapNanos = TimeUnit.SECONDS.toNanos(1) / maxEventsPerSecond;
+		this.percentDelta = Math.max(1, percentDelta);
+		this.callback = callback;
+		long now = System.nanoTime();
+		this.lastEmitNanos = new AtomicLong(now);
+		this.rateNanos = now;
+	}
+
+	/**
+	 * 累加进度，达到总数时自动 {@link #finish()}
+	 * @param bytes
+	 */
+	public void add(long bytes) {
+		long value = current.addAndGet(bytes);
+		if (finished) {
+			return;
+		}
+		if (total > 0 && value >= total) {
+			finish();
+			return;
+		}
+		long now = System.nanoTime();
+		long last = lastEmitNanos.get();
+		long elapsed = now - last;
+		if (elapsed < minGapNanos) {
+			return;
+		}
+		int percent = percent(value);
+		if (elapsed < intervalNanos && (percent < 0 || percent - lastPercent < percentDelta)) {
+			return;
+		}
+		// 只有一个线程抢到本次回调
+		if (lastEmitNanos.compareAndSet(last, now)) {
+			emit(now, false);
+		}
+	}
+
+	/**
+	 * 结束，回调一次 100%（总数未知时 current 为当前字节数），之后的 add 不再回调
+	 */
+	public void finish() {
+		emit(System.nanoTime(), true);
+	}
+
+	public long getCurrent() {
+		return current.get();
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	private synchronized void emit(long now, boolean last) {
+		if (finished) {
+			return;
+		}
+		long value = current.get();
+		if (last) {
+			finished = true;
+			if (total > 0) {
+				value = Math.max(value, total);
+			}
+		}
+		long elapsed = now - rateNanos;
+		if (elapsed > 0) {
+			double instant = (value - rateBytes) * 1e9 / elapsed;
+			bytesPerSecond = bytesPerSecond < 0 ? instant : bytesPerSecond * (1 - RATE_SMOOTHING) + instant * RATE_SMOOTHING;
+			rateNanos = now;
+			rateBytes = value;
+		}
+		int percent = last ? 100 : percent(value);
+		lastPercent = percent;
+		long eta;
+		if (last) {
+			eta = 0;
+		} else if (total > 0 && bytesPerSecond > 0) {
+			eta = (long) ((total - value) * 1000 / bytesPerSecond);
+		} else {
+			eta = -1;
+		}
+		callback.onProgress(value, total, percent, (long) Math.max(0, bytesPerSecond), eta);
+	}
+
+	private int percent(long value) {
+		if (total <= 0) {
+			return -1;
+		}
+		return (int) Math.min(100, value * 100 / total);
+	}
+}
@@ -0,0 +1,222 @@
+package com.holy.autil.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 同一链接并发下载的合并，使用本地 HttpServer；服务端在所有等待者加入后才响应
+ */
+public class OkHttpUtilTest {
+	private static final int FOLLOWERS = 3;
+
+	private HttpServer server;
+	private String base;
+	private File tempDir;
+	private ExecutorService executor;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final CountDownLatch respond = new CountDownLatch(1);
+	private final byte[] body = new byte[64 * 1024];
+
+	@Before
+	public void setUp() throws IOException {
+		for (int i = 0; i < body.length; i++) {
+			body[i] = (byte) i;
+		}
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/file", new Handler(200));
+		server.createContext("/missing", new Handler(404));
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort();
+		tempDir = Files.createTempDirectory("download").toFile();
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		respond.countDown();
+		executor.shutdownNow();
+		server.stop(0);
+		File[] files = tempDir.listFiles();
+		if (null != files) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		tempDir.delete();
+	}
+
+	@Test(timeout = 10000)
+	public void concurrentDownloadsHitOriginOnce() throws Exception {
+		final String url = base + "/file";
+		List<Future<Boolean>> results = new ArrayList<>();
+		final List<Recorder> recorders = new ArrayList<>();
+		for (int i = 0; i < FOLLOWERS + 1; i++) {
+			final File out = new File(tempDir, "out" + i);
+			final Recorder recorder = new Recorder();
+			recorders.add(recorder);
+			results.add(executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return OkHttpUtil.downloadFile(url, out, recorder);
+				}
+			}));
+		}
+		awaitFollowers(url, FOLLOWERS);
+		respond.countDown();
+		for (Future<Boolean> result : results) {
+			assertTrue(result.get());
+		}
+		assertEquals(1, hits.get());
+		for (int i = 0; i < recorders.size(); i++) {
+			Recorder recorder = recorders.get(i);
+			File out = new File(tempDir, "out" + i);
+			assertEquals(out, recorder.success);
+			assertEquals(-1, recorder.failedCode);
+			assertTrue(Arrays.equals(body, Files.readAllBytes(out.toPath())));
+			// 等待者随在途下载收到进度
+			assertEquals(100, recorder.lastProgress);
+		}
+		assertEquals(0, OkHttpUtil.getFollowerCount(url));
+	}
+
+	@Test(timeout = 10000)
+	public void failedDownloadFailsEveryFollower() throws Exception {
+		final String url = base + "/missing";
+		List<Future<Boolean>> results = new ArrayList<>();
+		final List<Recorder> recorders = new ArrayList<>();
+		for (int i = 0; i < FOLLOWERS + 1; i++) {
+			final File out = new File(tempDir, "out" + i);
+			final Recorder recorder = new Recorder();
+			recorders.add(recorder);
+			results.add(executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return OkHttpUtil.downloadFile(url, out, recorder);
+				}
+			}));
+		}
+		awaitFollowers(url, FOLLOWERS);
+		respond.countDown();
+		for (Future<Boolean> result : results) {
+			assertFalse(result.get());
+		}
+		assertEquals(1, hits.get());
+		for (Recorder recorder : recorders) {
+			assertNull(recorder.success);
+			assertEquals(404, recorder.failedCode);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void interruptedFollowerStillCopiesAndReleasesLeader() throws Exception {
+		final String url = base + "/file";
+		final File leaderOut = new File(tempDir, "leader");
+		Future<Boolean> leader = executor.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return OkHttpUtil.downloadFile(url, leaderOut, new Recorder());
+			}
+		});
+		while (hits.get() < 1) {
+			Thread.sleep(5);
+		}
+		final File followerOut = new File(tempDir, "follower");
+		final AtomicBoolean result = new AtomicBoolean();
+		final AtomicBoolean interrupted = new AtomicBoolean();
+		Thread follower = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				result.set(OkHttpUtil.downloadFile(url, followerOut, new Recorder()));
+				interrupted.set(Thread.currentThread().isInterrupted());
+			}
+		});
+		follower.start();
+		awaitFollowers(url, 1);
+		follower.interrupt();
+		respond.countDown();
+		// 发起者等待复制完成后才返回，等待者被中断时不能让它一直等下去
+		assertTrue(leader.get());
+		follower.join();
+		assertTrue(result.get());
+		assertTrue(interrupted.get());
+		assertTrue(Arrays.equals(body, Files.readAllBytes(followerOut.toPath())));
+	}
+
+	private static void awaitFollowers(String url, int count) throws InterruptedException {
+		while (OkHttpUtil.getFollowerCount(url) < count) {
+			Thread.sleep(5);
+		}
+	}
+
+	private static class Recorder implements OkHttpUtil.DownloadListener {
+		volatile File success;
+		volatile int failedCode = -1;
+		volatile int lastProgress = -1;
+
+		@Override
+		public void onSuccess(File file) {
+			success = file;
+		}
+
+		@Override
+		public void onFailed(int code, String msg) {
+			failedCode = code;
+		}
+
+		@Override
+		public void onProgress(int progress) {
+			lastProgress = progress;
+		}
+	}
+
+	private class Handler implements HttpHandler {
+		private final int code;
+
+		Handler(int code) {
+			this.code = code;
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			hits.incrementAndGet();
+			try {
+				respond.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (200 != code) {
+				exchange.sendResponseHeaders(code, -1);
+				exchange.close();
+				return;
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.holy.autil.net;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 进度合并：频率限制、百分比变化与最终事件
+ */
+public class ProgressThrottleTest {
+	@Test
+	public void finishReportsHundredWhenTotalUnknown() {
+		Recorder recorder = new Recorder();
+		ProgressThrottle throttle = new ProgressThrottle(-1, recorder);
+		throttle.add(300);
+		throttle.add(200);
+		throttle.finish();
+		throttle.finish();
+		throttle.add(100);
+		Event last = recorder.last();
+		assertEquals(100, last.percent);
+		assertEquals(500, last.current);
+		assertEquals(-1, last.total);
+		assertEquals(0, last.etaMillis);
+		assertEquals(1, recorder.finals());
+	}
+
+	@Test
+	public void reachingTotalFinishesOnce() {
+		Recorder recorder = new Recorder();
+		ProgressThrottle throttle = new ProgressThrottle(1000, recorder);
+		throttle.add(400);
+		throttle.add(600);
+		throttle.add(10);
+		throttle.finish();
+		assertEquals(1, recorder.events.size());
+		Event last = recorder.last();
+		assertEquals(100, last.percent);
+		assertEquals(1000, last.current);
+		assertEquals(0, last.etaMillis);
+	}
+
+	@Test
+	public void finishBeforeTotalStillReportsHundred() {
+		Recorder recorder = new Recorder();
+		ProgressThrottle throttle = new ProgressThrottle(1000, recorder);
+		throttle.add(10);
+		throttle.finish();
+		assertEquals(100, recorder.last().percent);
+	}
+
+	@Test
+	public void eventsPerSecondAreLimited() throws InterruptedException {
+		Recorder recorder = new Recorder();
+		// 间隔为 0，只受每秒 10 次限制
+		ProgressThrottle throttle = new ProgressThrottle(-1, 0, 1, 10, recorder);
+		long end = System.currentTimeMillis() + 500;
+		while (System.currentTimeMillis() < end) {
+			throttle.add(1000);
+			Thread.sleep(1);
+		}
+		int events = recorder.events.size();
+		assertTrue("events: " + events, events >= 2 && events <= 6);
+		for (int i = 1; i < events; i++) {
+			assertTrue(recorder.events.get(i).nanos - recorder.events.get(i - 1).nanos >= 100000000L);
+		}
+	}
+
+	@Test
+	public void smallChangesWaitForPercentDelta() throws InterruptedException {
+		Recorder recorder = new Recorder();
+		ProgressThrottle throttle = new ProgressThrottle(100, 60000, 10, 1000, recorder);
+		for (int i = 0; i < 100; i++) {
+			throttle.add(1);
+			Thread.sleep(2);
+		}
+		List<Event> events = recorder.events;
+		assertTrue("events: " + events.size(), events.size() >= 5 && events.size() <= 10);
+		int lastPercent = 0;
+		for (int i = 0; i < events.size() - 1; i++) {
+			Event event = events.get(i);
+			assertTrue(event.percent - lastPercent >= 10);
+			assertTrue(event.bytesPerSecond > 0);
+			assertTrue(event.etaMillis >= 0);
+			lastPercent = event.percent;
+		}
+		assertEquals(100, recorder.last().percent);
+		assertEquals(1, recorder.finals());
+	}
+
+	@Test
+	public void unknownTotalReportsByInterval() throws InterruptedException {
+		Recorder recorder = new Recorder();
+		ProgressThrottle throttle = new ProgressThrottle(-1, 100, 1, 100, recorder);
+		long end = System.currentTimeMillis() + 550;
+		while (System.currentTimeMillis() < end) {
+			throttle.add(10);
+			Thread.sleep(5);
+		}
+		int events = recorder.events.size();
+		assertTrue("events: " + events, events >= 2 && events <= 6);
+		for (Event event : recorder.events) {
+			assertEquals(-1, event.percent);
+			assertEquals(-1, event.etaMillis);
+		}
+	}
+
+	private static class Event {
+		final long nanos = System.nanoTime();
+		long current;
+		long total;
+		int percent;
+		long bytesPerSecond;
+		long etaMillis;
+	}
+
+	private static class Recorder implements ProgressThrottle.Callback {
+		final List<Event> events = new ArrayList<>();
+
+		@Override
+		public void onProgress(long current, long total, int percent, long bytesPerSecond, long etaMillis) {
+			Event event = new Event();
+			event.current = current;
+			event.total = total;
+			event.percent = percent;
+			event.bytesPerSecond = bytesPerSecond;
+			event.etaMillis = etaMillis;
+			events.add(event);
+		}
+
+		Event last() {
+			return events.get(events.size() - 1);
+		}
+
+		int finals() {
+			int count = 0;
+			for (Event event : events) {
+				if (0 == event.etaMillis && 100 == event.percent) {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+}
@@ -0,0 +1,376 @@
+package com.holy.jutil.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 为 {@code @Reflectable} 类生成 {@code ReflectIndex}
+ * <p>
+ *     收录类中的 public 构造方法（非抽象类）、public 方法和 public 成员变量，生成的索引按成员键字符串 switch 得到编号，
+ *     再按编号 switch 直接调用；0 ~ {@value #MAX_FIXED_ARITY} 个参数的成员另外生成不用参数数组的 invokeN。
+ *     索引类名默认为 {@code com.holy.jutil.reflect.GeneratedReflectIndex}，多个模块都使用处理器时需用 {@code -Ajutil.reflectIndex=完整类名} 区分，并在运行时调用 Reflect.register 注册。
+ * </p>
+ */
+public class ReflectIndexProcessor extends AbstractProcessor {
+	private static final String ANNOTATION = "com.holy.jutil.reflect.Reflectable";
+	private static final String INDEX_INTERFACE = "com.holy.jutil.reflect.ReflectIndex";
+	private static final String DEFAULT_INDEX = "com.holy.jutil.reflect.GeneratedReflectIndex";
+	private static final String OPTION_INDEX = "jutil.reflectIndex";
+	/**
+	 * 生成 invoke0 ~ invokeN 的最大参数个数，与 ReflectIndex 一致
+	 */
+	static final int MAX_FIXED_ARITY = 3;
+
+	private final Map<String, Member> members = new LinkedHashMap<>();
+	private final Set<String> classNames = new LinkedHashSet<>();
+	private boolean written = false;
+
+	private static final class Member {
+		final String key;
+		/**
+		 * 所属类的源码名
+		 */
+		final String owner;
+		/**
+		 * 静态成员或构造方法，不需要实例
+		 */
+		final boolean isStatic;
+		/**
+		 * 方法为 "接收者.方法名"，构造方法为 "new 类名"，成员变量为 "接收者.变量名"
+		 */
+		final String receiver;
+		/**
+		 * 参数强制转换的类型，成员变量为 null
+		 */
+		final List<String> paramCasts;
+		final boolean isVoid;
+		/**
+		 * 成员变量赋值时的强制转换类型，final 成员变量为 null
+		 */
+		final String fieldCast;
+
+		Member(String key, String owner, boolean isStatic, String receiver, List<String> paramCasts, boolean isVoid, String fieldCast) {
+			this.key = key;
+			this.owner = owner;
+			this.isStatic = isStatic;
+			this.receiver = receiver;
+			this.paramCasts = paramCasts;
+			this.isVoid = isVoid;
+			this.fieldCast = fieldCast;
+		}
+
+		boolean isField() {
+			return null == paramCasts;
+		}
+
+		/**
+		 * 调用表达式
+		 * @param array true 时参数为 args[i]，否则为 argI
+		 */
+		String call(boolean array) {
+			StringBuilder builder = new StringBuilder(receiver).append('(');
+			for (int i = 0; i < paramCasts.size(); i++) {
+				if (i > 0) {
+					builder.append(", ");
+				}
+				builder.append("(").append(paramCasts.get(i)).append(") ").append(array ? "args[" + i + "]" : "arg" + i);
+			}
+			return builder.append(')').toString();
+		}
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton(ANNOTATION);
+	}
+
+	@Override
+	public Set<String> getSupportedOptions() {
+		return Collections.singleton(OPTION_INDEX);
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.CLASS) {
+					continue;
+				}
+				if (written) {
+					// 索引已在前一轮生成，无法再追加（通常是其他处理器生成的类）
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+							"@Reflectable class generated in a later round, skipped", element);
+					continue;
+				}
+				collect((TypeElement) element);
+			}
+		}
+		// 在收集到成员的那一轮生成，生成的索引类仍会经过后续轮次的编译
+		if (!written && !members.isEmpty()) {
+			write();
+			written = true;
+		}
+		return false;
+	}
+
+	private void collect(TypeElement type) {
+		if (!isAccessible(type)) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+					"@Reflectable class must be public and top-level or public static nested, skipped", type);
+			return;
+		}
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String sourceName = type.getQualifiedName().toString();
+		boolean isAbstract = type.getModifiers().contains(Modifier.ABSTRACT);
+		classNames.add(binaryName);
+		for (Element enclosed : type.getEnclosedElements()) {
+			Set<Modifier> modifiers = enclosed.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC)) {
+				continue;
+			}
+			boolean isStatic = modifiers.contains(Modifier.STATIC);
+			String receiver = isStatic ? sourceName : "((" + sourceName + ") target)";
+			if (enclosed.getKind() == ElementKind.CONSTRUCTOR && !isAbstract) {
+				ExecutableElement constructor = (ExecutableElement) enclosed;
+				String key = binaryName + "#<init>" + signature(constructor);
+				members.put(key, new Member(key, sourceName, true, "new " + sourceName, paramCasts(constructor), false, null));
+			} else if (enclosed.getKind() == ElementKind.METHOD) {
+				ExecutableElement method = (ExecutableElement) enclosed;
+				String name = method.getSimpleName().toString();
+				String key = binaryName + "#" + name + signature(method);
+				members.put(key, new Member(key, sourceName, isStatic, receiver + "." + name, paramCasts(method),
+						method.getReturnType().getKind() == TypeKind.VOID, null));
+			} else if (enclosed.getKind() == ElementKind.FIELD) {
+				String name = enclosed.getSimpleName().toString();
+				String key = binaryName + "#" + name;
+				String fieldCast = modifiers.contains(Modifier.FINAL) ? null : castType(erasure(enclosed.asType()));
+				members.put(key, new Member(key, sourceName, isStatic, receiver + "." + name, null, false, fieldCast));
+			}
+		}
+	}
+
+	private static boolean isAccessible(TypeElement type) {
+		for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+			TypeElement t = (TypeElement) e;
+			if (!t.getModifiers().contains(Modifier.PUBLIC)) {
+				return false;
+			}
+			if (t.getNestingKind() == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC)) {
+				return false;
+			}
+			if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * (参数类型名,...)，类型名与 Class.getName() 一致
+	 */
+	private String signature(ExecutableElement executable) {
+		StringBuilder builder = new StringBuilder("(");
+		List<? extends VariableElement> params = executable.getParameters();
+		for (int i = 0; i < params.size(); i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append(className(erasure(params.get(i).asType())));
+		}
+		return builder.append(')').toString();
+	}
+
+	private List<String> paramCasts(ExecutableElement executable) {
+		List<String> casts = new ArrayList<>();
+		for (VariableElement param : executable.getParameters()) {
+			casts.add(castType(erasure(param.asType())));
+		}
+		return casts;
+	}
+
+	private TypeMirror erasure(TypeMirror type) {
+		return processingEnv.getTypeUtils().erasure(type);
+	}
+
+	/**
+	 * 强制转换用的类型，基本类型转为包装类再自动拆箱
+	 */
+	private String castType(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type)
+					.getQualifiedName().toString();
+		}
+		return type.toString();
+	}
+
+	private String className(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return type.toString();
+		}
+		if (type.getKind() == TypeKind.ARRAY) {
+			return "[" + descriptor(((ArrayType) type).getComponentType());
+		}
+		return binaryName(type);
+	}
+
+	private String descriptor(TypeMirror type) {
+		switch (type.getKind()) {
+			case BOOLEAN: return "Z";
+			case BYTE: return "B";
+			case SHORT: return "S";
+			case CHAR: return "C";
+			case INT: return "I";
+			case LONG: return "J";
+			case FLOAT: return "F";
+			case DOUBLE: return "D";
+			case ARRAY: return "[" + descriptor(((ArrayType) type).getComponentType());
+			default: return "L" + binaryName(type) + ";";
+		}
+	}
+
+	private String binaryName(TypeMirror type) {
+		TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+		return processingEnv.getElementUtils().getBinaryName(element).toString();
+	}
+
+	/**
+	 * 按编号 switch 调用方法和构造方法
+	 * @param arity 只生成该参数个数的成员，参数为 argI；-1 时生成全部，参数为 args[i]
+	 */
+	private static void writeCalls(StringBuilder out, List<Member> list, int arity) {
+		out.append("\t\tswitch (index) {\n");
+		for (int i = 0; i < list.size(); i++) {
+			Member member = list.get(i);
+			if (member.isField() || (arity >= 0 && member.paramCasts.size() != arity)) {
+				continue;
+			}
+			String call = member.call(arity < 0);
+			out.append("\t\t\tcase ").append(i).append(":");
+			if (member.isVoid) {
+				out.append("\n\t\t\t\t").append(call).append(";\n\t\t\t\treturn null;\n");
+			} else {
+				out.append(" return ").append(call).append(";\n");
+			}
+		}
+		out.append("\t\t\tdefault: throw new IllegalArgumentException(\"unknown index: \" + index);\n\t\t}\n\t}\n");
+	}
+
+	private void write() {
+		String indexName = processingEnv.getOptions().get(OPTION_INDEX);
+		if (null == indexName || indexName.isEmpty()) {
+			indexName = DEFAULT_INDEX;
+		}
+		int dot = indexName.lastIndexOf('.');
+		String packageName = dot < 0 ? null : indexName.substring(0, dot);
+		String simpleName = indexName.substring(dot + 1);
+
+		List<Member> list = new ArrayList<>(members.values());
+		StringBuilder out = new StringBuilder();
+		if (null != packageName) {
+			out.append("package ").append(packageName).append(";\n\n");
+		}
+		out.append("/**\n * Generated by ").append(getClass().getName()).append(", do not edit\n */\n");
+		out.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+		out.append("public final class ").append(simpleName).append(" implements ").append(INDEX_INTERFACE).append(" {\n");
+
+		out.append("\t@Override\n\tpublic boolean contains(String className) {\n\t\tswitch (className) {\n");
+		for (String className : classNames) {
+			out.append("\t\t\tcase \"").append(className).append("\":\n");
+		}
+		out.append("\t\t\t\treturn true;\n\t\t\tdefault:\n\t\t\t\treturn false;\n\t\t}\n\t}\n\n");
+
+		out.append("\t@Override\n\tpublic int indexOf(String key) {\n\t\tswitch (key) {\n");
+		for (int i = 0; i < list.size(); i++) {
+			out.append("\t\t\tcase \"").append(list.get(i).key).append("\": return ").append(i).append(";\n");
+		}
+		out.append("\t\t\tdefault: return -1;\n\t\t}\n\t}\n\n");
+
+		out.append("\t@Override\n\tpublic boolean isStatic(int index) {\n\t\tswitch (index) {\n");
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i).isStatic) {
+				out.append("\t\t\tcase ").append(i).append(":\n");
+			}
+		}
+		out.append("\t\t\t\treturn true;\n\t\t\tdefault:\n\t\t\t\treturn false;\n\t\t}\n\t}\n\n");
+
+		// 同一个类的成员连续排列，按类合并 case
+		out.append("\t@Override\n\tpublic boolean isInstance(int index, Object target) {\n\t\tswitch (index) {\n");
+		for (int i = 0; i < list.size(); i++) {
+			Member member = list.get(i);
+			out.append("\t\t\tcase ").append(i).append(":\n");
+			if (i + 1 == list.size() || !list.get(i + 1).owner.equals(member.owner)) {
+				out.append("\t\t\t\treturn target instanceof ").append(member.owner).append(";\n");
+			}
+		}
+		out.append("\t\t\tdefault:\n\t\t\t\treturn false;\n\t\t}\n\t}\n\n");
+
+		out.append("\t@Override\n\tpublic Object invoke(int index, Object target, Object[] args) throws Throwable {\n");
+		writeCalls(out, list, -1);
+		for (int arity = 0; arity <= MAX_FIXED_ARITY; arity++) {
+			out.append("\n\t@Override\n\tpublic Object invoke").append(arity).append("(int index, Object target");
+			for (int i = 0; i < arity; i++) {
+				out.append(", Object arg").append(i);
+			}
+			out.append(") throws Throwable {\n");
+			writeCalls(out, list, arity);
+		}
+
+		out.append("\n\t@Override\n\tpublic Object get(int index, Object target) {\n\t\tswitch (index) {\n");
+		for (int i = 0; i < list.size(); i++) {
+			Member member = list.get(i);
+			if (member.isField()) {
+				out.append("\t\t\tcase ").append(i).append(": return ").append(member.receiver).append(";\n");
+			}
+		}
+		out.append("\t\t\tdefault: throw new IllegalArgumentException(\"unknown index: \" + index);\n\t\t}\n\t}\n");
+
+		out.append("\n\t@Override\n\tpublic void set(int index, Object target, Object value) {\n\t\tswitch (index) {\n");
+		for (int i = 0; i < list.size(); i++) {
+			Member member = list.get(i);
+			if (member.isField() && null != member.fieldCast) {
+				out.append("\t\t\tcase ").append(i).append(":\n\t\t\t\t").append(member.receiver)
+						.append(" = (").append(member.fieldCast).append(") value;\n\t\t\t\treturn;\n");
+			}
+		}
+		out.append("\t\t\tdefault: throw new IllegalArgumentException(\"unknown index: \" + index);\n\t\t}\n\t}\n}\n");
+
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(indexName);
+			try (Writer writer = file.openWriter()) {
+				writer.write(out.toString());
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "cannot write " + indexName + ": " + e);
+		}
+	}
+}
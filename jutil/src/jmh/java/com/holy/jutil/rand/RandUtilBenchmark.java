@@ -0,0 +1,90 @@
+package com.holy.jutil.rand;
+
+import com.holy.jutil.security.Crypter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RandUtil 随线程数的扩展性，与每次 new Random、共享的 Math.random() 对比
+ * <p>
+ *     JMH 的线程数不能作为 @Param，{@link #main(String[])} 依次以 1、2、4、8、16、32 个线程运行：
+ *     ./gradlew :jutil:jmh -PjmhMain=com.holy.jutil.rand.RandUtilBenchmark
+ *     也可以单独指定线程数：./gradlew :jutil:jmh -PjmhArgs="RandUtilBenchmark -t 16"
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandUtilBenchmark {
+	private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+	private final int[] ints = new int[1024];
+
+	/**
+	 * 改造前 rand2Int 的做法
+	 */
+	@Benchmark
+	public int newRandomPerCall() {
+		return new Random().nextInt(100);
+	}
+
+	/**
+	 * 改造前 rand 的做法，全局同一个生成器
+	 */
+	@Benchmark
+	public double mathRandom() {
+		return Math.random() * 101;
+	}
+
+	@Benchmark
+	public int rand2Int() {
+		return RandUtil.rand2Int(0, 99);
+	}
+
+	@Benchmark
+	public double rand() {
+		return RandUtil.rand(0, 100);
+	}
+
+	/**
+	 * 一次填充 1024 个
+	 */
+	@Benchmark
+	public int[] fillInts() {
+		RandUtil.fill(ints, 0, 99);
+		return ints;
+	}
+
+	@Benchmark
+	public String genRandString() {
+		return Crypter.genRandString(32);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		for (int threads : THREADS) {
+			Options options = new OptionsBuilder()
+					.include(RandUtilBenchmark.class.getName())
+					.threads(threads)
+					.build();
+			new Runner(options).run();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.holy.jutil.reflect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问器与直接调用、缓存的 Method、{@link Reflect#invoke(Object, Class, String, Class[], Object...)}、
+ * {@link Reflect#getField(Object, Class, String)} 对比
+ * <p>
+ *     Indexed 为 @Reflectable 类（直接调用生成代码），Plain 为未标注的类（退回反射）。
+ *     ./gradlew :jutil:jmh -PjmhArgs="ReflectBenchmark -prof gc" 可同时查看每次调用分配的字节数
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectBenchmark {
+	private static final Class<?>[] ADD_TYPES = {int.class, int.class};
+
+	@Reflectable
+	public static class Indexed {
+		public int value = 1;
+
+		public int add(int a, int b) {
+			return a + b + value;
+		}
+	}
+
+	public static class Plain {
+		public int value = 1;
+
+		public int add(int a, int b) {
+			return a + b + value;
+		}
+	}
+
+	private final Indexed indexed = new Indexed();
+	private final Plain plain = new Plain();
+	// 装箱后的参数，避免把装箱计入调用开销
+	private final Integer a = 1000;
+	private final Integer b = 2000;
+
+	private Method method;
+	private MethodAccessor indexedMethod;
+	private MethodAccessor plainMethod;
+	private FieldAccessor indexedField;
+	private FieldAccessor plainField;
+
+	@Setup
+	public void setUp() throws Exception {
+		method = Indexed.class.getMethod("add", ADD_TYPES);
+		indexedMethod = Reflect.methodAccessor(Indexed.class, "add", ADD_TYPES);
+		plainMethod = Reflect.methodAccessor(Plain.class, "add", ADD_TYPES);
+		indexedField = Reflect.fieldAccessor(Indexed.class, "value");
+		plainField = Reflect.fieldAccessor(Plain.class, "value");
+		if (!indexedMethod.isIndexed() || !indexedField.isIndexed()) {
+			throw new IllegalStateException("jmh source set must run jutil-processor");
+		}
+	}
+
+	@Benchmark
+	public int invokeDirect() {
+		return indexed.add(a, b);
+	}
+
+	@Benchmark
+	public Object invokeMethod() throws Exception {
+		return method.invoke(indexed, a, b);
+	}
+
+	@Benchmark
+	public Object invokeReflect() throws Exception {
+		return Reflect.invoke(plain, Plain.class, "add", ADD_TYPES, a, b);
+	}
+
+	@Benchmark
+	public Object invokeReflectIndexed() throws Exception {
+		return Reflect.invoke(indexed, Indexed.class, "add", ADD_TYPES, a, b);
+	}
+
+	@Benchmark
+	public Object invokeAccessorIndexed() throws Exception {
+		return indexedMethod.invoke(indexed, a, b);
+	}
+
+	@Benchmark
+	public Object invokeAccessorPlain() throws Exception {
+		return plainMethod.invoke(plain, a, b);
+	}
+
+	@Benchmark
+	public int getFieldDirect() {
+		return indexed.value;
+	}
+
+	@Benchmark
+	public Object getFieldReflect() throws Exception {
+		return Reflect.getField(plain, Plain.class, "value");
+	}
+
+	@Benchmark
+	public Object getFieldAccessorIndexed() {
+		return indexedField.get(indexed);
+	}
+
+	@Benchmark
+	public Object getFieldAccessorPlain() {
+		return plainField.get(plain);
+	}
+}
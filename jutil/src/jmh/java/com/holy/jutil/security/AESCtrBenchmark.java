@@ -0,0 +1,71 @@
+package com.holy.jutil.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AESCtr 随段数的扩展性：同一个文件分别用 1、2、4、8 段加密，段数 1 即单线程顺序 CTR
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AESCtrBenchmark {
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	@Param({"67108864"})
+	public int size;
+
+	private final byte[] key = new byte[16];
+	private final byte[] iv = new byte[16];
+	private File in;
+	private File out;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Random random = new Random(28);
+		random.nextBytes(key);
+		random.nextBytes(iv);
+		in = File.createTempFile("aesctr", ".in");
+		out = File.createTempFile("aesctr", ".out");
+		byte[] chunk = new byte[1024 * 1024];
+		try (FileOutputStream fos = new FileOutputStream(in)) {
+			for (int written = 0; written < size; written += chunk.length) {
+				random.nextBytes(chunk);
+				fos.write(chunk, 0, Math.min(chunk.length, size - written));
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		in.delete();
+		out.delete();
+	}
+
+	@Benchmark
+	public void crypt() throws IOException, GeneralSecurityException {
+		AESCtr.crypt(in, out, key, iv, threads);
+	}
+}
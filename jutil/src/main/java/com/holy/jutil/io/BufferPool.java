@@ -0,0 +1,74 @@
+package com.holy.jutil.io;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 字节缓冲池
+ * <p>
+ *     复用固定大小的 byte[]，处理大文件/大流时避免反复分配大块内存
+ * </p>
+ */
+public class BufferPool {
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	private static final int DEFAULT_MAX_POOLED = 32;
+
+	private static final BufferPool defaultPool = new BufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED);
+
+	private final int bufferSize;
+	private final int maxPooled;
+	private final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pooled = new AtomicInteger();
+
+	/**
+	 * @param bufferSize 每个缓冲区大小
+	 * @param maxPooled 最多缓存的缓冲区个数，超出的直接丢弃交给GC
+	 */
+	public BufferPool(int bufferSize, int maxPooled) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+		}
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * 默认缓冲池，缓冲区大小 64KB
+	 * @return
+	 */
+	public static BufferPool getDefault() {
+		return defaultPool;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * 取一个缓冲区，用完后必须 release
+	 * @return
+	 */
+	public byte[] acquire() {
+		byte[] buffer = pool.poll();
+		if (null == buffer) {
+			return new byte[bufferSize];
+		}
+		pooled.decrementAndGet();
+		return buffer;
+	}
+
+	/**
+	 * 归还缓冲区
+	 * @param buffer
+	 */
+	public void release(byte[] buffer) {
+		if (null == buffer || buffer.length != bufferSize) {
+			return;
+		}
+		if (pooled.incrementAndGet() > maxPooled) {
+			pooled.decrementAndGet();
+			return;
+		}
+		pool.offer(buffer);
+	}
+}
@@ -0,0 +1,401 @@
+package com.holy.jutil.net;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * 缓存的响应，不可变
+ * <p>
+ *     响应体已解压，存储时去掉 Content-Encoding / Content-Length 头。
+ *     新鲜期按 Cache-Control: max-age、Expires 计算，Expires 格式错误视为已过期；都没有但有 Last-Modified 时
+ *     取距上次修改时间的 10%；no-cache 的响应每次都要重新验证。
+ * </p>
+ * <p>
+ *     响应有 Vary 时记录请求中对应头的值，{@link #matches(Map)} 全部相同才可使用；Vary: * 不缓存。
+ *     带 Authorization 的请求只有响应声明 Cache-Control: public 时才缓存。
+ * </p>
+ */
+public class CachedResponse {
+	private static final int MAGIC = 0x48434332; // HCC2
+
+	private final int code;
+	private final Map<String, List<String>> headers;
+	private final byte[] body;
+	private final long storedTime;
+	private final long expiresTime;
+	/**
+	 * Vary 列出的请求头（小写）-> 存储时请求中的值，请求中没有该头时值为 null
+	 */
+	private final Map<String, String> vary;
+
+	CachedResponse(int code, Map<String, List<String>> headers, byte[] body, long storedTime, long expiresTime, Map<String, String> vary) {
+		this.code = code;
+		this.headers = headers;
+		this.body = body;
+		this.storedTime = storedTime;
+		this.expiresTime = expiresTime;
+		this.vary = vary;
+	}
+
+	/**
+	 * 由网络响应生成，不可缓存（no-store、Vary: *、带 Authorization 而非 public、没有新鲜期也没有验证器）时返回 null
+	 * @param code
+	 * @param responseHeaders
+	 * @param body 已解压的响应体
+	 * @param now
+	 * @param requestHeaders 实际发送的请求头
+	 * @return
+	 */
+	static CachedResponse create(int code, Map<String, List<String>> responseHeaders, byte[] body, long now, Map<String, String> requestHeaders) {
+		Map<String, List<String>> headers = decodedHeaders(responseHeaders);
+		String cacheControl = header(headers, "Cache-Control");
+		if (hasDirective(cacheControl, "no-store")) {
+			return null;
+		}
+		if (null != requestHeader(requestHeaders, "Authorization") && !hasDirective(cacheControl, "public")) {
+			return null;
+		}
+		List<String> varyNames = varyNames(headers);
+		if (null == varyNames) {
+			return null;
+		}
+		long expires = expiresTime(headers, cacheControl, now);
+		if (expires <= now && null == header(headers, "ETag") && null == header(headers, "Last-Modified")) {
+			return null;
+		}
+		Map<String, String> vary = new LinkedHashMap<>();
+		for (String name : varyNames) {
+			vary.put(name, requestHeader(requestHeaders, name));
+		}
+		return new CachedResponse(code, headers, body, now, expires, Collections.unmodifiableMap(vary));
+	}
+
+	/**
+	 * 不检查是否可缓存，已过期
+	 */
+	static CachedResponse snapshot(int code, Map<String, List<String>> responseHeaders, byte[] body, long now) {
+		return new CachedResponse(code, decodedHeaders(responseHeaders), body, now, now, Collections.<String, String>emptyMap());
+	}
+
+	/**
+	 * 所有 Vary 头的字段名（小写），Vary: * 时返回 null
+	 */
+	private static List<String> varyNames(Map<String, List<String>> headers) {
+		List<String> names = new ArrayList<>();
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			if (!"Vary".equalsIgnoreCase(entry.getKey())) {
+				continue;
+			}
+			for (String value : entry.getValue()) {
+				for (String part : value.split(",")) {
+					String name = part.trim().toLowerCase(Locale.US);
+					if ("*".equals(name)) {
+						return null;
+					}
+					if (!name.isEmpty() && !names.contains(name)) {
+						names.add(name);
+					}
+				}
+			}
+		}
+		return names;
+	}
+
+	private static String requestHeader(Map<String, String> requestHeaders, String name) {
+		String value = null;
+		for (Map.Entry<String, String> entry : requestHeaders.entrySet()) {
+			if (entry.getKey().equalsIgnoreCase(name)) {
+				value = entry.getValue();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * 复制响应头，去掉不适用于已解压内容的 Content-Encoding / Content-Length
+	 */
+	static Map<String, List<String>> decodedHeaders(Map<String, List<String>> responseHeaders) {
+		Map<String, List<String>> headers = new LinkedHashMap<>();
+		for (Map.Entry<String, List<String>> entry : responseHeaders.entrySet()) {
+			String name = entry.getKey();
+			if (null == name || "Content-Encoding".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)) {
+				continue;
+			}
+			headers.put(name, Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+		}
+		return Collections.unmodifiableMap(headers);
+	}
+
+	/**
+	 * 304 之后用新的响应头刷新新鲜期
+	 * @param responseHeaders 304 响应头
+	 * @param now
+	 * @return
+	 */
+	CachedResponse revalidated(Map<String, List<String>> responseHeaders, long now) {
+		Map<String, List<String>> merged = new LinkedHashMap<>(headers);
+		for (Map.Entry<String, List<String>> entry : responseHeaders.entrySet()) {
+			String name = entry.getKey();
+			if (null == name || "Content-Encoding".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)) {
+				continue;
+			}
+			// 删除大小写不同的同名头
+			for (String existing : new ArrayList<>(merged.keySet())) {
+				if (existing.equalsIgnoreCase(name)) {
+					merged.remove(existing);
+				}
+			}
+			merged.put(name, Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+		}
+		merged = Collections.unmodifiableMap(merged);
+		return new CachedResponse(code, merged, body, now, expiresTime(merged, header(merged, "Cache-Control"), now), vary);
+	}
+
+	private static long expiresTime(Map<String, List<String>> headers, String cacheControl, long now) {
+		if (hasDirective(cacheControl, "no-cache")) {
+			return now;
+		}
+		long maxAge = directiveSeconds(cacheControl, "max-age");
+		if (maxAge >= 0) {
+			long age = parseSeconds(header(headers, "Age"));
+			return now + (maxAge - Math.max(0, age)) * 1000;
+		}
+		long date = parseDate(header(headers, "Date"));
+		String expiresValue = header(headers, "Expires");
+		if (null != expiresValue) {
+			// RFC 7234 4.2.1：无法解析的 Expires（如 "0"）视为已过期
+			long expires = parseDate(expiresValue);
+			return expires > 0 ? now + expires - (date > 0 ? date : now) : now;
+		}
+		long lastModified = parseDate(header(headers, "Last-Modified"));
+		if (lastModified > 0) {
+			long served = date > 0 ? date : now;
+			return served > lastModified ? now + (served - lastModified) / 10 : now;
+		}
+		return now;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	public Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @param name 不区分大小写
+	 * @return 同名多个时返回最后一个，不存在返回 null
+	 */
+	public String getHeader(String name) {
+		return header(headers, name);
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	public long getStoredTime() {
+		return storedTime;
+	}
+
+	public long getExpiresTime() {
+		return expiresTime;
+	}
+
+	public boolean isFresh(long now) {
+		return now < expiresTime;
+	}
+
+	/**
+	 * 是否有 ETag 或 Last-Modified，可以条件请求
+	 * @return
+	 */
+	public boolean hasValidator() {
+		return null != getHeader("ETag") || null != getHeader("Last-Modified");
+	}
+
+	/**
+	 * 请求中 Vary 列出的头是否都与存储时相同
+	 * @param requestHeaders 将要发送的请求头
+	 * @return
+	 */
+	public boolean matches(Map<String, String> requestHeaders) {
+		for (Map.Entry<String, String> entry : vary.entrySet()) {
+			String value = requestHeader(requestHeaders, entry.getKey());
+			if (null == value ? null != entry.getValue() : !value.equals(entry.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 近似的内存占用
+	 * @return
+	 */
+	public int size() {
+		int size = body.length + 64;
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			size += entry.getKey().length() * 2;
+			for (String value : entry.getValue()) {
+				size += value.length() * 2;
+			}
+		}
+		for (Map.Entry<String, String> entry : vary.entrySet()) {
+			size += (entry.getKey().length() + (null == entry.getValue() ? 0 : entry.getValue().length())) * 2;
+		}
+		return size;
+	}
+
+	/**
+	 * 序列化，供磁盘缓存使用
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(code);
+		data.writeLong(storedTime);
+		data.writeLong(expiresTime);
+		data.writeInt(headers.size());
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			data.writeUTF(entry.getKey());
+			data.writeInt(entry.getValue().size());
+			for (String value : entry.getValue()) {
+				data.writeUTF(value);
+			}
+		}
+		data.writeInt(vary.size());
+		for (Map.Entry<String, String> entry : vary.entrySet()) {
+			data.writeUTF(entry.getKey());
+			data.writeBoolean(null != entry.getValue());
+			if (null != entry.getValue()) {
+				data.writeUTF(entry.getValue());
+			}
+		}
+		data.writeInt(body.length);
+		data.write(body);
+		data.flush();
+	}
+
+	/**
+	 * 反序列化
+	 * @param in
+	 * @return
+	 * @throws IOException 格式错误
+	 */
+	public static CachedResponse readFrom(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC) {
+			throw new IOException("not a cached response");
+		}
+		int code = data.readInt();
+		long storedTime = data.readLong();
+		long expiresTime = data.readLong();
+		int headerCount = data.readInt();
+		Map<String, List<String>> headers = new LinkedHashMap<>();
+		for (int i = 0; i < headerCount; i++) {
+			String name = data.readUTF();
+			int valueCount = data.readInt();
+			List<String> values = new ArrayList<>(valueCount);
+			for (int j = 0; j < valueCount; j++) {
+				values.add(data.readUTF());
+			}
+			headers.put(name, Collections.unmodifiableList(values));
+		}
+		int varyCount = data.readInt();
+		Map<String, String> vary = new LinkedHashMap<>();
+		for (int i = 0; i < varyCount; i++) {
+			String name = data.readUTF();
+			vary.put(name, data.readBoolean() ? data.readUTF() : null);
+		}
+		byte[] body = new byte[data.readInt()];
+		data.readFully(body);
+		return new CachedResponse(code, Collections.unmodifiableMap(headers), body, storedTime, expiresTime, Collections.unmodifiableMap(vary));
+	}
+
+	static String header(Map<String, List<String>> headers, String name) {
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			if (null != entry.getKey() && entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+				return entry.getValue().get(entry.getValue().size() - 1);
+			}
+		}
+		return null;
+	}
+
+	static boolean hasDirective(String cacheControl, String directive) {
+		if (null == cacheControl) {
+			return false;
+		}
+		for (String part : cacheControl.split(",")) {
+			String token = part.trim();
+			int eq = token.indexOf('=');
+			if ((eq < 0 ? token : token.substring(0, eq).trim()).equalsIgnoreCase(directive)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return 秒数，没有该指令或格式错误时返回 -1
+	 */
+	private static long directiveSeconds(String cacheControl, String directive) {
+		if (null == cacheControl) {
+			return -1;
+		}
+		for (String part : cacheControl.split(",")) {
+			String token = part.trim();
+			int eq = token.indexOf('=');
+			if (eq > 0 && token.substring(0, eq).trim().equalsIgnoreCase(directive)) {
+				return parseSeconds(token.substring(eq + 1).replace("\"", ""));
+			}
+		}
+		return -1;
+	}
+
+	private static long parseSeconds(String value) {
+		if (null == value) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * RFC 1123 日期，格式错误返回 -1
+	 */
+	static long parseDate(String value) {
+		if (null == value) {
+			return -1;
+		}
+		try {
+			return httpDateFormat().parse(value.trim()).getTime();
+		} catch (ParseException e) {
+			return -1;
+		}
+	}
+
+	private static SimpleDateFormat httpDateFormat() {
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format;
+	}
+}
@@ -0,0 +1,372 @@
+package com.holy.jutil.net;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 合并发送小请求
+ * <p>
+ *     方法、URL、请求头相同的请求按到达顺序攒成一批，请求体由 {@link Framer} 拼成一个请求体，
+ *     通过 {@link HttpClient#getDispatcher()} 发送。批次达到 maxBatchCount 个或 maxBatchBytes 字节时立即发送，
+ *     否则第一个请求到达 maxDelayMillis 后发送。服务端需按同样的格式拆分请求体。
+ * </p>
+ * <p>
+ *     同一地址未完成（排队和发送中）的请求达到 maxQueued 时，{@link #submit(HttpRequest, HttpCallback)}
+ *     最多阻塞请求超时时间，仍无空位则以 REJECTED 结束。同一批的请求共享批次的 {@link HttpResult}。
+ * </p>
+ * <p>
+ *     同一地址的批次在地址锁内按到达顺序交给调度器；调度器对同一主机并发执行时，服务端收到的顺序仍可能不同。
+ *     没有排队和发送中请求的地址会被移除，不再占用内存。不再使用时调用 {@link #close()} 发送剩余请求并停止定时线程。
+ * </p>
+ */
+public class HttpBatcher {
+	/**
+	 * 请求体拼接格式
+	 */
+	public interface Framer {
+		byte[] frame(List<byte[]> payloads);
+
+		String getContentType();
+	}
+
+	/**
+	 * 每段前加 4 字节大端长度
+	 */
+	public static final Framer LENGTH_PREFIXED = new Framer() {
+		@Override
+		public byte[] frame(List<byte[]> payloads) {
+			int size = 0;
+			for (byte[] payload : payloads) {
+				size += 4 + payload.length;
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+			for (byte[] payload : payloads) {
+				int length = payload.length;
+				out.write(length >>> 24);
+				out.write(length >>> 16);
+				out.write(length >>> 8);
+				out.write(length);
+				out.write(payload, 0, length);
+			}
+			return out.toByteArray();
+		}
+
+		@Override
+		public String getContentType() {
+			return "application/octet-stream";
+		}
+	};
+
+	/**
+	 * 每段后加换行，请求体本身不能含换行（如单行 JSON）
+	 */
+	public static final Framer NEWLINE_DELIMITED = new Framer() {
+		@Override
+		public byte[] frame(List<byte[]> payloads) {
+			int size = 0;
+			for (byte[] payload : payloads) {
+				size += payload.length + 1;
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+			for (byte[] payload : payloads) {
+				out.write(payload, 0, payload.length);
+				out.write('\n');
+			}
+			return out.toByteArray();
+		}
+
+		@Override
+		public String getContentType() {
+			return "application/x-ndjson";
+		}
+	};
+
+	private final HttpClient client;
+	private final Framer framer;
+	private final int maxBatchBytes;
+	private final int maxBatchCount;
+	private final long maxDelayMillis;
+	private final int maxQueued;
+	private final ScheduledExecutorService timer;
+	private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	private final AtomicLong batchCount = new AtomicLong();
+	private final AtomicLong itemCount = new AtomicLong();
+	private volatile boolean closed;
+
+	/**
+	 * @param client
+	 * @param framer
+	 * @param maxBatchBytes 一批请求体总长度上限，单个超过的请求单独发送
+	 * @param maxBatchCount 一批最多的请求数
+	 * @param maxDelayMillis 第一个请求最多等待的时间
+	 * @param maxQueued 同一地址未完成的请求上限
+	 */
+	public HttpBatcher(HttpClient client, Framer framer, int maxBatchBytes, int maxBatchCount, long maxDelayMillis, int maxQueued) {
+		if (maxBatchBytes <= 0 || maxBatchCount <= 0 || maxDelayMillis < 0 || maxQueued <= 0) {
+			throw new IllegalArgumentException("invalid limits: " + maxBatchBytes + ", " + maxBatchCount + ", " + maxDelayMillis + ", " + maxQueued);
+		}
+		this.client = client;
+		this.framer = framer;
+		this.maxBatchBytes = maxBatchBytes;
+		this.maxBatchCount = maxBatchCount;
+		this.maxDelayMillis = maxDelayMillis;
+		this.maxQueued = maxQueued;
+		ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "HttpBatcher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		// 空闲时不占线程
+		timer.setKeepAliveTime(60, TimeUnit.SECONDS);
+		timer.allowCoreThreadTimeOut(true);
+		this.timer = timer;
+	}
+
+	private static final class Endpoint {
+		final String key;
+		final List<HttpFuture> pending = new ArrayList<>();
+		long pendingBytes;
+		/**
+		 * 排队和发送中的请求数
+		 */
+		int outstanding;
+		boolean scheduled;
+		/**
+		 * 已从 endpoints 移除，不能再加入请求
+		 */
+		boolean retired;
+
+		Endpoint(String key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * 提交请求，同一地址的未完成请求已满时阻塞
+	 * @param request 必须有 byte[] 请求体
+	 * @param callback 可为 null
+	 * @return 已 {@link #close()} 时以 REJECTED 结束
+	 */
+	public HttpFuture submit(HttpRequest request, HttpCallback callback) {
+		byte[] body = request.getBody();
+		if (null == body) {
+			throw new IllegalArgumentException("batched request must have a byte[] body");
+		}
+		HttpFuture future = new HttpFuture(null, request, null, callback);
+		if (closed) {
+			future.complete(HttpResult.failure(HttpResult.Status.REJECTED, null));
+			return future;
+		}
+		String key = SingleFlight.key(request);
+		for (;;) {
+			Endpoint endpoint = endpoint(key);
+			synchronized (endpoint) {
+				if (endpoint.retired) {
+					continue;
+				}
+				if (!awaitSlot(endpoint, request.getTimeOut())) {
+					future.complete(HttpResult.failure(HttpResult.Status.REJECTED, null));
+					return future;
+				}
+				// 等待期间可能已空闲并被移除
+				if (endpoint.retired) {
+					continue;
+				}
+				List<HttpFuture> full = null;
+				List<HttpFuture> ready = null;
+				if (!endpoint.pending.isEmpty() && endpoint.pendingBytes + body.length > maxBatchBytes) {
+					full = drain(endpoint);
+				}
+				endpoint.pending.add(future);
+				endpoint.pendingBytes += body.length;
+				endpoint.outstanding++;
+				if (endpoint.pending.size() >= maxBatchCount || endpoint.pendingBytes >= maxBatchBytes) {
+					ready = drain(endpoint);
+				} else if (!endpoint.scheduled) {
+					endpoint.scheduled = true;
+					schedule(endpoint);
+				}
+				// 持锁交给调度器（只入队不阻塞），同一地址的批次按到达顺序发出
+				send(endpoint, full);
+				send(endpoint, ready);
+			}
+			return future;
+		}
+	}
+
+	private Endpoint endpoint(String key) {
+		Endpoint endpoint = endpoints.get(key);
+		if (null == endpoint) {
+			Endpoint created = new Endpoint(key);
+			endpoint = endpoints.putIfAbsent(key, created);
+			if (null == endpoint) {
+				endpoint = created;
+			}
+		}
+		return endpoint;
+	}
+
+	/**
+	 * 立即发送所有地址攒下的请求
+	 */
+	public void flush() {
+		for (Endpoint endpoint : endpoints.values()) {
+			synchronized (endpoint) {
+				send(endpoint, drain(endpoint));
+				retireIfIdle(endpoint);
+			}
+		}
+	}
+
+	/**
+	 * 发送剩余的请求并停止定时线程，之后提交的请求以 REJECTED 结束；已发出的批次照常完成
+	 */
+	public void close() {
+		closed = true;
+		// 先停止定时线程再发送：之前排定的批次由 flush 发出，之后并发提交的在 schedule 被拒绝时立即发出
+		timer.shutdownNow();
+		flush();
+	}
+
+	/**
+	 * 有排队或发送中请求的地址数
+	 * @return
+	 */
+	public int getEndpointCount() {
+		return endpoints.size();
+	}
+
+	/**
+	 * 已发送的批次数
+	 * @return
+	 */
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	/**
+	 * 已发送的请求数
+	 * @return
+	 */
+	public long getItemCount() {
+		return itemCount.get();
+	}
+
+	/**
+	 * 持有 endpoint 锁时调用
+	 * @return 是否有空位
+	 */
+	private boolean awaitSlot(Endpoint endpoint, int timeOut) {
+		long deadline = System.currentTimeMillis() + timeOut;
+		while (endpoint.outstanding >= maxQueued) {
+			long wait = deadline - System.currentTimeMillis();
+			if (timeOut <= 0 || wait <= 0) {
+				return false;
+			}
+			try {
+				endpoint.wait(wait);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 持有 endpoint 锁时调用
+	 */
+	private void schedule(final Endpoint endpoint) {
+		try {
+			timer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					synchronized (endpoint) {
+						endpoint.scheduled = false;
+						send(endpoint, drain(endpoint));
+						retireIfIdle(endpoint);
+					}
+				}
+			}, maxDelayMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// 与 close 并发，定时线程已停止，立即发送
+			endpoint.scheduled = false;
+			send(endpoint, drain(endpoint));
+		}
+	}
+
+	/**
+	 * 持有 endpoint 锁时调用，没有排队和发送中的请求时从 endpoints 移除
+	 */
+	private void retireIfIdle(Endpoint endpoint) {
+		if (!endpoint.retired && endpoint.pending.isEmpty() && 0 == endpoint.outstanding) {
+			endpoint.retired = true;
+			endpoints.remove(endpoint.key, endpoint);
+		}
+	}
+
+	/**
+	 * 持有 endpoint 锁时调用，取出攒下的请求，跳过已取消的
+	 */
+	private List<HttpFuture> drain(Endpoint endpoint) {
+		List<HttpFuture> batch = new ArrayList<>(endpoint.pending.size());
+		for (HttpFuture future : endpoint.pending) {
+			if (future.isDone()) {
+				endpoint.outstanding--;
+			} else {
+				batch.add(future);
+			}
+		}
+		endpoint.pending.clear();
+		endpoint.pendingBytes = 0;
+		endpoint.notifyAll();
+		return batch;
+	}
+
+	/**
+	 * 持有 endpoint 锁时调用
+	 */
+	private void send(final Endpoint endpoint, final List<HttpFuture> batch) {
+		if (null == batch || batch.isEmpty()) {
+			return;
+		}
+		List<byte[]> payloads = new ArrayList<>(batch.size());
+		for (HttpFuture future : batch) {
+			payloads.add(future.getRequest().getBody());
+		}
+		HttpRequest first = batch.get(0).getRequest();
+		HttpRequest request = new HttpRequest(first.getMethod(), first.getUrl()).timeOut(first.getTimeOut());
+		for (Map.Entry<String, String> header : first.getHeaders().entrySet()) {
+			request.header(header.getKey(), header.getValue());
+		}
+		request.header("Content-Type", framer.getContentType()).body(framer.frame(payloads));
+		batchCount.incrementAndGet();
+		itemCount.addAndGet(batch.size());
+		client.getDispatcher().submit(request, new HttpCallback() {
+			@Override
+			public void onComplete(HttpResult result) {
+				synchronized (endpoint) {
+					endpoint.outstanding -= batch.size();
+					endpoint.notifyAll();
+					retireIfIdle(endpoint);
+				}
+				for (HttpFuture future : batch) {
+					future.complete(result);
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,138 @@
+package com.holy.jutil.net;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.holy.jutil.io.BufferPool;
+
+/**
+ * 流式请求体，边读边发，内存占用只有一个缓冲区
+ * <p>
+ *     长度已知时使用定长流模式（Content-Length），未知时使用分块传输（chunked）。
+ *     InputStream 只能发送一次；文件和 FileChannel 可以重复发送。
+ * </p>
+ */
+public abstract class HttpBody {
+	private final String contentType;
+	private final long length;
+
+	HttpBody(String contentType, long length) {
+		this.contentType = contentType;
+		this.length = length;
+	}
+
+	/**
+	 * @param in 发送后由调用方关闭
+	 * @param length 长度，未知时传 -1
+	 * @param contentType 为 null 时使用 application/octet-stream
+	 * @return
+	 */
+	public static HttpBody of(final InputStream in, long length, String contentType) {
+		return new HttpBody(contentType, length) {
+			@Override
+			long copy(OutputStream out, byte[] buffer, ProgressListener listener) throws IOException {
+				long written = 0;
+				long total = getLength();
+				int len;
+				while ((total < 0 || written < total)
+						&& (len = in.read(buffer, 0, total < 0 ? buffer.length : (int) Math.min(buffer.length, total - written))) != -1) {
+					out.write(buffer, 0, len);
+					written += len;
+					if (null != listener) {
+						listener.onProgress(written, total);
+					}
+				}
+				return written;
+			}
+		};
+	}
+
+	/**
+	 * @param file
+	 * @param contentType 为 null 时使用 application/octet-stream
+	 * @return
+	 */
+	public static HttpBody of(final File file, String contentType) {
+		return new HttpBody(contentType, file.length()) {
+			@Override
+			long copy(OutputStream out, byte[] buffer, ProgressListener listener) throws IOException {
+				try (InputStream in = new FileInputStream(file)) {
+					return of(in, getLength(), null).copy(out, buffer, listener);
+				}
+			}
+		};
+	}
+
+	/**
+	 * 发送 channel 的 [position, position + length)，按位置读取，不改变 channel 的当前位置
+	 * @param channel 发送后由调用方关闭
+	 * @param position
+	 * @param length
+	 * @param contentType 为 null 时使用 application/octet-stream
+	 * @return
+	 */
+	public static HttpBody of(final FileChannel channel, final long position, long length, String contentType) {
+		return new HttpBody(contentType, length) {
+			@Override
+			long copy(OutputStream out, byte[] buffer, ProgressListener listener) throws IOException {
+				ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+				long total = getLength();
+				long written = 0;
+				while (written < total) {
+					byteBuffer.clear();
+					byteBuffer.limit((int) Math.min(buffer.length, total - written));
+					int len = channel.read(byteBuffer, position + written);
+					if (len < 0) {
+						break;
+					}
+					out.write(buffer, 0, len);
+					written += len;
+					if (null != listener) {
+						listener.onProgress(written, total);
+					}
+				}
+				return written;
+			}
+		};
+	}
+
+	/**
+	 * @return 长度，未知时为 -1
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	public String getContentType() {
+		return null == contentType ? "application/octet-stream" : contentType;
+	}
+
+	/**
+	 * 写出请求体，使用缓冲池中的缓冲区
+	 * @param out
+	 * @param listener 可为 null
+	 * @throws IOException 定长请求体的实际长度不足时也会抛出
+	 */
+	void writeTo(OutputStream out, ProgressListener listener) throws IOException {
+		BufferPool pool = BufferPool.getDefault();
+		byte[] buffer = pool.acquire();
+		try {
+			long written = copy(out, buffer, listener);
+			if (length >= 0 && written != length) {
+				throw new IOException("body length mismatch: expected " + length + ", got " + written);
+			}
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	/**
+	 * @return 实际写出的字节数
+	 */
+	abstract long copy(OutputStream out, byte[] buffer, ProgressListener listener) throws IOException;
+}
@@ -0,0 +1,19 @@
+package com.holy.jutil.net;
+
+/**
+ * 响应缓存，由 {@link HttpClient#setCache(HttpCache)} 设置，实现必须线程安全
+ * <p>
+ *     键由请求方法、URL 和 version 头组成，见 {@link HttpClient#cacheKey(HttpRequest)}
+ * </p>
+ */
+public interface HttpCache {
+	/**
+	 * @param key
+	 * @return 未缓存返回 null
+	 */
+	CachedResponse get(String key);
+
+	void put(String key, CachedResponse response);
+
+	void remove(String key);
+}
@@ -0,0 +1,12 @@
+package com.holy.jutil.net;
+
+/**
+ * 异步请求完成回调，在执行请求的线程（或提交 / 取消的线程）中调用
+ */
+public interface HttpCallback {
+	/**
+	 * 请求结束，无论成功失败只调用一次
+	 * @param result
+	 */
+	void onComplete(HttpResult result);
+}
@@ -0,0 +1,665 @@
+package com.holy.jutil.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 复用 keep-alive 连接的 HTTP 客户端
+ * <p>
+ *     底层仍是 HttpURLConnection，连接由 JDK 的 keep-alive 缓存复用：响应读完并关闭流（不 disconnect）后，
+ *     连接回到缓存，同一主机的下一个请求直接使用。本类保证每个响应都被正确释放，
+ *     并按主机限制同时使用的连接数不超过缓存容量，避免多出来的连接用完即关。
+ * </p>
+ * <p>
+ *     JDK 缓存容量由系统属性 http.maxConnections 决定（默认 5），且只在首次发起 HTTP 请求前设置有效。
+ *     本类不修改该全局属性，maxPerHost 大于它时应由应用在启动时自行设置，否则多出来的连接用完即关。
+ * </p>
+ */
+public class HttpClient {
+	public static final int DEFAULT_MAX_PER_HOST = 5;
+	/**
+	 * 服务端未返回 Keep-Alive 头时 JDK 保留空闲连接的时间
+	 */
+	private static final long DEFAULT_KEEP_ALIVE_MILLIS = 5000;
+	private static final int CHUNK_SIZE = 32 * 1024;
+	/**
+	 * 大于该长度或长度未知的响应不写入缓存
+	 */
+	public static final int DEFAULT_MAX_CACHE_ENTRY = 1024 * 1024;
+	/**
+	 * {@link HttpResponse#bytes()} 解压后的默认长度上限
+	 */
+	public static final long DEFAULT_MAX_RESPONSE_BYTES = 64L * 1024 * 1024;
+
+	private static final HttpClient defaultClient = new HttpClient(DEFAULT_MAX_PER_HOST);
+
+	private final int maxPerHost;
+	private final ConcurrentHashMap<String, Host> hosts = new ConcurrentHashMap<>();
+
+	private volatile HttpDispatcher dispatcher;
+	private volatile int gzipThreshold = -1;
+	private volatile HttpCache cache;
+	private volatile int maxCacheEntry = DEFAULT_MAX_CACHE_ENTRY;
+	private volatile long maxResponseBytes = DEFAULT_MAX_RESPONSE_BYTES;
+
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong reusedCount = new AtomicLong();
+	private final AtomicLong releasedCount = new AtomicLong();
+	private final AtomicLong discardedCount = new AtomicLong();
+	private final AtomicLong requestBytesSaved = new AtomicLong();
+	private final AtomicLong responseBytesSaved = new AtomicLong();
+	private final AtomicLong cacheHitCount = new AtomicLong();
+	private final AtomicLong cacheRevalidatedCount = new AtomicLong();
+
+	static final class Host {
+		final Semaphore permits;
+		/**
+		 * 已释放回 keep-alive 缓存、尚未被取用的连接数
+		 */
+		final AtomicInteger idle = new AtomicInteger();
+		volatile long lastReleaseTime;
+		/**
+		 * 最近一次响应的 Keep-Alive 超时
+		 */
+		volatile long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+		/**
+		 * 已从 hosts 移除，取得许可后需换用新的 Host
+		 */
+		volatile boolean retired;
+
+		Host(int maxConnections) {
+			this.permits = new Semaphore(maxConnections, true);
+		}
+
+		/**
+		 * 估算的 keep-alive 缓存中是否还有未过期的空闲连接
+		 */
+		boolean hasIdle(long now) {
+			return idle.get() > 0 && now - lastReleaseTime <= keepAliveMillis;
+		}
+	}
+
+	/**
+	 * @param maxPerHost 每个主机同时使用的最大连接数
+	 */
+	public HttpClient(int maxPerHost) {
+		if (maxPerHost <= 0) {
+			throw new IllegalArgumentException("maxPerHost must be positive: " + maxPerHost);
+		}
+		this.maxPerHost = maxPerHost;
+	}
+
+	/**
+	 * 默认客户端，每主机 5 个连接
+	 * @return
+	 */
+	public static HttpClient getDefault() {
+		return defaultClient;
+	}
+
+	public int getMaxPerHost() {
+		return maxPerHost;
+	}
+
+	/**
+	 * 请求体 gzip 压缩，默认关闭
+	 * <p>
+	 *     开启后不小于 threshold 字节、且未自行设置 Content-Encoding 的请求体压缩后发送（压缩后不变小则原样发送），
+	 *     服务端需支持 Content-Encoding: gzip 的请求
+	 * </p>
+	 * @param threshold 压缩阈值，小于 0 关闭
+	 */
+	public void setGzipThreshold(int threshold) {
+		this.gzipThreshold = threshold;
+	}
+
+	public int getGzipThreshold() {
+		return gzipThreshold;
+	}
+
+	/**
+	 * @param maxResponseBytes {@link HttpResponse#bytes()}、{@link HttpResponse#string()} 解压后的长度上限
+	 */
+	public void setMaxResponseBytes(long maxResponseBytes) {
+		this.maxResponseBytes = maxResponseBytes;
+	}
+
+	public long getMaxResponseBytes() {
+		return maxResponseBytes;
+	}
+
+	/**
+	 * 响应缓存，默认不缓存
+	 * <p>
+	 *     只缓存无请求体的 GET。新鲜的缓存直接返回，不发请求；过期但有 ETag / Last-Modified 的缓存
+	 *     带 If-None-Match / If-Modified-Since 重新验证，304 时刷新新鲜期并返回缓存内容。
+	 *     请求头 Cache-Control: no-store 跳过缓存，no-cache 强制重新验证。
+	 *     同一个键只保留一个变体：Vary 列出的请求头与缓存时不同则视为未命中，响应后替换为新的变体。
+	 * </p>
+	 * @param cache 为 null 时关闭
+	 */
+	public void setCache(HttpCache cache) {
+		this.cache = cache;
+	}
+
+	public HttpCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * @param maxCacheEntry 写入缓存的最大响应体长度
+	 */
+	public void setMaxCacheEntry(int maxCacheEntry) {
+		this.maxCacheEntry = maxCacheEntry;
+	}
+
+	/**
+	 * 缓存键：方法 + URL + version 头，不同 version 的响应分开缓存
+	 * @param request
+	 * @return
+	 */
+	public static String cacheKey(HttpRequest request) {
+		String version = request.getHeader("version");
+		return request.getMethod() + " " + request.getUrl() + (null == version ? "" : " version=" + version);
+	}
+
+	/**
+	 * 执行请求，返回的响应必须 close 或将 {@link HttpResponse#getBody()} 读到末尾
+	 * <p>
+	 *     同一主机的连接都在使用中时最多等待请求超时时间，超时抛出 SocketTimeoutException
+	 * </p>
+	 * @param request
+	 * @return
+	 * @throws IOException
+	 */
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		HttpCache cache = this.cache;
+		String cacheControl = request.getHeader("Cache-Control");
+		if (null == cache || !"GET".equals(request.getMethod()) || null != request.getBody() || null != request.getStreamBody()
+				|| CachedResponse.hasDirective(cacheControl, "no-store")) {
+			return execute(request, null);
+		}
+		String key = cacheKey(request);
+		Map<String, String> sentHeaders = sentHeaders(request);
+		CachedResponse cached = cache.get(key);
+		if (null != cached && !cached.matches(sentHeaders)) {
+			cached = null;
+		}
+		Map<String, String> conditional = null;
+		if (null != cached) {
+			if (cached.isFresh(System.currentTimeMillis()) && !CachedResponse.hasDirective(cacheControl, "no-cache")) {
+				cacheHitCount.incrementAndGet();
+				return new HttpResponse(cached, true);
+			}
+			if (cached.hasValidator()) {
+				conditional = new LinkedHashMap<>();
+				String etag = cached.getHeader("ETag");
+				String lastModified = cached.getHeader("Last-Modified");
+				if (null != etag) {
+					conditional.put("If-None-Match", etag);
+				}
+				if (null != lastModified) {
+					conditional.put("If-Modified-Since", lastModified);
+				}
+			}
+		}
+		HttpResponse response = execute(request, conditional);
+		long now = System.currentTimeMillis();
+		if (null != conditional && response.getCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			CachedResponse refreshed = cached.revalidated(response.getHeaders(), now);
+			response.close();
+			cache.put(key, refreshed);
+			cacheRevalidatedCount.incrementAndGet();
+			return new HttpResponse(refreshed, true);
+		}
+		if (response.getCode() != HttpURLConnection.HTTP_OK) {
+			return response;
+		}
+		long length = response.getContentLength();
+		if (length < 0 || length > maxCacheEntry) {
+			cache.remove(key);
+			return response;
+		}
+		Map<String, List<String>> headers = response.getHeaders();
+		// Content-Length 是压缩后的长度，解压后的长度要按实际读到的判断
+		byte[] body = response.bytes();
+		CachedResponse entry = body.length > maxCacheEntry ? null : CachedResponse.create(response.getCode(), headers, body, now, sentHeaders);
+		if (null == entry) {
+			cache.remove(key);
+			entry = CachedResponse.snapshot(response.getCode(), headers, body, now);
+		} else {
+			cache.put(key, entry);
+		}
+		return new HttpResponse(entry, false);
+	}
+
+	private HttpResponse execute(HttpRequest request, Map<String, String> extraHeaders) throws IOException {
+		URL url = new URL(request.getUrl());
+		Host host = acquire(url, request.getTimeOut());
+		HttpURLConnection conn = null;
+		try {
+			byte[] body = request.getBody();
+			boolean gzip = shouldGzip(request);
+			if (gzip) {
+				byte[] compressed = gzip(body);
+				if (compressed.length < body.length) {
+					requestBytesSaved.addAndGet(body.length - compressed.length);
+					body = compressed;
+				} else {
+					gzip = false;
+				}
+			}
+			conn = open(url, request, body);
+			if (gzip) {
+				conn.setRequestProperty("Content-Encoding", "gzip");
+			}
+			HttpBody streamBody = request.getStreamBody();
+			if (null != streamBody) {
+				stream(conn, streamBody);
+			}
+			for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+				conn.setRequestProperty(header.getKey(), header.getValue());
+			}
+			if (null != extraHeaders) {
+				for (Map.Entry<String, String> header : extraHeaders.entrySet()) {
+					conn.setRequestProperty(header.getKey(), header.getValue());
+				}
+			}
+			if (null != body) {
+				OutputStream out = conn.getOutputStream();
+				try {
+					out.write(body);
+				} finally {
+					out.close();
+				}
+			} else if (null != streamBody) {
+				OutputStream out = conn.getOutputStream();
+				try {
+					streamBody.writeTo(out, request.getProgressListener());
+				} finally {
+					out.close();
+				}
+			}
+			return new HttpResponse(this, host, conn);
+		} catch (IOException | RuntimeException e) {
+			if (null != conn) {
+				conn.disconnect();
+			}
+			release(host, false, 0);
+			throw e;
+		}
+	}
+
+	/**
+	 * GET 请求
+	 * @param url
+	 * @param version
+	 * @return
+	 * @throws IOException
+	 */
+	public HttpResponse get(String url, String version) throws IOException {
+		return execute(HttpRequest.get(url).version(version));
+	}
+
+	/**
+	 * POST 请求
+	 * @param url
+	 * @param data
+	 * @param version
+	 * @return
+	 * @throws IOException
+	 */
+	public HttpResponse post(String url, byte[] data, String version) throws IOException {
+		return execute(HttpRequest.post(url, data).version(version));
+	}
+
+	/**
+	 * 流式上传
+	 * @param url
+	 * @param body
+	 * @param version
+	 * @param listener 上传进度，可为 null
+	 * @return
+	 * @throws IOException
+	 */
+	public HttpResponse upload(String url, HttpBody body, String version, ProgressListener listener) throws IOException {
+		return execute(new HttpRequest("POST", url).body(body).version(version).progress(listener));
+	}
+
+	/**
+	 * 异步执行请求，使用 {@link #getDispatcher()}
+	 * @param request
+	 * @param callback 可为 null
+	 * @return
+	 */
+	public HttpFuture enqueue(HttpRequest request, HttpCallback callback) {
+		return getDispatcher().submit(request, callback);
+	}
+
+	/**
+	 * 默认调度器：最多同时 64 个请求，每主机不超过本客户端的连接数，排队上限 10000
+	 * @return
+	 */
+	public HttpDispatcher getDispatcher() {
+		HttpDispatcher current = dispatcher;
+		if (null == current) {
+			synchronized (this) {
+				current = dispatcher;
+				if (null == current) {
+					current = new HttpDispatcher(this, HttpDispatcher.DEFAULT_MAX_REQUESTS, maxPerHost, HttpDispatcher.DEFAULT_MAX_QUEUED);
+					dispatcher = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * 实际发送的请求头：{@link #open(URL, HttpRequest, byte[])} 的默认头，被请求自身的同名头覆盖
+	 */
+	private static Map<String, String> sentHeaders(HttpRequest request) {
+		Map<String, String> headers = new LinkedHashMap<>();
+		headers.put("Charset", "UTF-8");
+		headers.put("Accept-Encoding", "gzip");
+		headers.putAll(request.getHeaders());
+		return headers;
+	}
+
+	private boolean shouldGzip(HttpRequest request) {
+		int threshold = gzipThreshold;
+		byte[] body = request.getBody();
+		return threshold >= 0 && null != body && body.length >= threshold && null == request.getHeader("Content-Encoding");
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+		GZIPOutputStream gzip = new GZIPOutputStream(out, 8192);
+		gzip.write(data);
+		gzip.close();
+		return out.toByteArray();
+	}
+
+	/**
+	 * @param body 实际发送的请求体
+	 */
+	private HttpURLConnection open(URL url, HttpRequest request, byte[] body) throws IOException {
+		HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+		conn.setConnectTimeout(request.getTimeOut());
+		conn.setReadTimeout(request.getTimeOut());
+		conn.setUseCaches(false);
+		conn.setRequestMethod(request.getMethod());
+		conn.setRequestProperty("Charset", "UTF-8");
+		// 显式声明后 Android 不再自动解压，统一由 HttpResponse 解压
+		conn.setRequestProperty("Accept-Encoding", "gzip");
+		if (null != body) {
+			conn.setDoOutput(true);
+			conn.setFixedLengthStreamingMode(body.length);
+			conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+		}
+		return conn;
+	}
+
+	static String hostKey(URL url) {
+		int port = -1 == url.getPort() ? url.getDefaultPort() : url.getPort();
+		return url.getProtocol() + "://" + url.getHost() + ":" + port;
+	}
+
+	/**
+	 * 流式请求体：长度已知用定长模式，否则 chunked
+	 */
+	private static void stream(HttpURLConnection conn, HttpBody body) {
+		conn.setDoOutput(true);
+		conn.setRequestProperty("Content-Type", body.getContentType());
+		long length = body.getLength();
+		if (length >= 0 && length <= Integer.MAX_VALUE) {
+			conn.setFixedLengthStreamingMode((int) length);
+			return;
+		}
+		if (length > Integer.MAX_VALUE) {
+			try {
+				conn.setFixedLengthStreamingMode(length);
+				return;
+			} catch (NoSuchMethodError e) {
+				// Android 4.4 以下没有 long 版本
+			}
+		}
+		conn.setChunkedStreamingMode(CHUNK_SIZE);
+	}
+
+	private Host host(URL url) {
+		String key = hostKey(url);
+		Host host = hosts.get(key);
+		if (null == host) {
+			// 新主机出现时顺带移除空闲的主机，访问过大量主机的客户端不会无限增长
+			prune();
+			Host created = new Host(maxPerHost);
+			host = hosts.putIfAbsent(key, created);
+			if (null == host) {
+				host = created;
+			}
+		}
+		return host;
+	}
+
+	/**
+	 * 移除没有使用中连接、也没有未过期空闲连接的主机
+	 */
+	private void prune() {
+		long now = System.currentTimeMillis();
+		for (Map.Entry<String, Host> entry : hosts.entrySet()) {
+			Host host = entry.getValue();
+			// 取得全部许可说明没有使用中的连接，标记后再归还，正在等待的请求取得许可后会换用新的 Host
+			if (!host.hasIdle(now) && host.permits.tryAcquire(maxPerHost)) {
+				host.retired = true;
+				hosts.remove(entry.getKey(), host);
+				host.permits.release(maxPerHost);
+			}
+		}
+	}
+
+	/**
+	 * 已跟踪的主机数
+	 */
+	int getHostCount() {
+		return hosts.size();
+	}
+
+	private Host acquire(URL url, int timeOut) throws IOException {
+		Host host;
+		for (;;) {
+			host = host(url);
+			try {
+				if (!host.permits.tryAcquire(timeOut > 0 ? timeOut : Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+					throw new SocketTimeoutException("too many connections to " + url.getHost());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted waiting for connection to " + url.getHost());
+			}
+			if (!host.retired) {
+				break;
+			}
+			host.permits.release();
+		}
+		requestCount.incrementAndGet();
+		// 有未过期的空闲连接时，JDK 会复用它
+		while (true) {
+			int idle = host.idle.get();
+			if (idle <= 0) {
+				break;
+			}
+			if (!host.hasIdle(System.currentTimeMillis())) {
+				host.idle.set(0);
+				break;
+			}
+			if (host.idle.compareAndSet(idle, idle - 1)) {
+				reusedCount.incrementAndGet();
+				break;
+			}
+		}
+		return host;
+	}
+
+	/**
+	 * 响应关闭或响应体读到末尾时调用，每个响应只调用一次
+	 * @param reusable 连接是否已回到 keep-alive 缓存
+	 * @param keepAliveMillis 见 {@link #keepAliveMillis(HttpURLConnection)}
+	 */
+	void release(Host host, boolean reusable, long keepAliveMillis) {
+		recycle(host, reusable, keepAliveMillis);
+		host.permits.release();
+	}
+
+	/**
+	 * 响应不再计入连接数限制时调用，立即归还许可；之后关闭时调用 {@link #recycle(Host, boolean, long)}
+	 */
+	void detach(Host host) {
+		host.permits.release();
+	}
+
+	/**
+	 * 记录连接是否回到 keep-alive 缓存，不归还许可
+	 */
+	void recycle(Host host, boolean reusable, long keepAliveMillis) {
+		if (reusable) {
+			releasedCount.incrementAndGet();
+			host.keepAliveMillis = keepAliveMillis;
+			host.lastReleaseTime = System.currentTimeMillis();
+			if (host.idle.incrementAndGet() > maxPerHost) {
+				host.idle.decrementAndGet();
+			}
+		} else {
+			discardedCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 连接在 JDK keep-alive 缓存中的保留时间，按响应头 Connection: close 和 Keep-Alive: timeout=N 判断
+	 * @param conn
+	 * @return 0 表示服务端要求关闭，连接不会被缓存
+	 */
+	static long keepAliveMillis(HttpURLConnection conn) {
+		String connection = conn.getHeaderField("Connection");
+		if (null != connection && "close".equalsIgnoreCase(connection.trim())) {
+			return 0;
+		}
+		String keepAlive = conn.getHeaderField("Keep-Alive");
+		if (null != keepAlive) {
+			for (String param : keepAlive.split(",")) {
+				String[] pair = param.split("=", 2);
+				if (2 == pair.length && "timeout".equalsIgnoreCase(pair[0].trim())) {
+					try {
+						long seconds = Long.parseLong(pair[1].trim());
+						if (seconds > 0) {
+							return seconds * 1000;
+						}
+					} catch (NumberFormatException e) {
+						// 按默认值
+					}
+					break;
+				}
+			}
+		}
+		return DEFAULT_KEEP_ALIVE_MILLIS;
+	}
+
+	/**
+	 * 解压后的响应体读完时调用
+	 */
+	void onResponseDecoded(long compressed, long decoded) {
+		if (decoded > compressed) {
+			responseBytesSaved.addAndGet(decoded - compressed);
+		}
+	}
+
+	/**
+	 * 请求体压缩节省的字节数
+	 * @return
+	 */
+	public long getRequestBytesSaved() {
+		return requestBytesSaved.get();
+	}
+
+	/**
+	 * 响应体压缩传输节省的字节数（按已读取的部分统计）
+	 * @return
+	 */
+	public long getResponseBytesSaved() {
+		return responseBytesSaved.get();
+	}
+
+	/**
+	 * 已发起的请求数
+	 * @return
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * 估算的复用了 keep-alive 连接的请求数
+	 * <p>
+	 *     HttpURLConnection 不暴露是否复用了连接，这里按本客户端释放回缓存、且按 Keep-Alive 超时尚未过期的连接数估算；
+	 *     服务端提前关闭空闲连接、Android 的实现保留更久或其他代码访问同一主机时与实际不同
+	 * </p>
+	 * @return
+	 */
+	public long getEstimatedReusedCount() {
+		return reusedCount.get();
+	}
+
+	/**
+	 * 读完响应后释放回 keep-alive 缓存的连接数
+	 * @return
+	 */
+	public long getReleasedCount() {
+		return releasedCount.get();
+	}
+
+	/**
+	 * 因出错、剩余内容过多或服务端要求关闭而不能复用的连接数
+	 * @return
+	 */
+	public long getDiscardedCount() {
+		return discardedCount.get();
+	}
+
+	/**
+	 * 估算的连接复用率，见 {@link #getEstimatedReusedCount()}
+	 * @return 0 ~ 1
+	 */
+	public double getEstimatedReuseRate() {
+		long requests = requestCount.get();
+		return 0 == requests ? 0 : (double) reusedCount.get() / requests;
+	}
+
+	/**
+	 * 直接由缓存返回、未发请求的次数
+	 * @return
+	 */
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	/**
+	 * 重新验证得到 304 的次数
+	 * @return
+	 */
+	public long getCacheRevalidatedCount() {
+		return cacheRevalidatedCount.get();
+	}
+}
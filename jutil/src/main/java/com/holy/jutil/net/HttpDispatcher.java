@@ -0,0 +1,301 @@
+package com.holy.jutil.net;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步请求调度
+ * <p>
+ *     请求先进入有界队列，同时执行的请求总数不超过 maxRequests、同一主机不超过 maxPerHost，
+ *     有空位时按提交顺序取出执行；队列满时直接以 REJECTED 结束。
+ *     只有执行中的请求占用线程，排队的请求只占一个 {@link HttpFuture}。
+ * </p>
+ * <p>
+ *     排队时间超过请求超时时间的请求不再发送，直接以 TIMEOUT 结束：到期时由所有调度器共用的一个守护线程移出队列，
+ *     不依赖其他请求的提交或完成；每次调度也会先扫描整个队列移除到期的请求，再按并发限制取出。
+ * </p>
+ */
+public class HttpDispatcher {
+	public static final int DEFAULT_MAX_REQUESTS = 64;
+	public static final int DEFAULT_MAX_QUEUED = 10000;
+
+	private final HttpClient client;
+	private final ExecutorService executor;
+	private final int maxRequests;
+	private final int maxPerHost;
+	private final int maxQueued;
+
+	private final ArrayDeque<HttpFuture> ready = new ArrayDeque<>();
+	private final Map<String, Integer> runningPerHost = new HashMap<>();
+	private int running = 0;
+
+	private static volatile ScheduledThreadPoolExecutor reaper;
+
+	/**
+	 * 使用按需创建的守护线程
+	 * @param client
+	 * @param maxRequests 同时执行的最大请求数
+	 * @param maxPerHost 同一主机同时执行的最大请求数，不宜超过 {@link HttpClient#getMaxPerHost()}
+	 * @param maxQueued 排队上限
+	 */
+	public HttpDispatcher(HttpClient client, int maxRequests, int maxPerHost, int maxQueued) {
+		this(client, defaultExecutor(), maxRequests, maxPerHost, maxQueued);
+	}
+
+	/**
+	 * @param client
+	 * @param executor 执行请求的线程池，线程数应不少于 maxRequests
+	 * @param maxRequests 同时执行的最大请求数
+	 * @param maxPerHost 同一主机同时执行的最大请求数
+	 * @param maxQueued 排队上限
+	 */
+	public HttpDispatcher(HttpClient client, ExecutorService executor, int maxRequests, int maxPerHost, int maxQueued) {
+		if (maxRequests <= 0 || maxPerHost <= 0 || maxQueued < 0) {
+			throw new IllegalArgumentException("invalid limits: " + maxRequests + ", " + maxPerHost + ", " + maxQueued);
+		}
+		this.client = client;
+		this.executor = executor;
+		this.maxRequests = maxRequests;
+		this.maxPerHost = maxPerHost;
+		this.maxQueued = maxQueued;
+	}
+
+	private static ExecutorService defaultExecutor() {
+		return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "HttpDispatcher-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * 提交请求
+	 * @param request
+	 * @param callback 可为 null
+	 * @return
+	 */
+	public HttpFuture submit(HttpRequest request, HttpCallback callback) {
+		String hostKey;
+		try {
+			hostKey = HttpClient.hostKey(new URL(request.getUrl()));
+		} catch (MalformedURLException e) {
+			HttpFuture future = new HttpFuture(this, request, null, callback);
+			future.complete(HttpResult.failure(HttpResult.Status.IO_ERROR, e));
+			return future;
+		}
+		HttpFuture future = new HttpFuture(this, request, hostKey, callback);
+		boolean accepted;
+		synchronized (this) {
+			accepted = ready.size() < maxQueued;
+			if (accepted) {
+				ready.add(future);
+				future.queued = true;
+			}
+		}
+		if (!accepted) {
+			future.complete(HttpResult.failure(HttpResult.Status.REJECTED, null));
+			return future;
+		}
+		promote();
+		scheduleExpiry(future);
+		return future;
+	}
+
+	/**
+	 * 仍在排队的请求到期时移出队列
+	 */
+	private void scheduleExpiry(final HttpFuture future) {
+		int timeOut = future.getRequest().getTimeOut();
+		if (timeOut <= 0) {
+			return;
+		}
+		synchronized (this) {
+			if (!future.queued) {
+				return;
+			}
+		}
+		long delay = future.submitTime + timeOut + 1 - System.currentTimeMillis();
+		reaper().schedule(new Runnable() {
+			@Override
+			public void run() {
+				expire(future);
+			}
+		}, Math.max(0, delay), TimeUnit.MILLISECONDS);
+	}
+
+	private void expire(HttpFuture future) {
+		synchronized (this) {
+			if (!future.queued) {
+				return;
+			}
+			ready.remove(future);
+			future.queued = false;
+		}
+		future.complete(HttpResult.failure(HttpResult.Status.TIMEOUT, new SocketTimeoutException("timed out in queue")));
+	}
+
+	private static ScheduledThreadPoolExecutor reaper() {
+		ScheduledThreadPoolExecutor current = reaper;
+		if (null == current) {
+			synchronized (HttpDispatcher.class) {
+				current = reaper;
+				if (null == current) {
+					current = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "HttpDispatcher-reaper");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+					current.setKeepAliveTime(60, TimeUnit.SECONDS);
+					current.allowCoreThreadTimeOut(true);
+					reaper = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * 执行中的请求数
+	 * @return
+	 */
+	public synchronized int getRunningCount() {
+		return running;
+	}
+
+	/**
+	 * 排队中的请求数
+	 * @return
+	 */
+	public synchronized int getQueuedCount() {
+		return ready.size();
+	}
+
+	/**
+	 * 取消时从队列移除
+	 */
+	synchronized void remove(HttpFuture future) {
+		if (future.queued) {
+			ready.remove(future);
+			future.queued = false;
+		}
+	}
+
+	/**
+	 * 移除整个队列中到期的请求，再把能执行的请求移入线程池
+	 */
+	private void promote() {
+		List<HttpFuture> toRun = new ArrayList<>();
+		List<HttpFuture> expired = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			Iterator<HttpFuture> iterator = ready.iterator();
+			// 并发已满时不能提前结束，后面的请求也可能已到期
+			while (iterator.hasNext()) {
+				HttpFuture future = iterator.next();
+				int timeOut = future.getRequest().getTimeOut();
+				if (timeOut > 0 && now - future.submitTime > timeOut) {
+					iterator.remove();
+					future.queued = false;
+					expired.add(future);
+					continue;
+				}
+				if (running >= maxRequests) {
+					continue;
+				}
+				Integer hostRunning = runningPerHost.get(future.hostKey);
+				int count = null == hostRunning ? 0 : hostRunning;
+				if (count >= maxPerHost) {
+					continue;
+				}
+				iterator.remove();
+				future.queued = false;
+				runningPerHost.put(future.hostKey, count + 1);
+				running++;
+				toRun.add(future);
+			}
+		}
+		for (HttpFuture future : expired) {
+			future.complete(HttpResult.failure(HttpResult.Status.TIMEOUT, new SocketTimeoutException("timed out in queue")));
+		}
+		for (HttpFuture future : toRun) {
+			try {
+				executor.execute(new Call(future));
+			} catch (RejectedExecutionException e) {
+				finished(future, false);
+				future.complete(HttpResult.failure(HttpResult.Status.REJECTED, e));
+			}
+		}
+	}
+
+	private void finished(HttpFuture future, boolean promote) {
+		synchronized (this) {
+			running--;
+			int count = runningPerHost.get(future.hostKey) - 1;
+			if (0 == count) {
+				runningPerHost.remove(future.hostKey);
+			} else {
+				runningPerHost.put(future.hostKey, count);
+			}
+		}
+		if (promote) {
+			promote();
+		}
+	}
+
+	private final class Call implements Runnable {
+		private final HttpFuture future;
+
+		Call(HttpFuture future) {
+			this.future = future;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (!future.isDone()) {
+					future.complete(execute(future.getRequest()));
+				}
+			} finally {
+				finished(future, true);
+			}
+		}
+	}
+
+	private HttpResult execute(HttpRequest request) {
+		try (HttpResponse response = client.execute(request)) {
+			byte[] body = response.bytes();
+			return new HttpResult(
+					response.isSuccessful() ? HttpResult.Status.SUCCESS : HttpResult.Status.HTTP_ERROR,
+					response.getCode(), response.getHeaders(), body, null);
+		} catch (SocketTimeoutException e) {
+			return HttpResult.failure(HttpResult.Status.TIMEOUT, e);
+		} catch (IOException | RuntimeException e) {
+			return HttpResult.failure(HttpResult.Status.IO_ERROR, e);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.holy.jutil.net;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 异步请求句柄，由 {@link HttpDispatcher#submit(HttpRequest, HttpCallback)}、{@link HttpBatcher#submit(HttpRequest, HttpCallback)} 返回
+ * <p>
+ *     结果只会设置一次；请求出错时 get 返回对应状态的 {@link HttpResult}，不抛 ExecutionException
+ * </p>
+ */
+public class HttpFuture implements Future<HttpResult> {
+	private final HttpRequest request;
+	private final HttpCallback callback;
+	private final HttpDispatcher dispatcher;
+	private final CountDownLatch latch = new CountDownLatch(1);
+	private final AtomicReference<HttpResult> result = new AtomicReference<>();
+	final String hostKey;
+	final long submitTime = System.currentTimeMillis();
+	/**
+	 * 是否在调度器队列中，由调度器加锁读写
+	 */
+	boolean queued;
+
+	HttpFuture(HttpDispatcher dispatcher, HttpRequest request, String hostKey, HttpCallback callback) {
+		this.dispatcher = dispatcher;
+		this.request = request;
+		this.hostKey = hostKey;
+		this.callback = callback;
+	}
+
+	public HttpRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * 设置结果并回调
+	 * @return 已有结果时返回 false
+	 */
+	boolean complete(HttpResult value) {
+		if (!result.compareAndSet(null, value)) {
+			return false;
+		}
+		latch.countDown();
+		if (null != callback) {
+			try {
+				callback.onComplete(value);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 排队中的请求不再发送；执行中的请求结果被丢弃
+	 * @param mayInterruptIfRunning 忽略，HttpURLConnection 不响应中断
+	 * @return
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (!complete(HttpResult.failure(HttpResult.Status.CANCELED, null))) {
+			return false;
+		}
+		if (null != dispatcher) {
+			dispatcher.remove(this);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		HttpResult value = result.get();
+		return null != value && HttpResult.Status.CANCELED == value.getStatus();
+	}
+
+	@Override
+	public boolean isDone() {
+		return null != result.get();
+	}
+
+	@Override
+	public HttpResult get() throws InterruptedException {
+		latch.await();
+		return result.get();
+	}
+
+	@Override
+	public HttpResult get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+		if (!latch.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+		return result.get();
+	}
+}
@@ -0,0 +1,119 @@
+package com.holy.jutil.net;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP 请求描述，由 {@link HttpClient} 执行
+ */
+public class HttpRequest {
+	public static final int DEFAULT_TIME_OUT = 10000;
+
+	private final String method;
+	private final String url;
+	private final Map<String, String> headers = new LinkedHashMap<>();
+	private byte[] body;
+	private HttpBody streamBody;
+	private ProgressListener progressListener;
+	private int timeOut = DEFAULT_TIME_OUT;
+
+	/**
+	 * @param method GET、POST 等
+	 * @param url
+	 */
+	public HttpRequest(String method, String url) {
+		this.method = method;
+		this.url = url;
+	}
+
+	public static HttpRequest get(String url) {
+		return new HttpRequest("GET", url);
+	}
+
+	public static HttpRequest post(String url, byte[] body) {
+		return new HttpRequest("POST", url).body(body);
+	}
+
+	public HttpRequest header(String name, String value) {
+		headers.put(name, value);
+		return this;
+	}
+
+	/**
+	 * 服务端约定的 version 头
+	 * @param version
+	 * @return
+	 */
+	public HttpRequest version(String version) {
+		return header("version", version);
+	}
+
+	public HttpRequest body(byte[] body) {
+		this.body = body;
+		this.streamBody = null;
+		return this;
+	}
+
+	/**
+	 * 流式请求体，替换 byte[] 请求体
+	 * @param body
+	 * @return
+	 */
+	public HttpRequest body(HttpBody body) {
+		this.streamBody = body;
+		this.body = null;
+		return this;
+	}
+
+	/**
+	 * 流式请求体的上传进度
+	 * @param listener
+	 * @return
+	 */
+	public HttpRequest progress(ProgressListener listener) {
+		this.progressListener = listener;
+		return this;
+	}
+
+	/**
+	 * @param timeOut 连接、读取超时，毫秒
+	 * @return
+	 */
+	public HttpRequest timeOut(int timeOut) {
+		this.timeOut = timeOut;
+		return this;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getHeader(String name) {
+		return headers.get(name);
+	}
+
+	public Map<String, String> getHeaders() {
+		return Collections.unmodifiableMap(headers);
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	public HttpBody getStreamBody() {
+		return streamBody;
+	}
+
+	public ProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	public int getTimeOut() {
+		return timeOut;
+	}
+}
@@ -0,0 +1,417 @@
+package com.holy.jutil.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import com.holy.jutil.io.BufferPool;
+
+/**
+ * HTTP 响应，必须 close
+ * <p>
+ *     close 时读完剩余的响应体并关闭流（不 disconnect），连接回到 JDK 的 keep-alive 缓存供同一主机复用；
+ *     剩余内容过多或读取出错时直接断开连接。关闭 {@link #getBody()} 返回的流等同于 close，
+ *     该流读到末尾时也会自动 close，只读完不关闭的调用方同样会释放连接。
+ *     Content-Encoding: gzip 的响应体自动解压，{@link #getContentLength()} 为压缩后的长度。
+ * </p>
+ */
+public class HttpResponse implements Closeable {
+	/**
+	 * close 时最多读掉的剩余字节数，超过则断开连接
+	 */
+	static final int DRAIN_LIMIT = 64 * 1024;
+
+	private final HttpClient client;
+	private final HttpClient.Host host;
+	private final HttpURLConnection conn;
+	private final int code;
+	/**
+	 * 不占用连接的响应的头和内容，网络响应为 null
+	 */
+	private final Map<String, List<String>> headers;
+	private final InputStream content;
+	private final long contentLength;
+	private final boolean fromCache;
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+	private InputStream raw;
+	private InputStream body;
+	private CountingInputStream compressedCounter;
+	private CountingInputStream decodedCounter;
+	/**
+	 * 已归还连接数许可
+	 */
+	private boolean detached;
+
+	HttpResponse(HttpClient client, HttpClient.Host host, HttpURLConnection conn) throws IOException {
+		this.client = client;
+		this.host = host;
+		this.conn = conn;
+		this.code = conn.getResponseCode();
+		this.headers = null;
+		this.content = null;
+		this.contentLength = -1;
+		this.fromCache = false;
+	}
+
+	/**
+	 * 内容已在内存中的响应，不占用连接
+	 * @param cached
+	 * @param fromCache 是否来自缓存（包括 304 重新验证）
+	 */
+	HttpResponse(CachedResponse cached, boolean fromCache) {
+		this(cached.getCode(), cached.getHeaders(), new ByteArrayInputStream(cached.getBody()), cached.getBody().length, fromCache);
+	}
+
+	/**
+	 * 不占用连接的响应，close 时关闭 content
+	 * @param code
+	 * @param headers 已解压内容的响应头
+	 * @param content
+	 * @param contentLength
+	 * @param fromCache
+	 */
+	HttpResponse(int code, Map<String, List<String>> headers, InputStream content, long contentLength, boolean fromCache) {
+		this.client = null;
+		this.host = null;
+		this.conn = null;
+		this.code = code;
+		this.headers = headers;
+		this.content = content;
+		this.contentLength = contentLength;
+		this.fromCache = fromCache;
+	}
+
+	/**
+	 * 是否由缓存提供（新鲜命中或 304 重新验证）
+	 * @return
+	 */
+	public boolean isFromCache() {
+		return fromCache;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * 2xx
+	 * @return
+	 */
+	public boolean isSuccessful() {
+		return code >= 200 && code < 300;
+	}
+
+	public String getHeader(String name) {
+		return null == conn ? CachedResponse.header(headers, name) : conn.getHeaderField(name);
+	}
+
+	public Map<String, List<String>> getHeaders() {
+		return null == conn ? headers : conn.getHeaderFields();
+	}
+
+	public long getContentLength() {
+		if (null == conn) {
+			return contentLength;
+		}
+		String length = conn.getHeaderField("Content-Length");
+		try {
+			return null == length ? -1 : Long.parseLong(length.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return 不占用连接的响应（缓存、合并请求）返回 null
+	 */
+	public HttpURLConnection getConnection() {
+		return conn;
+	}
+
+	/**
+	 * 响应体是否 gzip 压缩
+	 * @return
+	 */
+	public boolean isGzipped() {
+		return null != conn && "gzip".equalsIgnoreCase(conn.getHeaderField("Content-Encoding"));
+	}
+
+	/**
+	 * 响应体，错误响应时为错误内容，gzip 压缩的响应体边读边解压；关闭该流或读到末尾即关闭响应
+	 * @return
+	 * @throws IOException
+	 */
+	public synchronized InputStream getBody() throws IOException {
+		if (null == body && null == conn) {
+			body = new BodyInputStream(content);
+		}
+		if (null == body) {
+			raw = openRaw();
+			InputStream decoded = raw;
+			if (isGzipped() && hasBody()) {
+				compressedCounter = new CountingInputStream(raw);
+				try {
+					decoded = decodedCounter = new CountingInputStream(new GZIPInputStream(compressedCounter, 8192));
+				} catch (EOFException e) {
+					decoded = EmptyInputStream.INSTANCE;
+				}
+			}
+			body = new BodyInputStream(decoded);
+		}
+		return body;
+	}
+
+	/**
+	 * 响应体，同时立即归还连接数许可，返回的流不再计入 {@link HttpClient#getMaxPerHost()}
+	 * <p>
+	 *     供不要求调用方 close 的旧接口使用：调用方只读一部分就丢弃流时不会耗尽许可，
+	 *     连接与未使用本类时一样由 GC 回收；关闭或读到末尾时仍会读完剩余内容、让连接回到 keep-alive 缓存。
+	 * </p>
+	 * @return
+	 * @throws IOException
+	 */
+	synchronized InputStream detachBody() throws IOException {
+		InputStream in = getBody();
+		if (null != conn && !detached && !closed.get()) {
+			detached = true;
+			client.detach(host);
+		}
+		return in;
+	}
+
+	private boolean hasBody() {
+		return code != HttpURLConnection.HTTP_NO_CONTENT && code != HttpURLConnection.HTTP_NOT_MODIFIED
+				&& !"HEAD".equals(conn.getRequestMethod()) && 0 != getContentLength();
+	}
+
+	private InputStream openRaw() throws IOException {
+		if (code >= 400) {
+			InputStream error = conn.getErrorStream();
+			return null == error ? EmptyInputStream.INSTANCE : error;
+		}
+		return conn.getInputStream();
+	}
+
+	/**
+	 * 读取全部响应体并关闭响应，解压后超过 {@link HttpClient#getMaxResponseBytes()} 时抛出 IOException
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] bytes() throws IOException {
+		return bytes(null == client ? Long.MAX_VALUE : client.getMaxResponseBytes());
+	}
+
+	/**
+	 * 读取全部响应体并关闭响应
+	 * @param maxBytes 解压后的长度上限，按实际读到的字节数判断，不信任 Content-Length（防止 gzip 炸弹）
+	 * @return
+	 * @throws IOException 超过上限
+	 */
+	public byte[] bytes(long maxBytes) throws IOException {
+		try {
+			InputStream in = getBody();
+			long length = isGzipped() ? -1 : getContentLength();
+			if (length > maxBytes) {
+				throw new IOException("response body too large: " + length + " > " + maxBytes);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream(length > 0 && length < Integer.MAX_VALUE ? (int) length : 1024);
+			BufferPool pool = BufferPool.getDefault();
+			byte[] buffer = pool.acquire();
+			try {
+				long total = 0;
+				int len;
+				while ((len = in.read(buffer)) != -1) {
+					total += len;
+					if (total > maxBytes) {
+						throw new IOException("response body exceeds " + maxBytes + " bytes");
+					}
+					out.write(buffer, 0, len);
+				}
+			} finally {
+				pool.release(buffer);
+			}
+			return out.toByteArray();
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * 读取全部响应体（UTF-8）并关闭响应
+	 * @return
+	 * @throws IOException
+	 */
+	public String string() throws IOException {
+		return new String(bytes(), Charset.forName("UTF-8"));
+	}
+
+	/**
+	 * 读完剩余响应体后释放连接，可重复调用
+	 */
+	@Override
+	public void close() {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+		if (null == conn) {
+			try {
+				content.close();
+			} catch (IOException e) {
+				// ignore
+			}
+			return;
+		}
+		boolean reusable;
+		boolean detached;
+		synchronized (this) {
+			if (null != decodedCounter) {
+				client.onResponseDecoded(compressedCounter.count, decodedCounter.count);
+			}
+			reusable = drain();
+			detached = this.detached;
+		}
+		long keepAlive = HttpClient.keepAliveMillis(conn);
+		reusable = reusable && keepAlive > 0;
+		if (!reusable) {
+			conn.disconnect();
+		}
+		if (detached) {
+			client.recycle(host, reusable, keepAlive);
+		} else {
+			client.release(host, reusable, keepAlive);
+		}
+	}
+
+	/**
+	 * @return 连接是否可复用
+	 */
+	private boolean drain() {
+		try {
+			InputStream in = null == raw ? openRaw() : raw;
+			BufferPool pool = BufferPool.getDefault();
+			byte[] buffer = pool.acquire();
+			try {
+				long remaining = DRAIN_LIMIT;
+				int len;
+				while (remaining > 0 && (len = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+					remaining -= len;
+				}
+				boolean drained = in.read() == -1;
+				in.close();
+				return drained;
+			} finally {
+				pool.release(buffer);
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 关闭或读到末尾时关闭响应，之后的读取都返回 -1
+	 */
+	private final class BodyInputStream extends FilterInputStream {
+		private boolean eof;
+
+		BodyInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (eof) {
+				return -1;
+			}
+			int b = in.read();
+			if (b == -1) {
+				finish();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (eof) {
+				return -1;
+			}
+			int n = in.read(b, off, len);
+			if (n == -1) {
+				finish();
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			return eof ? 0 : in.skip(n);
+		}
+
+		@Override
+		public int available() throws IOException {
+			return eof ? 0 : in.available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			eof = true;
+			HttpResponse.this.close();
+		}
+
+		private void finish() {
+			eof = true;
+			HttpResponse.this.close();
+		}
+	}
+
+	private static final class CountingInputStream extends FilterInputStream {
+		long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b != -1) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+	static final class EmptyInputStream extends InputStream {
+		static final EmptyInputStream INSTANCE = new EmptyInputStream();
+
+		@Override
+		public int read() {
+			return -1;
+		}
+	}
+}
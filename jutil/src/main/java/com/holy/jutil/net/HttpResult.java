@@ -0,0 +1,114 @@
+package com.holy.jutil.net;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 异步请求结果，出错时不抛异常而是返回对应状态
+ */
+public class HttpResult {
+	public enum Status {
+		/**
+		 * 2xx
+		 */
+		SUCCESS,
+		/**
+		 * 服务端返回非 2xx，{@link #getCode()} 和 {@link #getBody()} 有效
+		 */
+		HTTP_ERROR,
+		/**
+		 * 连接、读取或排队超时
+		 */
+		TIMEOUT,
+		/**
+		 * 网络或其他错误，见 {@link #getError()}
+		 */
+		IO_ERROR,
+		/**
+		 * 队列已满，未发送
+		 */
+		REJECTED,
+		/**
+		 * 已取消
+		 */
+		CANCELED
+	}
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private final Status status;
+	private final int code;
+	private final Map<String, List<String>> headers;
+	private final byte[] body;
+	private final Throwable error;
+
+	HttpResult(Status status, int code, Map<String, List<String>> headers, byte[] body, Throwable error) {
+		this.status = status;
+		this.code = code;
+		this.headers = null == headers ? Collections.<String, List<String>>emptyMap() : headers;
+		this.body = null == body ? EMPTY : body;
+		this.error = error;
+	}
+
+	static HttpResult failure(Status status, Throwable error) {
+		return new HttpResult(status, -1, null, null, error);
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public boolean isSuccessful() {
+		return Status.SUCCESS == status;
+	}
+
+	/**
+	 * @return 响应码，未收到响应时为 -1
+	 */
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * @param name
+	 * @return 不存在时返回 null
+	 */
+	public String getHeader(String name) {
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			if (null != entry.getKey() && entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+				return entry.getValue().get(entry.getValue().size() - 1);
+			}
+		}
+		return null;
+	}
+
+	public Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	/**
+	 * 响应体按 UTF-8 解码
+	 * @return
+	 */
+	public String getBodyString() {
+		return new String(body, Charset.forName("UTF-8"));
+	}
+
+	/**
+	 * @return 失败原因，成功或 HTTP_ERROR 时为 null
+	 */
+	public Throwable getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return "HttpResult{" + status + (code >= 0 ? ", " + code : "") + (null != error ? ", " + error : "") + "}";
+	}
+}
@@ -1,8 +1,8 @@
 package com.holy.jutil.net;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 
@@ -12,6 +12,9 @@ import java.net.URL;
  * Created by fengyoutian on 2017年1月11日.
  */
 public class HttpUtil {
+	private static volatile SingleFlight singleFlight;
+	private static volatile HttpBatcher batcher;
+
 	/**
 	 * 配置基本参数
 	 * 
@@ -47,60 +50,134 @@ public class HttpUtil {
 	
 	/**
 	 * 不带参数的链接
+	 * <p>
+	 *     通过 {@link HttpClient#getDefault()} 发送，返回的流不计入每主机连接数；关闭或读到末尾后连接可复用，只读一部分就丢弃时由 GC 回收
+	 * </p>
 	 * 
 	 * @param path
 	 * @param version
-	 * @return
+	 * @return 响应码非 200 或出错时返回 null
 	 */
 	public static InputStream connction(String path, String version) {
-		try {
-			HttpURLConnection conn = getHttpURLConnection(path);
-			conn.setRequestProperty("version", version);
-			
-			conn.connect();
-			if (conn.getResponseCode() == 200) {
-				return conn.getInputStream();
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		
-		return null;
+		return openBody(new HttpRequest("POST", path).version(version), singleFlight);
 	}
 	
+	/**
+	 * GET 请求，设置了 {@link #setCache(HttpCache)} 时走响应缓存
+	 * 
+	 * @param path
+	 * @param version
+	 * @return 响应码非 200 或出错时返回 null
+	 */
+	public static InputStream get(String path, String version) {
+		return openBody(HttpRequest.get(path).version(version), singleFlight);
+	}
+
+	/**
+	 * 设置 {@link HttpClient#getDefault()} 的响应缓存，只对 GET 生效
+	 * 
+	 * @param cache 为 null 时关闭
+	 */
+	public static void setCache(HttpCache cache) {
+		HttpClient.getDefault().setCache(cache);
+	}
+
+	/**
+	 * 合并 {@link #connction(String, String)}、{@link #get(String, String)} 相同的并发请求，默认不合并
+	 * 
+	 * @param enabled
+	 */
+	public static void setCoalescing(boolean enabled) {
+		singleFlight = enabled ? new SingleFlight(HttpClient.getDefault()) : null;
+	}
+
 	/**
 	 * 带参数的链接
+	 * <p>
+	 *     通过 {@link HttpClient#getDefault()} 发送，返回的流不计入每主机连接数；关闭或读到末尾后连接可复用，只读一部分就丢弃时由 GC 回收
+	 * </p>
 	 * 
 	 * @param path
 	 * @param data
 	 * @param version
-	 * @return
+	 * @return 响应码非 200 或出错时返回 null
 	 */
 	public static InputStream connection(String path, byte[] data, String version) {
-		OutputStream out = null;
+		return openBody(HttpRequest.post(path, data).version(version));
+	}
+
+	/**
+	 * 异步发送，设置了 {@link #setBatcher(HttpBatcher)} 时与同一地址的其他请求合并发送
+	 * 
+	 * @param path
+	 * @param data
+	 * @param version
+	 * @param callback 可为 null
+	 * @return
+	 */
+	public static HttpFuture post(String path, byte[] data, String version, HttpCallback callback) {
+		HttpRequest request = HttpRequest.post(path, data).version(version);
+		HttpBatcher current = batcher;
+		return null == current ? HttpClient.getDefault().enqueue(request, callback) : current.submit(request, callback);
+	}
+
+	/**
+	 * 设置 {@link #post(String, byte[], String, HttpCallback)} 使用的合并发送器
+	 * 
+	 * @param batcher 为 null 时逐个发送
+	 */
+	public static void setBatcher(HttpBatcher batcher) {
+		HttpUtil.batcher = batcher;
+	}
+
+	/**
+	 * 流式上传文件，不整体读入内存
+	 * 
+	 * @param path
+	 * @param file
+	 * @param version
+	 * @param listener 上传进度，可为 null
+	 * @return 响应码非 200 或出错时返回 null
+	 */
+	public static InputStream connection(String path, File file, String version, ProgressListener listener) {
+		return openBody(new HttpRequest("POST", path).body(HttpBody.of(file, null)).version(version).progress(listener));
+	}
+
+	/**
+	 * 流式上传
+	 * 
+	 * @param path
+	 * @param data 由调用方关闭
+	 * @param length 长度，未知时传 -1 使用 chunked 传输
+	 * @param version
+	 * @param listener 上传进度，可为 null
+	 * @return 响应码非 200 或出错时返回 null
+	 */
+	public static InputStream connection(String path, InputStream data, long length, String version, ProgressListener listener) {
+		return openBody(new HttpRequest("POST", path).body(HttpBody.of(data, length, null)).version(version).progress(listener));
+	}
+
+	private static InputStream openBody(HttpRequest request) {
+		return openBody(request, null);
+	}
+
+	/**
+	 * @param flight 为 null 时不合并
+	 */
+	private static InputStream openBody(HttpRequest request, SingleFlight flight) {
+		HttpResponse response = null;
 		try {
-			HttpURLConnection conn = getHttpURLConnection(path);
-			conn.setRequestProperty("Content-Length", String.valueOf(data.length));
-			conn.setRequestProperty("version", version);
-	
-			out = conn.getOutputStream();
-			out.write(data);
-			
-			if (conn.getResponseCode() == 200) {
-				return conn.getInputStream();
+			response = null == flight ? HttpClient.getDefault().execute(request) : flight.execute(request);
+			if (response.getCode() == 200) {
+				// 旧接口的调用方不一定 close，返回的流不占用连接数许可
+				return response.detachBody();
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
-		} finally {
-			if (null != out) {
-				try {
-					out.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			}
 		}
-		
+		if (null != response) {
+			response.close();
+		}
 		return null;
 	}
 }
@@ -0,0 +1,13 @@
+package com.holy.jutil.net;
+
+/**
+ * 上传进度
+ */
+public interface ProgressListener {
+	/**
+	 * 每写出一个缓冲区调用一次，在上传线程中执行
+	 * @param written 已写出字节数
+	 * @param total 总字节数，未知时为 -1
+	 */
+	void onProgress(long written, long total);
+}
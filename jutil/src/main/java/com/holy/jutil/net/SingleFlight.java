@@ -0,0 +1,250 @@
+package com.holy.jutil.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.holy.jutil.io.BufferPool;
+
+/**
+ * 合并相同的并发请求
+ * <p>
+ *     方法、URL、请求头都相同且没有请求体的请求，同一时刻只有第一个真正发出，其余等待它的结果。
+ *     响应体由第一个请求整体读出后分发给所有等待者：不超过 maxBufferBytes 时放在共享的内存缓冲区，
+ *     否则写入临时文件，每个等待者各自读文件，全部 close 后删除。
+ * </p>
+ * <p>
+ *     只应用于幂等请求；请求完成后再来的相同请求会重新发出。
+ * </p>
+ */
+public class SingleFlight {
+	public static final int DEFAULT_MAX_BUFFER_BYTES = 256 * 1024;
+
+	private final HttpClient client;
+	private final int maxBufferBytes;
+	private final File tempDir;
+	private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+	private final AtomicLong flightCount = new AtomicLong();
+	private final AtomicLong sharedCount = new AtomicLong();
+
+	/**
+	 * @param client
+	 * @param maxBufferBytes 超过该长度（或长度未知且实际超过）的响应体写入临时文件
+	 * @param tempDir 临时文件目录，为 null 时使用系统临时目录
+	 */
+	public SingleFlight(HttpClient client, int maxBufferBytes, File tempDir) {
+		this.client = client;
+		this.maxBufferBytes = maxBufferBytes;
+		this.tempDir = tempDir;
+	}
+
+	public SingleFlight(HttpClient client) {
+		this(client, DEFAULT_MAX_BUFFER_BYTES, null);
+	}
+
+	/**
+	 * 合并键：方法 + URL + 按名称排序的请求头
+	 * @param request
+	 * @return
+	 */
+	public static String key(HttpRequest request) {
+		StringBuilder key = new StringBuilder(request.getMethod()).append(' ').append(request.getUrl());
+		for (Map.Entry<String, String> header : new TreeMap<>(request.getHeaders()).entrySet()) {
+			key.append('\n').append(header.getKey()).append(':').append(header.getValue());
+		}
+		return key.toString();
+	}
+
+	/**
+	 * 执行请求，相同的请求在途时等待并共享其结果；返回的响应必须 close
+	 * @param request 有请求体时不合并，直接执行
+	 * @return
+	 * @throws IOException 发出的请求失败时，所有等待者都抛出同一个异常
+	 */
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		if (null != request.getBody() || null != request.getStreamBody()) {
+			return client.execute(request);
+		}
+		String key = key(request);
+		for (;;) {
+			Flight flight = new Flight();
+			Flight existing = flights.putIfAbsent(key, flight);
+			if (null == existing) {
+				flightCount.incrementAndGet();
+				return lead(key, flight, request);
+			}
+			if (existing.join()) {
+				sharedCount.incrementAndGet();
+				return existing.await();
+			}
+			// 已结束、正在移除，重试
+		}
+	}
+
+	private HttpResponse lead(String key, Flight flight, HttpRequest request) throws IOException {
+		try {
+			flight.result = load(request);
+		} catch (IOException | RuntimeException e) {
+			flight.error = e;
+		} finally {
+			flights.remove(key, flight);
+			flight.finish();
+		}
+		return flight.await();
+	}
+
+	private Result load(HttpRequest request) throws IOException {
+		try (HttpResponse response = client.execute(request)) {
+			InputStream in = response.getBody();
+			long length = response.getContentLength();
+			BufferPool pool = BufferPool.getDefault();
+			byte[] buffer = pool.acquire();
+			try {
+				ByteArrayOutputStream memory = new ByteArrayOutputStream(
+						length > 0 && !response.isGzipped() ? (int) Math.min(length, maxBufferBytes) : 1024);
+				int len;
+				while ((len = in.read(buffer)) != -1 && memory.size() + len <= maxBufferBytes) {
+					memory.write(buffer, 0, len);
+				}
+				if (-1 == len) {
+					return new Result(response.getCode(), response.getHeaders(), memory.toByteArray(), null);
+				}
+				File file = File.createTempFile("flight", ".tmp", tempDir);
+				try (OutputStream out = new FileOutputStream(file)) {
+					memory.writeTo(out);
+					do {
+						out.write(buffer, 0, len);
+					} while ((len = in.read(buffer)) != -1);
+				} catch (IOException | RuntimeException e) {
+					file.delete();
+					throw e;
+				}
+				return new Result(response.getCode(), response.getHeaders(), null, file);
+			} finally {
+				pool.release(buffer);
+			}
+		}
+	}
+
+	/**
+	 * 实际发出的请求数
+	 * @return
+	 */
+	public long getFlightCount() {
+		return flightCount.get();
+	}
+
+	/**
+	 * 共享了在途请求结果、未发出的请求数
+	 * @return
+	 */
+	public long getSharedCount() {
+		return sharedCount.get();
+	}
+
+	private static final class Result {
+		final int code;
+		final Map<String, List<String>> headers;
+		final byte[] body;
+		final File file;
+
+		Result(int code, Map<String, List<String>> headers, byte[] body, File file) {
+			this.code = code;
+			this.headers = CachedResponse.decodedHeaders(headers);
+			this.body = body;
+			this.file = file;
+		}
+	}
+
+	private static final class Flight {
+		private final CountDownLatch done = new CountDownLatch(1);
+		/**
+		 * 发起者和每个等待者各占一个引用，引用归零时删除临时文件
+		 */
+		private final AtomicInteger refs = new AtomicInteger(1);
+		private boolean finished;
+		Result result;
+		Exception error;
+
+		/**
+		 * @return 已结束时返回 false
+		 */
+		synchronized boolean join() {
+			if (finished) {
+				return false;
+			}
+			refs.incrementAndGet();
+			return true;
+		}
+
+		synchronized void finish() {
+			finished = true;
+			done.countDown();
+		}
+
+		HttpResponse await() throws IOException {
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				release();
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted while waiting for shared request");
+			}
+			if (null != error) {
+				release();
+				// 所有等待者共享同一个异常实例，保留 SocketTimeoutException 等具体类型
+				if (error instanceof IOException) {
+					throw (IOException) error;
+				}
+				throw (RuntimeException) error;
+			}
+			if (null == result.file) {
+				release();
+				return new HttpResponse(result.code, result.headers, new ByteArrayInputStream(result.body), result.body.length, false);
+			}
+			InputStream in;
+			try {
+				in = new FileInputStream(result.file);
+			} catch (IOException e) {
+				release();
+				throw e;
+			}
+			return new HttpResponse(result.code, result.headers, new FilterInputStream(in) {
+				private boolean closed;
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						if (!closed) {
+							closed = true;
+							release();
+						}
+					}
+				}
+			}, result.file.length(), false);
+		}
+
+		private void release() {
+			if (0 == refs.decrementAndGet() && null != result && null != result.file) {
+				result.file.delete();
+			}
+		}
+	}
+}
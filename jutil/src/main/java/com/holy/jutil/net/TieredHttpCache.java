@@ -0,0 +1,259 @@
+package com.holy.jutil.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.holy.jutil.security.Crypter;
+
+/**
+ * 内存 + 磁盘两级 LRU 响应缓存
+ * <p>
+ *     内存层按近似字节数限制，淘汰的条目仍保留在磁盘层；磁盘层每个键一个文件（文件名为键的 MD5），
+ *     按总大小限制，超出时删除最久未使用的文件。启动时按文件修改时间恢复磁盘层的使用顺序。
+ * </p>
+ * <p>
+ *     磁盘写入先写临时文件再改名，进程中途退出不会留下损坏的条目；读到格式错误的文件直接删除。
+ *     读文件不持有锁，读完后只有索引中仍是同一次写入的条目才会放入内存层或因读取失败被删除，
+ *     不会删掉或覆盖读取期间并发写入的新条目。
+ * </p>
+ */
+public class TieredHttpCache implements HttpCache {
+	private static final String SUFFIX = ".hc";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final long maxMemoryBytes;
+	private final long maxDiskBytes;
+	private final File directory;
+
+	private final LinkedHashMap<String, CachedResponse> memory = new LinkedHashMap<>(16, 0.75f, true);
+	private long memoryBytes = 0;
+	/**
+	 * 文件名 -> 磁盘条目，按访问顺序
+	 */
+	private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(16, 0.75f, true);
+	private long diskBytes = 0;
+
+	/**
+	 * 每次写入文件生成一个新实例，按引用区分同一文件名的不同写入
+	 */
+	private static final class DiskEntry {
+		final long size;
+
+		DiskEntry(long size) {
+			this.size = size;
+		}
+	}
+
+	/**
+	 * @param maxMemoryBytes 内存层上限
+	 * @param directory 磁盘层目录，为 null 时只使用内存
+	 * @param maxDiskBytes 磁盘层上限
+	 */
+	public TieredHttpCache(long maxMemoryBytes, File directory, long maxDiskBytes) {
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.directory = directory;
+		this.maxDiskBytes = maxDiskBytes;
+		if (null != directory) {
+			loadIndex();
+		}
+	}
+
+	private void loadIndex() {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return;
+		}
+		File[] files = directory.listFiles();
+		if (null == files) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				long diff = a.lastModified() - b.lastModified();
+				return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+			}
+		});
+		synchronized (this) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.endsWith(TEMP_SUFFIX)) {
+					file.delete();
+				} else if (name.endsWith(SUFFIX)) {
+					disk.put(name, new DiskEntry(file.length()));
+					diskBytes += file.length();
+				}
+			}
+			trimDisk();
+		}
+	}
+
+	@Override
+	public CachedResponse get(String key) {
+		String name;
+		DiskEntry entry;
+		synchronized (this) {
+			CachedResponse response = memory.get(key);
+			if (null != response) {
+				return response;
+			}
+			if (null == directory) {
+				return null;
+			}
+			name = fileName(key);
+			entry = disk.get(name);
+			if (null == entry) {
+				return null;
+			}
+		}
+		File file = new File(directory, name);
+		CachedResponse response;
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			response = CachedResponse.readFrom(in);
+		} catch (IOException e) {
+			synchronized (this) {
+				// 读取期间被替换或删除时，失败的是旧文件，不能删掉新写入的
+				if (disk.get(name) == entry) {
+					removeFile(name);
+				}
+			}
+			return null;
+		}
+		synchronized (this) {
+			// 读取期间有新的 put（先进入内存层）或 remove，以其为准
+			CachedResponse current = memory.get(key);
+			if (null != current) {
+				return current;
+			}
+			if (disk.get(name) != entry) {
+				return null;
+			}
+			file.setLastModified(System.currentTimeMillis());
+			putMemory(key, response);
+		}
+		return response;
+	}
+
+	@Override
+	public void put(String key, CachedResponse response) {
+		synchronized (this) {
+			putMemory(key, response);
+		}
+		if (null == directory || response.size() > maxDiskBytes) {
+			return;
+		}
+		String name = fileName(key);
+		File temp = new File(directory, name + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
+		File file = new File(directory, name);
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+			response.writeTo(out);
+		} catch (IOException e) {
+			temp.delete();
+			return;
+		}
+		synchronized (this) {
+			file.delete();
+			if (!temp.renameTo(file)) {
+				temp.delete();
+				removeFile(name);
+				return;
+			}
+			DiskEntry old = disk.put(name, new DiskEntry(file.length()));
+			diskBytes += file.length() - (null == old ? 0 : old.size);
+			trimDisk();
+		}
+	}
+
+	@Override
+	public void remove(String key) {
+		synchronized (this) {
+			CachedResponse old = memory.remove(key);
+			if (null != old) {
+				memoryBytes -= old.size();
+			}
+			if (null != directory) {
+				removeFile(fileName(key));
+			}
+		}
+	}
+
+	/**
+	 * 清空两级缓存
+	 */
+	public synchronized void clear() {
+		memory.clear();
+		memoryBytes = 0;
+		if (null != directory) {
+			for (String name : new ArrayList<>(disk.keySet())) {
+				removeFile(name);
+			}
+		}
+	}
+
+	public synchronized long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	public synchronized long getDiskBytes() {
+		return diskBytes;
+	}
+
+	private void putMemory(String key, CachedResponse response) {
+		int size = response.size();
+		CachedResponse old = memory.remove(key);
+		if (null != old) {
+			memoryBytes -= old.size();
+		}
+		if (size > maxMemoryBytes) {
+			return;
+		}
+		memory.put(key, response);
+		memoryBytes += size;
+		Iterator<Map.Entry<String, CachedResponse>> iterator = memory.entrySet().iterator();
+		while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+			memoryBytes -= iterator.next().getValue().size();
+			iterator.remove();
+		}
+	}
+
+	private void trimDisk() {
+		if (diskBytes <= maxDiskBytes) {
+			return;
+		}
+		List<String> evicted = new ArrayList<>();
+		Iterator<Map.Entry<String, DiskEntry>> iterator = disk.entrySet().iterator();
+		while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+			Map.Entry<String, DiskEntry> entry = iterator.next();
+			diskBytes -= entry.getValue().size;
+			evicted.add(entry.getKey());
+			iterator.remove();
+		}
+		for (String name : evicted) {
+			new File(directory, name).delete();
+		}
+	}
+
+	private void removeFile(String name) {
+		DiskEntry entry = disk.remove(name);
+		if (null != entry) {
+			diskBytes -= entry.size;
+		}
+		new File(directory, name).delete();
+	}
+
+	private static String fileName(String key) {
+		return Crypter.md5(key) + SUFFIX;
+	}
+}
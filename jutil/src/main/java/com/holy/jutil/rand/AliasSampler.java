@@ -0,0 +1,210 @@
+package com.holy.jutil.rand;
+
+import java.util.Random;
+
+/**
+ * 按权重随机选取下标（Vose 别名方法）
+ * <p>
+ *     构建 O(n)，每次采样 O(1) 且不分配内存。实例不可变，可在多线程间共享。
+ * </p>
+ * <p>
+ *     {@link #withWeight(int, double)} 支持增量修改权重：别名表按构建时的权重上界生成，
+ *     权重不超过上界时只调整接受率（采样时按 weight / bound 拒绝重采），不重建别名表；
+ *     超过上界或整体接受率过低时才重建。
+ * </p>
+ */
+public class AliasSampler {
+	/**
+	 * 整体接受率低于该值时重建，保证平均重采次数不超过 2
+	 */
+	private static final double MIN_ACCEPT_RATE = 0.5;
+
+	private final double[] prob; // 每列取本列的概率，与 alias 一起在重建前共享
+	private final int[] alias;
+	private final double[] bounds; // 构建别名表时的权重
+	private final double boundTotal;
+	private final double[] weights; // 当前权重
+	private final double totalWeight;
+	private final double[] accept; // weights[i] / bounds[i]，为 null 表示全部接受
+
+	/**
+	 * @param weights 非负权重，总和必须大于 0
+	 */
+	public AliasSampler(double[] weights) {
+		weights = weights.clone();
+		int n = weights.length;
+		if (n == 0) {
+			throw new IllegalArgumentException("weights is empty");
+		}
+		double total = sum(weights);
+
+		this.weights = weights;
+		this.totalWeight = total;
+		this.bounds = weights;
+		this.boundTotal = total;
+		this.accept = null;
+		this.prob = new double[n];
+		this.alias = new int[n];
+		build(weights, total, prob, alias);
+	}
+
+	private AliasSampler(AliasSampler base, double[] weights, double totalWeight, double[] accept) {
+		this.prob = base.prob;
+		this.alias = base.alias;
+		this.bounds = base.bounds;
+		this.boundTotal = base.boundTotal;
+		this.weights = weights;
+		this.totalWeight = totalWeight;
+		this.accept = accept;
+	}
+
+	/**
+	 * 用当前线程的生成器采样
+	 * @return 下标，取到 i 的概率为 weight[i] / totalWeight
+	 */
+	public int sample() {
+		return sample(RandUtil.current());
+	}
+
+	/**
+	 * 采样
+	 * @param random
+	 * @return 下标，取到 i 的概率为 weight[i] / totalWeight
+	 */
+	public int sample(Random random) {
+		final int n = prob.length;
+		while (true) {
+			// 一个随机数同时决定列和列内取舍
+			double u = random.nextDouble() * n;
+			int column = (int) u;
+			if (column >= n) {
+				column = n - 1;
+			}
+			int index = u - column < prob[column] ? column : alias[column];
+			if (null == accept || random.nextDouble() < accept[index]) {
+				return index;
+			}
+		}
+	}
+
+	/**
+	 * 修改一个权重，返回新的采样器，原实例不变
+	 * @param index
+	 * @param weight 非负
+	 * @return
+	 */
+	public AliasSampler withWeight(int index, double weight) {
+		checkWeight(weight);
+		double[] newWeights = weights.clone();
+		newWeights[index] = weight;
+		double newTotal = totalWeight - weights[index] + weight;
+		if (newTotal <= 0) {
+			// 浮点误差累积时重新求和确认
+			newTotal = sum(newWeights);
+		}
+
+		if (weight > bounds[index] || newTotal < boundTotal * MIN_ACCEPT_RATE) {
+			return new AliasSampler(newWeights);
+		}
+
+		double[] newAccept = null == accept ? new double[weights.length] : accept.clone();
+		if (null == accept) {
+			for (int i = 0; i < newAccept.length; i++) {
+				newAccept[i] = 1.0;
+			}
+		}
+		newAccept[index] = bounds[index] > 0 ? weight / bounds[index] : 0;
+		return new AliasSampler(this, newWeights, newTotal, newAccept);
+	}
+
+	/**
+	 * 按当前权重重建别名表，去掉拒绝重采的开销
+	 * @return
+	 */
+	public AliasSampler rebuild() {
+		return null == accept ? this : new AliasSampler(weights);
+	}
+
+	public int size() {
+		return weights.length;
+	}
+
+	public double getWeight(int index) {
+		return weights[index];
+	}
+
+	public double getTotalWeight() {
+		return totalWeight;
+	}
+
+	/**
+	 * 下标 index 被选中的概率
+	 * @param index
+	 * @return
+	 */
+	public double getProbability(int index) {
+		return weights[index] / totalWeight;
+	}
+
+	private static double sum(double[] weights) {
+		double total = 0;
+		for (double weight : weights) {
+			checkWeight(weight);
+			total += weight;
+		}
+		if (!(total > 0) || Double.isInfinite(total)) {
+			throw new IllegalArgumentException("total weight must be positive and finite: " + total);
+		}
+		return total;
+	}
+
+	private static void checkWeight(double weight) {
+		if (!(weight >= 0) || Double.isInfinite(weight)) {
+			throw new IllegalArgumentException("illegal weight: " + weight);
+		}
+	}
+
+	/**
+	 * Vose 别名方法构建
+	 */
+	private static void build(double[] weights, double total, double[] prob, int[] alias) {
+		int n = weights.length;
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int smallSize = 0;
+		int largeSize = 0;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = weights[i] * n / total;
+			if (scaled[i] < 1.0) {
+				small[smallSize++] = i;
+			} else {
+				large[largeSize++] = i;
+			}
+		}
+
+		while (smallSize > 0 && largeSize > 0) {
+			int less = small[--smallSize];
+			int more = large[--largeSize];
+			prob[less] = scaled[less];
+			alias[less] = more;
+			scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+			if (scaled[more] < 1.0) {
+				small[smallSize++] = more;
+			} else {
+				large[largeSize++] = more;
+			}
+		}
+		// 剩下的只差浮点误差，概率按 1 处理
+		while (largeSize > 0) {
+			int i = large[--largeSize];
+			prob[i] = 1.0;
+			alias[i] = i;
+		}
+		while (smallSize > 0) {
+			int i = small[--smallSize];
+			prob[i] = 1.0;
+			alias[i] = i;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.holy.jutil.rand;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * 伯努利采样：每个元素独立地以概率 p 被选中
+ * <p>
+ *     按几何分布直接算出到下一个被选中元素的间隔，只有被选中的元素消耗一次随机数，
+ *     p 很小时比逐个 {@link RandUtil#calcPR(float)} 快得多。非线程安全。
+ * </p>
+ */
+public class BernoulliSampler {
+	private final double p;
+	private final double logQ; // log1p(-p)，p 很小时 log(1 - p) 会舍入为 0
+	private final Random random;
+	private long remaining; // 到下一个被选中元素之前还要跳过的个数
+
+	/**
+	 * 使用调用线程的生成器
+	 * @param p 取值区间 0 ~ 1
+	 */
+	public BernoulliSampler(double p) {
+		this(p, null);
+	}
+
+	/**
+	 * @param p 取值区间 0 ~ 1
+	 * @param random 为 null 时使用调用线程的生成器
+	 */
+	public BernoulliSampler(double p, Random random) {
+		if (!(p >= 0 && p <= 1)) {
+			throw new IllegalArgumentException("p must be in [0, 1]: " + p);
+		}
+		this.p = p;
+		this.logQ = Math.log1p(-p);
+		this.random = random;
+		this.remaining = nextGap();
+	}
+
+	public double getProbability() {
+		return p;
+	}
+
+	/**
+	 * 经过一个元素
+	 * @return 是否选中
+	 */
+	public boolean sample() {
+		if (remaining > 0) {
+			remaining--;
+			return false;
+		}
+		remaining = nextGap();
+		return true;
+	}
+
+	/**
+	 * 到下一个被选中元素之前要跳过的个数，调用后视为已跳过这些元素，下一个元素必被选中
+	 * @return
+	 */
+	public long skip() {
+		long skipped = remaining;
+		remaining = 0;
+		return skipped;
+	}
+
+	/**
+	 * 惰性过滤迭代器，只返回被选中的元素
+	 * @param iterator
+	 * @param <T>
+	 * @return
+	 */
+	public <T> Iterator<T> filter(final Iterator<T> iterator) {
+		return new Iterator<T>() {
+			private T nextItem;
+			private boolean ready = false;
+
+			@Override
+			public boolean hasNext() {
+				while (!ready && iterator.hasNext()) {
+					T item = iterator.next();
+					if (sample()) {
+						nextItem = item;
+						ready = true;
+					}
+				}
+				return ready;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				ready = false;
+				T item = nextItem;
+				nextItem = null;
+				return item;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * 几何分布 floor(log(u) / log1p(-p))
+	 */
+	private long nextGap() {
+		if (p >= 1) {
+			return 0;
+		}
+		if (p <= 0) {
+			return Long.MAX_VALUE;
+		}
+		Random random = null == this.random ? RandUtil.current() : this.random;
+		double gap = Math.floor(Math.log(ReservoirSampler.uniform(random)) / logQ);
+		if (!(gap >= 0)) {
+			// 负数或 NaN 只可能来自数值下溢，视为不再选中，避免转 long 后变成负数而每个都选中
+			return Long.MAX_VALUE;
+		}
+		return gap < Long.MAX_VALUE ? (long) gap : Long.MAX_VALUE;
+	}
+}
@@ -0,0 +1,252 @@
+package com.holy.jutil.rand;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 唯一ID生成
+ * <p>
+ *     有序ID（64 位）：时间戳(41 位, 毫秒, 自 2020-01-01 起) | 节点(10 位) | 序号(12 位)，
+ *     同一节点生成的ID严格递增，不同节点的ID按时间大致有序。
+ *     生成过程只有一次 CAS，无锁；同一毫秒序号用完时逻辑时间向前借用，不等待时钟，
+ *     时钟回拨时同样沿用逻辑时间，保证不重复。
+ * </p>
+ * <p>
+ *     节点号没有安全的默认值（随机选取在多进程间会冲突），使用 {@link #getDefault()} 前须调用 {@link #setDefaultNode(int)}。
+ * </p>
+ * <p>
+ *     另提供随机 base62 ID。编码字符表为 0-9A-Za-z，按 ASCII 排序与数值顺序一致，
+ *     定长编码后的有序ID按字符串排序即按生成顺序排序。
+ * </p>
+ */
+public class IdGenerator {
+	/**
+	 * 时间戳起点 2020-01-01 00:00:00 UTC
+	 */
+	public static final long EPOCH = 1577836800000L;
+	public static final int NODE_BITS = 10;
+	public static final int SEQUENCE_BITS = 12;
+	public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+	private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+	/**
+	 * 定长 base62 编码长度，可容纳任意 64 位无符号数
+	 */
+	public static final int BASE62_LENGTH = 11;
+	private static final char[] BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+	private static final byte[] BASE62_DECODE = new byte[128];
+	static {
+		for (int i = 0; i < BASE62_DECODE.length; i++) {
+			BASE62_DECODE[i] = -1;
+		}
+		for (int i = 0; i < BASE62.length; i++) {
+			BASE62_DECODE[BASE62[i]] = (byte) i;
+		}
+	}
+
+	/**
+	 * 2^64 - 1 = MAX_DECODE_PREFIX * 62 + MAX_DECODE_LAST_DIGIT
+	 */
+	private static final long MAX_DECODE_PREFIX = 0x0421084210842108L;
+	private static final int MAX_DECODE_LAST_DIGIT = 15;
+
+	private static volatile IdGenerator defaultGenerator;
+
+	private final long node;
+	/**
+	 * (逻辑时间戳 << SEQUENCE_BITS) | 序号
+	 */
+	private final AtomicLong state = new AtomicLong();
+
+	/**
+	 * @param node 节点号 [0, 1023]，多进程/多机时各自不同
+	 */
+	public IdGenerator(int node) {
+		if (node < 0 || node > MAX_NODE) {
+			throw new IllegalArgumentException("node must be in [0, " + MAX_NODE + "]: " + node);
+		}
+		this.node = node;
+	}
+
+	/**
+	 * 设置默认生成器的节点号，只能设置一次
+	 * @param node 节点号 [0, 1023]，由部署方分配，多进程/多机时各自不同
+	 */
+	public static synchronized void setDefaultNode(int node) {
+		if (null != defaultGenerator) {
+			if (defaultGenerator.getNode() == node) {
+				return;
+			}
+			throw new IllegalStateException("default node already set: " + defaultGenerator.getNode());
+		}
+		defaultGenerator = new IdGenerator(node);
+	}
+
+	/**
+	 * 默认生成器
+	 * @return
+	 * @throws IllegalStateException 未调用 {@link #setDefaultNode(int)}
+	 */
+	public static IdGenerator getDefault() {
+		IdGenerator generator = defaultGenerator;
+		if (null == generator) {
+			throw new IllegalStateException("call IdGenerator.setDefaultNode(int) first");
+		}
+		return generator;
+	}
+
+	public int getNode() {
+		return (int) node;
+	}
+
+	/**
+	 * 生成有序ID
+	 * @return
+	 */
+	public long nextId() {
+		long now = System.currentTimeMillis() - EPOCH;
+		while (true) {
+			long current = state.get();
+			// 时钟前进则从新毫秒的 0 号开始，否则序号加一（溢出时进位到时间戳）
+			long next = now > (current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+			if (state.compareAndSet(current, next)) {
+				return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | (node << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+			}
+		}
+	}
+
+	/**
+	 * 生成有序ID的定长 base62 字符串
+	 * @return
+	 */
+	public String nextIdString() {
+		char[] buffer = new char[BASE62_LENGTH];
+		encode(nextId(), buffer, 0);
+		return new String(buffer);
+	}
+
+	/**
+	 * ID中的时间戳（毫秒，Unix 时间）
+	 * @param id
+	 * @return
+	 */
+	public static long timestampOf(long id) {
+		return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+	}
+
+	public static int nodeOf(long id) {
+		return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE);
+	}
+
+	public static int sequenceOf(long id) {
+		return (int) (id & SEQUENCE_MASK);
+	}
+
+	/**
+	 * 按无符号数编码为 11 位定长 base62，写入 dst[offset, offset + 11)
+	 * @param id
+	 * @param dst
+	 * @param offset
+	 */
+	public static void encode(long id, char[] dst, int offset) {
+		for (int i = offset + BASE62_LENGTH - 1; i >= offset; i--) {
+			long q = divide62(id);
+			dst[i] = BASE62[(int) (id - q * 62)];
+			id = q;
+		}
+	}
+
+	/**
+	 * 按无符号数编码为 11 位定长 base62（ASCII），写入 dst[offset, offset + 11)
+	 * @param id
+	 * @param dst
+	 * @param offset
+	 */
+	public static void encode(long id, byte[] dst, int offset) {
+		for (int i = offset + BASE62_LENGTH - 1; i >= offset; i--) {
+			long q = divide62(id);
+			dst[i] = (byte) BASE62[(int) (id - q * 62)];
+			id = q;
+		}
+	}
+
+	/**
+	 * 解码 base62，结果按无符号数理解
+	 * @param str
+	 * @return
+	 * @throws IllegalArgumentException 含非法字符或超出 64 位无符号数范围
+	 */
+	public static long decode(CharSequence str) {
+		if (str.length() > BASE62_LENGTH) {
+			throw new IllegalArgumentException("too long: " + str);
+		}
+		long value = 0;
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			int digit = c < BASE62_DECODE.length ? BASE62_DECODE[c] : -1;
+			if (digit < 0) {
+				throw new IllegalArgumentException("illegal character: " + c);
+			}
+			// value 在乘之前不超过 MAX_DECODE_PREFIX，按有符号比较即可
+			if (value > MAX_DECODE_PREFIX || (value == MAX_DECODE_PREFIX && digit > MAX_DECODE_LAST_DIGIT)) {
+				throw new IllegalArgumentException("overflow: " + str);
+			}
+			value = value * 62 + digit;
+		}
+		return value;
+	}
+
+	/**
+	 * 随机 base62 ID，写入 dst[offset, offset + len)
+	 * <p>
+	 *     每个 nextLong 取 10 个 6 位分组，>= 62 的丢弃，字符均匀分布无偏差。
+	 *     不可预测性取决于 random：{@link RandUtil#current()} 等普通生成器的内部状态只有 64 位，只适合非安全用途
+	 * </p>
+	 * @param random
+	 * @param dst
+	 * @param offset
+	 * @param len
+	 */
+	public static void randomId(Random random, char[] dst, int offset, int len) {
+		int i = offset;
+		int end = offset + len;
+		while (i < end) {
+			long bits = random.nextLong();
+			for (int n = 0; n < 10 && i < end; n++, bits >>>= 6) {
+				int v = (int) (bits & 0x3F);
+				if (v < 62) {
+					dst[i++] = BASE62[v];
+				}
+			}
+		}
+	}
+
+	/**
+	 * 随机 base62 ID，使用 SecureRandom，可用作令牌
+	 * @param len 长度，22 位约 131 bit 随机性
+	 * @return
+	 */
+	public static String randomId(int len) {
+		char[] buffer = new char[len];
+		randomId(SecureRandomHolder.INSTANCE, buffer, 0, len);
+		return new String(buffer);
+	}
+
+	private static final class SecureRandomHolder {
+		static final SecureRandom INSTANCE = new SecureRandom();
+	}
+
+	/**
+	 * 无符号除以 62
+	 */
+	private static long divide62(long n) {
+		if (n >= 0) {
+			return n / 62;
+		}
+		long q = (n >>> 1) / 31;
+		long r = n - q * 62; // 真实余数在 [0, 124) 内
+		return r < 62 ? q : q + 1;
+	}
+}
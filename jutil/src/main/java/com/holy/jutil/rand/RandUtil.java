@@ -1,10 +1,35 @@
 package com.holy.jutil.rand;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class RandUtil {
 	private RandUtil() {}
 
+	/**
+	 * 每个线程独立的生成器，种子由全局序列错开，互不竞争
+	 */
+	private static final AtomicLong seeder = new AtomicLong(
+			SplitRandom.mix64(System.currentTimeMillis()) ^ SplitRandom.mix64(System.nanoTime()));
+	private static final long SEEDER_INCREMENT = 0xbb67ae8584caa73bL;
+
+	private static final ThreadLocal<SplitRandom> localRandom = new ThreadLocal<SplitRandom>() {
+		@Override
+		protected SplitRandom initialValue() {
+			return new SplitRandom(SplitRandom.mix64(seeder.getAndAdd(SEEDER_INCREMENT)));
+		}
+	};
+
+	/**
+	 * 当前线程的随机数生成器，不能跨线程共享
+	 * @return
+	 */
+	public static Random current() {
+		return localRandom.get();
+	}
+
 	/**
 	 * 构造区间
 	 */
@@ -54,7 +79,7 @@ public class RandUtil {
 	 * @return
 	 */
 	public static double rand(int min, int max) {
-		return Math.random() * (max - min + 1) + min;
+		return localRandom.get().nextDouble() * (max - min + 1) + min;
 	}
 
 	/**
@@ -82,8 +107,7 @@ public class RandUtil {
 	 * @return
 	 */
 	public static int rand2Int(int min, int max) {
-		Random ran = new Random();
-		return ran.nextInt(max - min + 1) + min;
+		return localRandom.get().nextInt(max - min + 1) + min;
 	}
 
 	/**
@@ -105,8 +129,81 @@ public class RandUtil {
 		if (pr < 0 || pr > 1) {
 			return false;
 		}
-		return Math.random() < pr;
+		return localRandom.get().nextDouble() < pr;
+	}
+
+	/**
+	 * 批量取 [min, max] 内的随机整数
+	 * @param dst
+	 * @param min
+	 * @param max
+	 */
+	public static void fill(int[] dst, int min, int max) {
+		SplitRandom random = localRandom.get();
+		int bound = max - min + 1;
+		for (int i = 0; i < dst.length; i++) {
+			dst[i] = random.nextInt(bound) + min;
+		}
+	}
+
+	/**
+	 * 批量取 [0, 1) 内的随机数
+	 * @param dst
+	 */
+	public static void fill(double[] dst) {
+		SplitRandom random = localRandom.get();
+		for (int i = 0; i < dst.length; i++) {
+			dst[i] = random.nextDouble();
+		}
+	}
+
+	/**
+	 * 批量取 [min, max] 内的随机数，同 {@link #rand(int, int)}
+	 * @param dst
+	 * @param min
+	 * @param max
+	 */
+	public static void fill(double[] dst, int min, int max) {
+		SplitRandom random = localRandom.get();
+		int range = max - min + 1;
+		for (int i = 0; i < dst.length; i++) {
+			dst[i] = random.nextDouble() * range + min;
+		}
+	}
+
+	/**
+	 * 从字符表中均匀随机取字符填满 dst[offset, offset + len)
+	 * @param dst
+	 * @param offset
+	 * @param len
+	 * @param alphabet
+	 */
+	public static void fill(char[] dst, int offset, int len, char[] alphabet) {
+		SplitRandom random = localRandom.get();
+		for (int i = offset, end = offset + len; i < end; i++) {
+			dst[i] = alphabet[random.nextInt(alphabet.length)];
+		}
+	}
+
+	/**
+	 * 从字符表中均匀随机取字符填满 dst
+	 * @param dst
+	 * @param alphabet
+	 */
+	public static void fill(char[] dst, char[] alphabet) {
+		fill(dst, 0, dst.length, alphabet);
 	}
 
+	/**
+	 * 从迭代器中等概率取 k 个元素（蓄水池采样），内存 O(k)
+	 * @param iterator
+	 * @param k
+	 * @param <T>
+	 * @return 元素数为 min(k, 总数)
+	 * @see ReservoirSampler
+	 */
+	public static <T> List<T> sample(Iterator<? extends T> iterator, int k) {
+		return new ReservoirSampler<T>(k).offerAll(iterator).getSample();
+	}
 
 }
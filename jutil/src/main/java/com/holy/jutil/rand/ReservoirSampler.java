@@ -0,0 +1,224 @@
+package com.holy.jutil.rand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 蓄水池采样（Algorithm L）
+ * <p>
+ *     从未知长度的流中等概率取 k 个元素，内存 O(k)。蓄水池满后按几何分布直接算出下一个要替换的位置，
+ *     中间的元素只计数不消耗随机数，随机数调用次数约为 O(k * log(n / k))。
+ * </p>
+ * <p>
+ *     非线程安全，多个流并行采样后可用 {@link #merge(ReservoirSampler)} 合并
+ * </p>
+ * @param <T>
+ */
+public class ReservoirSampler<T> {
+	private final int k;
+	private final Object[] reservoir;
+	private final Random random;
+	private long count = 0; // 已经过的元素数
+	private long next; // 下一个进入蓄水池的元素序号（从 1 开始）
+	private double w;
+
+	/**
+	 * 使用调用线程的生成器
+	 * @param k 样本容量
+	 */
+	public ReservoirSampler(int k) {
+		this(k, null);
+	}
+
+	/**
+	 * @param k 样本容量
+	 * @param random 为 null 时使用调用线程的生成器
+	 */
+	public ReservoirSampler(int k, Random random) {
+		if (k <= 0) {
+			throw new IllegalArgumentException("k must be positive: " + k);
+		}
+		this.k = k;
+		this.reservoir = new Object[k];
+		this.random = random;
+	}
+
+	private Random random() {
+		return null == random ? RandUtil.current() : random;
+	}
+
+	/**
+	 * 经过一个元素
+	 * @param item
+	 */
+	public void offer(T item) {
+		long position = ++count;
+		if (position <= k) {
+			reservoir[(int) position - 1] = item;
+			if (position == k) {
+				Random random = random();
+				w = Math.exp(Math.log(uniform(random)) / k);
+				next = position + skip(random);
+			}
+			return;
+		}
+		if (position == next) {
+			Random random = random();
+			reservoir[random.nextInt(k)] = item;
+			w *= Math.exp(Math.log(uniform(random)) / k);
+			next = position + skip(random);
+		}
+	}
+
+	/**
+	 * 经过迭代器中的全部元素
+	 * @param iterator
+	 * @return this
+	 */
+	public ReservoirSampler<T> offerAll(Iterator<? extends T> iterator) {
+		while (iterator.hasNext()) {
+			offer(iterator.next());
+		}
+		return this;
+	}
+
+	/**
+	 * 距离下一个会进入蓄水池的元素还需跳过的个数，调用方可据此跳过不必读取的数据
+	 * @return
+	 */
+	public long skipCount() {
+		return count < k ? 0 : next - count - 1;
+	}
+
+	/**
+	 * 已经过的元素数
+	 * @return
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	public int getCapacity() {
+		return k;
+	}
+
+	/**
+	 * 当前样本，元素数为 min(k, count)
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public List<T> getSample() {
+		int size = (int) Math.min(k, count);
+		List<T> sample = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			sample.add((T) reservoir[i]);
+		}
+		return sample;
+	}
+
+	/**
+	 * 合并两个相同容量的蓄水池，结果等价于对两个流的拼接做一次采样
+	 * @param other
+	 * @return 新的采样器，可以继续 offer
+	 */
+	public ReservoirSampler<T> merge(ReservoirSampler<T> other) {
+		if (other.k != k) {
+			throw new IllegalArgumentException("capacity mismatch: " + k + " != " + other.k);
+		}
+		Random random = random();
+		List<T> left = getSample();
+		List<T> right = other.getSample();
+		long leftCount = count;
+		long rightCount = other.count;
+
+		ReservoirSampler<T> merged = new ReservoirSampler<>(k, this.random);
+		int size = (int) Math.min(k, leftCount + rightCount);
+		// 按剩余流长度的比例决定从哪边取，每边不放回地随机取
+		for (int i = 0; i < size; i++) {
+			boolean fromLeft = (long) (random.nextDouble() * (leftCount + rightCount)) < leftCount;
+			List<T> source = fromLeft ? left : right;
+			int pick = random.nextInt(source.size());
+			merged.reservoir[i] = source.get(pick);
+			source.set(pick, source.get(source.size() - 1));
+			source.remove(source.size() - 1);
+			if (fromLeft) {
+				leftCount--;
+			} else {
+				rightCount--;
+			}
+		}
+		merged.count = count + other.count;
+		if (merged.count >= k) {
+			// 连续经过 count 个元素后，w 为 count 个均匀随机数中第 k 小的值，服从 Beta(k, count - k + 1)
+			merged.w = beta(random, k, merged.count - k + 1);
+			merged.next = merged.count + merged.skip(random);
+		}
+		return merged;
+	}
+
+	@Override
+	public String toString() {
+		return "ReservoirSampler{k=" + k + ", count=" + count + ", sample="
+				+ Arrays.toString(Arrays.copyOf(reservoir, (int) Math.min(k, count))) + "}";
+	}
+
+	private long skip(Random random) {
+		return skip(uniform(random), w, count);
+	}
+
+	/**
+	 * 几何分布的跳跃长度 + 1：floor(log(u) / log1p(-w)) + 1
+	 * <p>
+	 *     w 很小时 log(1 - w) 会舍入为 0，商为 -Infinity，转 long 后变成 Long.MIN_VALUE
+	 * </p>
+	 * @param u (0, 1] 内的均匀随机数
+	 * @param w
+	 * @param count 已经过的元素数
+	 * @return 不超过 Long.MAX_VALUE - count
+	 */
+	static long skip(double u, double w, long count) {
+		double s = Math.floor(Math.log(u) / Math.log1p(-w));
+		if (!(s < Long.MAX_VALUE - count - 1)) {
+			return Long.MAX_VALUE - count; // w 极小或下溢为 0，后面几乎不会再被选中
+		}
+		return (long) s + 1;
+	}
+
+	/**
+	 * Beta(a, b) = X / (X + Y)，X ~ Gamma(a)，Y ~ Gamma(b)
+	 */
+	private static double beta(Random random, double a, double b) {
+		double x = gamma(random, a);
+		double y = gamma(random, b);
+		return x / (x + y);
+	}
+
+	/**
+	 * Gamma(shape, 1)，shape >= 1（Marsaglia-Tsang）
+	 */
+	private static double gamma(Random random, double shape) {
+		double d = shape - 1.0 / 3;
+		double c = 1 / Math.sqrt(9 * d);
+		while (true) {
+			double x = random.nextGaussian();
+			double v = 1 + c * x;
+			if (v <= 0) {
+				continue;
+			}
+			v = v * v * v;
+			if (Math.log(uniform(random)) < 0.5 * x * x + d - d * v + d * Math.log(v)) {
+				return d * v;
+			}
+		}
+	}
+
+	/**
+	 * (0, 1] 内的均匀分布，避免 log(0)
+	 */
+	static double uniform(Random random) {
+		return 1.0 - random.nextDouble();
+	}
+}
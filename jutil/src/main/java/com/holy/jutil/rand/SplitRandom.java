@@ -0,0 +1,235 @@
+package com.holy.jutil.rand;
+
+import java.util.Random;
+
+/**
+ * 可设置种子、可拆分的随机数生成器（SplitMix64）
+ * <p>
+ *     状态只有两个 long，没有 CAS 和锁，单个实例只能在一个线程内使用。
+ *     并行任务在派发前对父生成器调用 {@link #split()}，每个子任务拿到统计上独立的子生成器；
+ *     只要拆分顺序固定，同一个种子的输出与线程调度无关，可以复现。
+ * </p>
+ * <p>
+ *     提供与 {@link RandUtil} 相同的区间、概率方法
+ * </p>
+ */
+public class SplitRandom extends Random {
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+	private long seed;
+	private final long gamma;
+	private final boolean initialized;
+
+	/**
+	 * @param seed 相同种子产生相同序列
+	 */
+	public SplitRandom(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	private SplitRandom(long seed, long gamma) {
+		super(0L);
+		this.seed = seed;
+		this.gamma = gamma;
+		this.initialized = true;
+	}
+
+	/**
+	 * 父类构造时会调用一次，此时直接忽略
+	 */
+	@Override
+	public synchronized void setSeed(long seed) {
+		if (initialized) {
+			this.seed = seed;
+		}
+	}
+
+	private long nextSeed() {
+		return seed += gamma;
+	}
+
+	static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * 子生成器的步长，必须为奇数且 01 交替足够多
+	 */
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+
+	static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	@Override
+	protected int next(int bits) {
+		return mix32(nextSeed()) >>> (32 - bits);
+	}
+
+	@Override
+	public int nextInt() {
+		return mix32(nextSeed());
+	}
+
+	/**
+	 * [0, bound) 内均匀分布的整数，拒绝采样消除取模偏差
+	 */
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		int r = mix32(nextSeed());
+		int m = bound - 1;
+		if ((bound & m) == 0) {
+			return r & m; // 2 的幂
+		}
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+		}
+		return r;
+	}
+
+	/**
+	 * [origin, bound) 内均匀分布的整数，区间跨度可以超过 Integer.MAX_VALUE
+	 */
+	public int nextInt(int origin, int bound) {
+		if (origin >= bound) {
+			throw new IllegalArgumentException("bound must be greater than origin");
+		}
+		int n = bound - origin;
+		if (n > 0) {
+			return nextInt(n) + origin;
+		}
+		int r;
+		do {
+			r = nextInt();
+		} while (r < origin || r >= bound);
+		return r;
+	}
+
+	@Override
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	@Override
+	public double nextDouble() {
+		return (mix64(nextSeed()) >>> 11) * DOUBLE_UNIT;
+	}
+
+	@Override
+	public float nextFloat() {
+		return (mix32(nextSeed()) >>> 8) * FLOAT_UNIT;
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return mix32(nextSeed()) < 0;
+	}
+
+	@Override
+	public void nextBytes(byte[] bytes) {
+		int i = 0;
+		int len = bytes.length;
+		for (int words = len >> 3; words-- > 0; ) {
+			long rnd = nextLong();
+			for (int n = 8; n-- > 0; rnd >>>= 8) {
+				bytes[i++] = (byte) rnd;
+			}
+		}
+		if (i < len) {
+			for (long rnd = nextLong(); i < len; rnd >>>= 8) {
+				bytes[i++] = (byte) rnd;
+			}
+		}
+	}
+
+	/**
+	 * 拆分出一个子生成器，与当前生成器统计独立，当前生成器的状态同时前进
+	 * @return
+	 */
+	public SplitRandom split() {
+		return new SplitRandom(nextLong(), mixGamma(nextSeed()));
+	}
+
+	/**
+	 * 取 [0, max] 内的随机数
+	 * @param max
+	 * @return
+	 */
+	public double rand(int max) {
+		return rand(0, max);
+	}
+
+	/**
+	 * 取 [min, max] 内的随机数，同 {@link RandUtil#rand(int, int)}
+	 * @param min
+	 * @param max
+	 * @return
+	 */
+	public double rand(int min, int max) {
+		return nextDouble() * (max - min + 1) + min;
+	}
+
+	/**
+	 * 取 [seed.min, seed.max] 内的随机数
+	 * @param seed
+	 * @return
+	 */
+	public double rand(RandUtil.BuildInterval seed) {
+		return rand(seed.getMin(), seed.getMax());
+	}
+
+	/**
+	 * 取 [0, max] 内的随机整数
+	 * @param max
+	 * @return
+	 */
+	public int rand2Int(int max) {
+		return rand2Int(0, max);
+	}
+
+	/**
+	 * 取 [min, max] 内的随机整数，同 {@link RandUtil#rand2Int(int, int)}
+	 * @param min
+	 * @param max
+	 * @return
+	 */
+	public int rand2Int(int min, int max) {
+		return nextInt(max - min + 1) + min;
+	}
+
+	/**
+	 * 取 [seed.min, seed.max] 内的随机整数
+	 * @param seed
+	 * @return
+	 */
+	public int rand2Int(RandUtil.BuildInterval seed) {
+		return rand2Int(seed.getMin(), seed.getMax());
+	}
+
+	/**
+	 * 计算概率，同 {@link RandUtil#calcPR(float)}
+	 * @param pr 取值区间 0 ~ 1，超出范围返回 false
+	 * @return
+	 */
+	public boolean calcPR(float pr) {
+		if (pr < 0 || pr > 1) {
+			return false;
+		}
+		return nextDouble() < pr;
+	}
+}
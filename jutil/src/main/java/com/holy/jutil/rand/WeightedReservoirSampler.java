@@ -0,0 +1,162 @@
+package com.holy.jutil.rand;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * 加权蓄水池采样（Efraimidis-Spirakis A-ExpJ）
+ * <p>
+ *     每个元素的键为 u^(1/w)，保留键最大的 k 个。蓄水池满后用指数跳跃直接算出下一个会进入的位置，
+ *     中间元素只累加权重不消耗随机数。键在对数空间计算，权重很大或很小时也不会下溢。
+ * </p>
+ * <p>
+ *     非线程安全，多个流并行采样后可用 {@link #merge(WeightedReservoirSampler)} 合并
+ * </p>
+ * @param <T>
+ */
+public class WeightedReservoirSampler<T> {
+	private final int k;
+	private final Random random;
+	private final PriorityQueue<Keyed<T>> heap; // 小顶堆，堆顶是当前门槛
+	private long count = 0;
+	private double skipWeight; // 还需跳过的累计权重
+
+	private static class Keyed<T> {
+		final double key; // log(u) / w
+		final T item;
+
+		Keyed(double key, T item) {
+			this.key = key;
+			this.item = item;
+		}
+	}
+
+	private static final Comparator<Keyed<?>> KEY_ORDER = new Comparator<Keyed<?>>() {
+		@Override
+		public int compare(Keyed<?> a, Keyed<?> b) {
+			return Double.compare(a.key, b.key);
+		}
+	};
+
+	/**
+	 * 使用调用线程的生成器
+	 * @param k 样本容量
+	 */
+	public WeightedReservoirSampler(int k) {
+		this(k, null);
+	}
+
+	/**
+	 * @param k 样本容量
+	 * @param random 为 null 时使用调用线程的生成器
+	 */
+	public WeightedReservoirSampler(int k, Random random) {
+		if (k <= 0) {
+			throw new IllegalArgumentException("k must be positive: " + k);
+		}
+		this.k = k;
+		this.random = random;
+		this.heap = new PriorityQueue<>(k, KEY_ORDER);
+	}
+
+	private Random random() {
+		return null == random ? RandUtil.current() : random;
+	}
+
+	/**
+	 * 经过一个元素
+	 * @param item
+	 * @param weight 权重，<= 0 的元素不会被选中
+	 */
+	public void offer(T item, double weight) {
+		count++;
+		if (!(weight > 0)) {
+			return;
+		}
+		if (heap.size() < k) {
+			heap.add(new Keyed<>(Math.log(ReservoirSampler.uniform(random())) / weight, item));
+			if (heap.size() == k) {
+				nextSkip();
+			}
+			return;
+		}
+
+		skipWeight -= weight;
+		if (skipWeight > 0) {
+			return;
+		}
+		// 新键在 (门槛, 1) 内均匀分布：u ∈ (t^w, 1)
+		double threshold = heap.peek().key;
+		double tw = Math.exp(threshold * weight);
+		double u = tw + (1 - tw) * random().nextDouble();
+		double key = Math.log(u) / weight;
+		heap.poll();
+		heap.add(new Keyed<>(Math.max(key, threshold), item));
+		nextSkip();
+	}
+
+	/**
+	 * 已经过的元素数
+	 * @return
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	public int getCapacity() {
+		return k;
+	}
+
+	/**
+	 * 当前样本，顺序不固定
+	 * @return
+	 */
+	public List<T> getSample() {
+		List<T> sample = new ArrayList<>(heap.size());
+		for (Keyed<T> keyed : heap) {
+			sample.add(keyed.item);
+		}
+		return sample;
+	}
+
+	/**
+	 * 合并两个相同容量的蓄水池，保留两边键最大的 k 个，结果等价于对两个流的拼接做一次采样
+	 * @param other
+	 * @return 新的采样器，可以继续 offer
+	 */
+	public WeightedReservoirSampler<T> merge(WeightedReservoirSampler<T> other) {
+		if (other.k != k) {
+			throw new IllegalArgumentException("capacity mismatch: " + k + " != " + other.k);
+		}
+		WeightedReservoirSampler<T> merged = new WeightedReservoirSampler<>(k, this.random);
+		addAll(merged.heap, heap, k);
+		addAll(merged.heap, other.heap, k);
+		merged.count = count + other.count;
+		if (merged.heap.size() == k) {
+			merged.nextSkip();
+		}
+		return merged;
+	}
+
+	private static <T> void addAll(PriorityQueue<Keyed<T>> target, PriorityQueue<Keyed<T>> source, int k) {
+		for (Keyed<T> keyed : source) {
+			if (target.size() < k) {
+				target.add(keyed);
+			} else if (keyed.key > target.peek().key) {
+				target.poll();
+				target.add(keyed);
+			}
+		}
+	}
+
+	/**
+	 * 跳过的权重 X = log(r) / log(门槛)
+	 */
+	private void nextSkip() {
+		double threshold = heap.peek().key;
+		skipWeight = Math.log(ReservoirSampler.uniform(random())) / threshold;
+	}
+}
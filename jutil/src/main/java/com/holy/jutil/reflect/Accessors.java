@@ -0,0 +1,40 @@
+package com.holy.jutil.reflect;
+
+/**
+ * 访问器公用方法
+ */
+final class Accessors {
+	private Accessors() {}
+
+	/**
+	 * 已 setAccessible 的成员理论上不会再抛出 IllegalAccessException
+	 */
+	static IllegalStateException inaccessible(IllegalAccessException e) {
+		return new IllegalStateException(e);
+	}
+
+	/**
+	 * 参数检查用的类型，基本类型换为包装类
+	 */
+	static Class<?>[] boxed(Class<?>[] types) {
+		Class<?>[] boxed = new Class<?>[types.length];
+		for (int i = 0; i < types.length; i++) {
+			boxed[i] = BeanCopier.wrap(types[i]);
+		}
+		return boxed;
+	}
+
+	/**
+	 * 值能否不经转换直接传给生成代码中的强制转换：基本类型须是对应包装类且不为 null，拓宽转换等交给反射处理
+	 * @param type 声明的类型
+	 * @param boxed {@link #boxed(Class[])} 中对应的类型
+	 * @param value
+	 * @return
+	 */
+	static boolean accepts(Class<?> type, Class<?> boxed, Object value) {
+		if (null == value) {
+			return type == boxed;
+		}
+		return type == boxed ? type.isInstance(value) : value.getClass() == boxed;
+	}
+}
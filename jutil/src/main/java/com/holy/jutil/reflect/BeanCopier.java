@@ -0,0 +1,325 @@
+package com.holy.jutil.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对象间按成员变量名复制
+ * <p>
+ *     创建时分析一次源类和目标类，包括父类中的非 public 成员（子类同名成员优先），
+ *     按名称配对并确定类型转换，生成复制计划；之后每次复制只执行计划，不再查找成员。
+ *     计划按 (源类, 目标类) 缓存，实例线程安全。
+ * </p>
+ * <p>
+ *     支持的转换：可直接赋值、基本类型与包装类、数值类型互转、任意类型转 String、
+ *     String 转数值 / boolean / char / 枚举、枚举转 String。
+ *     无法转换的成员、目标中的 static / final 成员不复制；源值为 null 且目标为基本类型时保留目标原值。
+ * </p>
+ * <p>
+ *     先读取并转换全部成员再写入：String 解析失败等转换错误时抛出 IllegalArgumentException，目标不会被部分修改。
+ * </p>
+ * @param <S>
+ * @param <T>
+ */
+public final class BeanCopier<S, T> {
+	private final Class<S> sourceClass;
+	private final Class<T> targetClass;
+	private final Step[] steps;
+	private volatile ConstructorAccessor<T> constructor;
+
+	private BeanCopier(Class<S> sourceClass, Class<T> targetClass, Step[] steps) {
+		this.sourceClass = sourceClass;
+		this.targetClass = targetClass;
+		this.steps = steps;
+	}
+
+	/**
+	 * 获取 (源类, 目标类) 的复制器，首次调用时生成复制计划
+	 * @param sourceClass
+	 * @param targetClass
+	 * @param <S>
+	 * @param <T>
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <S, T> BeanCopier<S, T> create(Class<S> sourceClass, Class<T> targetClass) {
+		Class<?>[] key = {targetClass};
+		Object cached = ReflectCache.get(ReflectCache.BEAN_COPIER, sourceClass, null, key);
+		if (cached instanceof BeanCopier) {
+			return (BeanCopier<S, T>) cached;
+		}
+		BeanCopier<S, T> copier = new BeanCopier<>(sourceClass, targetClass, plan(sourceClass, targetClass));
+		ReflectCache.put(ReflectCache.BEAN_COPIER, sourceClass, null, key, copier);
+		return copier;
+	}
+
+	/**
+	 * 按 source 的运行时类型复制到 target
+	 * @param source
+	 * @param target
+	 */
+	@SuppressWarnings("unchecked")
+	public static void copy(Object source, Object target) {
+		((BeanCopier<Object, Object>) create(source.getClass(), target.getClass())).copyTo(source, target);
+	}
+
+	public Class<S> getSourceClass() {
+		return sourceClass;
+	}
+
+	public Class<T> getTargetClass() {
+		return targetClass;
+	}
+
+	/**
+	 * 参与复制的成员名
+	 * @return
+	 */
+	public List<String> getFieldNames() {
+		List<String> names = new ArrayList<>(steps.length);
+		for (Step step : steps) {
+			names.add(step.target.getField().getName());
+		}
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * 复制到已有对象
+	 * @param source
+	 * @param target
+	 * @throws IllegalArgumentException 成员值无法转换（如 String 不是合法的数值、枚举名），此时 target 不变
+	 */
+	public void copyTo(S source, T target) {
+		Object[] values = new Object[steps.length];
+		for (int i = 0; i < steps.length; i++) {
+			values[i] = steps[i].read(source);
+		}
+		for (int i = 0; i < steps.length; i++) {
+			steps[i].write(target, values[i]);
+		}
+	}
+
+	/**
+	 * 通过目标类的无参构造方法（可以不是 public）创建对象并复制
+	 * @param source
+	 * @return
+	 * @throws InvocationTargetException 构造方法抛出异常
+	 * @throws IllegalStateException 目标类没有无参构造方法或为抽象类
+	 * @throws IllegalArgumentException 成员值无法转换
+	 */
+	public T copy(S source) throws InvocationTargetException {
+		T target = constructor().newInstance();
+		copyTo(source, target);
+		return target;
+	}
+
+	private ConstructorAccessor<T> constructor() {
+		ConstructorAccessor<T> accessor = constructor;
+		if (null == accessor) {
+			try {
+				Constructor<T> declared = targetClass.getDeclaredConstructor();
+				accessor = Reflect.constructorAccessor(declared);
+			} catch (NoSuchMethodException | InstantiationException e) {
+				throw new IllegalStateException("cannot instantiate " + targetClass.getName(), e);
+			}
+			constructor = accessor;
+		}
+		return accessor;
+	}
+
+	private static Step[] plan(Class<?> sourceClass, Class<?> targetClass) {
+		Map<String, Field> sourceFields = fields(sourceClass);
+		List<Step> steps = new ArrayList<>();
+		for (Field targetField : fields(targetClass).values()) {
+			if (Modifier.isFinal(targetField.getModifiers())) {
+				continue;
+			}
+			Field sourceField = sourceFields.get(targetField.getName());
+			if (null == sourceField) {
+				continue;
+			}
+			Converter converter = converter(sourceField.getType(), targetField.getType());
+			if (null == converter) {
+				continue;
+			}
+			steps.add(new Step(
+					FieldAccessor.of(sourceField), FieldAccessor.of(targetField),
+					converter == IDENTITY ? null : converter, targetField.getType().isPrimitive()));
+		}
+		return steps.toArray(new Step[steps.size()]);
+	}
+
+	/**
+	 * 类及其父类声明的非 static 成员变量，子类同名成员覆盖父类
+	 */
+	private static Map<String, Field> fields(Class<?> clazz) {
+		Map<String, Field> fields = new LinkedHashMap<>();
+		for (Class<?> c = clazz; null != c && c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || fields.containsKey(field.getName())) {
+					continue;
+				}
+				fields.put(field.getName(), field);
+			}
+		}
+		return fields;
+	}
+
+	private static final class Step {
+		final FieldAccessor source;
+		final FieldAccessor target;
+		final Converter converter; // 可直接赋值时为 null
+		final boolean primitive;
+
+		Step(FieldAccessor source, FieldAccessor target, Converter converter, boolean primitive) {
+			this.source = source;
+			this.target = target;
+			this.converter = converter;
+			this.primitive = primitive;
+		}
+
+		/**
+		 * 读取并转换源值
+		 */
+		Object read(Object from) {
+			Object value = source.get(from);
+			if (null != value && null != converter) {
+				value = converter.convert(value);
+			}
+			return value;
+		}
+
+		void write(Object to, Object value) {
+			if (null == value && primitive) {
+				return;
+			}
+			target.set(to, value);
+		}
+	}
+
+	private interface Converter {
+		Object convert(Object value);
+	}
+
+	private static final Converter IDENTITY = new Converter() {
+		@Override
+		public Object convert(Object value) {
+			return value;
+		}
+	};
+
+	private static final Converter TO_STRING = new Converter() {
+		@Override
+		public Object convert(Object value) {
+			return value instanceof Enum ? ((Enum<?>) value).name() : String.valueOf(value);
+		}
+	};
+
+	private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<>();
+	static {
+		WRAPPERS.put(boolean.class, Boolean.class);
+		WRAPPERS.put(byte.class, Byte.class);
+		WRAPPERS.put(short.class, Short.class);
+		WRAPPERS.put(char.class, Character.class);
+		WRAPPERS.put(int.class, Integer.class);
+		WRAPPERS.put(long.class, Long.class);
+		WRAPPERS.put(float.class, Float.class);
+		WRAPPERS.put(double.class, Double.class);
+	}
+
+	/**
+	 * 基本类型转为包装类，其余原样返回
+	 */
+	static Class<?> wrap(Class<?> type) {
+		Class<?> wrapper = WRAPPERS.get(type);
+		return null == wrapper ? type : wrapper;
+	}
+
+	/**
+	 * @return 无法转换时返回 null
+	 */
+	private static Converter converter(Class<?> from, Class<?> to) {
+		Class<?> source = wrap(from);
+		Class<?> target = wrap(to);
+		if (target.isAssignableFrom(source)) {
+			return IDENTITY;
+		}
+		if (target == String.class) {
+			return TO_STRING;
+		}
+		if (Number.class.isAssignableFrom(source) && isNumber(target)) {
+			return numberConverter(target);
+		}
+		if (source == String.class) {
+			return parser(target);
+		}
+		return null;
+	}
+
+	private static boolean isNumber(Class<?> type) {
+		return type == Byte.class || type == Short.class || type == Integer.class
+				|| type == Long.class || type == Float.class || type == Double.class;
+	}
+
+	private static Converter numberConverter(final Class<?> target) {
+		return new Converter() {
+			@Override
+			public Object convert(Object value) {
+				Number number = (Number) value;
+				if (target == Integer.class) {
+					return number.intValue();
+				} else if (target == Long.class) {
+					return number.longValue();
+				} else if (target == Double.class) {
+					return number.doubleValue();
+				} else if (target == Float.class) {
+					return number.floatValue();
+				} else if (target == Short.class) {
+					return number.shortValue();
+				}
+				return number.byteValue();
+			}
+		};
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Converter parser(final Class<?> target) {
+		if (!isNumber(target) && target != Boolean.class && target != Character.class && !target.isEnum()) {
+			return null;
+		}
+		return new Converter() {
+			@Override
+			public Object convert(Object value) {
+				String str = (String) value;
+				if (target == Character.class) {
+					return str.isEmpty() ? null : str.charAt(0);
+				}
+				str = str.trim();
+				if (target == Integer.class) {
+					return Integer.valueOf(str);
+				} else if (target == Long.class) {
+					return Long.valueOf(str);
+				} else if (target == Double.class) {
+					return Double.valueOf(str);
+				} else if (target == Float.class) {
+					return Float.valueOf(str);
+				} else if (target == Short.class) {
+					return Short.valueOf(str);
+				} else if (target == Byte.class) {
+					return Byte.valueOf(str);
+				} else if (target == Boolean.class) {
+					return Boolean.valueOf(str);
+				}
+				return Enum.valueOf((Class<? extends Enum>) target, str);
+			}
+		};
+	}
+}
@@ -0,0 +1,144 @@
+package com.holy.jutil.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 构造方法访问器，由 {@link Reflect#constructorAccessor(Class, Class[])} 创建，可长期持有并多线程共用
+ * <p>
+ *     查找和 setAccessible 只做一次。{@link Reflectable} 类的 public 构造方法绑定到编译期生成的 {@link ReflectIndex}，
+ *     0 ~ 3 个参数的 newInstance 检查参数类型后直接调用生成代码，不分配参数数组；其他情况使用缓存的 {@link Constructor}。
+ *     参数个数、类型不符抛出 IllegalArgumentException，构造方法抛出的异常包装为 {@link InvocationTargetException}。
+ * </p>
+ * @param <T>
+ */
+public final class ConstructorAccessor<T> {
+	private final Constructor<T> constructor;
+	/**
+	 * 生成的索引，构造方法未收录时为 null
+	 */
+	private final ReflectIndex index;
+	private final int slot;
+	private final Class<?>[] paramTypes;
+	private final Class<?>[] boxedTypes;
+
+	private ConstructorAccessor(Constructor<T> constructor, ReflectIndex index, int slot) {
+		this.constructor = constructor;
+		this.index = index;
+		this.slot = slot;
+		this.paramTypes = constructor.getParameterTypes();
+		this.boxedTypes = Accessors.boxed(paramTypes);
+	}
+
+	/**
+	 * @param constructor 所属类不能是抽象类
+	 */
+	static <T> ConstructorAccessor<T> of(Constructor<T> constructor) {
+		constructor.setAccessible(true);
+		Class<T> owner = constructor.getDeclaringClass();
+		ReflectIndex index = Reflect.indexFor(owner);
+		int slot = null == index ? -1 : index.indexOf(Reflect.indexKey(owner.getName(), "<init>", constructor.getParameterTypes()));
+		return new ConstructorAccessor<>(constructor, slot < 0 ? null : index, slot);
+	}
+
+	public Constructor<T> getConstructor() {
+		return constructor;
+	}
+
+	/**
+	 * 是否直接调用生成代码
+	 * @return
+	 */
+	public boolean isIndexed() {
+		return null != index;
+	}
+
+	private boolean accepts(int i, Object arg) {
+		return Accessors.accepts(paramTypes[i], boxedTypes[i], arg);
+	}
+
+	@SuppressWarnings("unchecked")
+	public T newInstance() throws InvocationTargetException {
+		if (null != index && 0 == paramTypes.length) {
+			try {
+				return (T) index.invoke0(slot, null);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		return newInstanceWith();
+	}
+
+	@SuppressWarnings("unchecked")
+	public T newInstance(Object arg0) throws InvocationTargetException {
+		if (null != index && 1 == paramTypes.length && accepts(0, arg0)) {
+			try {
+				return (T) index.invoke1(slot, null, arg0);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		return newInstanceWith(arg0);
+	}
+
+	@SuppressWarnings("unchecked")
+	public T newInstance(Object arg0, Object arg1) throws InvocationTargetException {
+		if (null != index && 2 == paramTypes.length && accepts(0, arg0) && accepts(1, arg1)) {
+			try {
+				return (T) index.invoke2(slot, null, arg0, arg1);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		return newInstanceWith(arg0, arg1);
+	}
+
+	@SuppressWarnings("unchecked")
+	public T newInstance(Object arg0, Object arg1, Object arg2) throws InvocationTargetException {
+		if (null != index && 3 == paramTypes.length && accepts(0, arg0) && accepts(1, arg1) && accepts(2, arg2)) {
+			try {
+				return (T) index.invoke3(slot, null, arg0, arg1, arg2);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		return newInstanceWith(arg0, arg1, arg2);
+	}
+
+	/**
+	 * 任意个数参数
+	 * @param args
+	 * @return
+	 * @throws InvocationTargetException
+	 */
+	@SuppressWarnings("unchecked")
+	public T newInstanceWith(Object... args) throws InvocationTargetException {
+		if (null != index && matches(args)) {
+			try {
+				return (T) index.invoke(slot, null, args);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		try {
+			return constructor.newInstance(args);
+		} catch (IllegalAccessException e) {
+			throw Accessors.inaccessible(e);
+		} catch (InstantiationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private boolean matches(Object[] args) {
+		int count = null == args ? 0 : args.length;
+		if (count != paramTypes.length) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			if (!accepts(i, args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,95 @@
+package com.holy.jutil.reflect;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * 成员变量访问器，由 {@link Reflect#fieldAccessor(Class, String)} 创建，可长期持有并多线程共用
+ * <p>
+ *     查找和 setAccessible 只做一次。{@link Reflectable} 类的 public 成员变量绑定到编译期生成的 {@link ReflectIndex}，
+ *     检查实例和值的类型后直接读写（final 成员变量的写入除外）；其他情况读写缓存的 {@link Field}。
+ *     值类型不符时抛出 IllegalArgumentException。
+ * </p>
+ */
+public final class FieldAccessor {
+	private final Field field;
+	/**
+	 * 生成的索引，成员变量未收录时为 null
+	 */
+	private final ReflectIndex index;
+	private final int slot;
+	/**
+	 * 实例成员的所属类，静态成员为 null
+	 */
+	private final Class<?> owner;
+	private final Class<?> boxedType;
+	private final boolean writable;
+
+	private FieldAccessor(Field field, ReflectIndex index, int slot) {
+		this.field = field;
+		this.index = index;
+		this.slot = slot;
+		this.owner = Modifier.isStatic(field.getModifiers()) ? null : field.getDeclaringClass();
+		this.boxedType = BeanCopier.wrap(field.getType());
+		this.writable = !Modifier.isFinal(field.getModifiers());
+	}
+
+	static FieldAccessor of(Field field) {
+		field.setAccessible(true);
+		Class<?> owner = field.getDeclaringClass();
+		ReflectIndex index = Reflect.indexFor(owner);
+		int slot = null == index ? -1 : index.indexOf(owner.getName() + "#" + field.getName());
+		return new FieldAccessor(field, slot < 0 ? null : index, slot);
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	public Class<?> getType() {
+		return field.getType();
+	}
+
+	/**
+	 * 是否直接读写
+	 * @return
+	 */
+	public boolean isIndexed() {
+		return null != index;
+	}
+
+	private boolean accepts(Object target) {
+		return null == owner || owner.isInstance(target);
+	}
+
+	/**
+	 * @param target 实例，静态成员传 null
+	 * @return
+	 */
+	public Object get(Object target) {
+		if (null != index && accepts(target)) {
+			return index.get(slot, target);
+		}
+		try {
+			return field.get(target);
+		} catch (IllegalAccessException e) {
+			throw Accessors.inaccessible(e);
+		}
+	}
+
+	/**
+	 * @param target 实例，静态成员传 null
+	 * @param value
+	 */
+	public void set(Object target, Object value) {
+		if (null != index && writable && accepts(target) && Accessors.accepts(field.getType(), boxedType, value)) {
+			index.set(slot, target, value);
+			return;
+		}
+		try {
+			field.set(target, value);
+		} catch (IllegalAccessException e) {
+			throw Accessors.inaccessible(e);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.holy.jutil.reflect;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 方法访问器，由 {@link Reflect#methodAccessor(Class, String, Class[])} 创建，可长期持有并多线程共用
+ * <p>
+ *     查找和 setAccessible 只做一次。{@link Reflectable} 类的 public 方法绑定到编译期生成的 {@link ReflectIndex}，
+ *     0 ~ 3 个参数的 invoke 检查实例和参数类型后直接调用生成代码，不分配参数数组、不经过 {@link Method#invoke(Object, Object...)}；
+ *     其他方法以及类型不完全匹配（需要拓宽转换、类型不符、基本类型传 null）的调用使用缓存的 {@link Method}。
+ *     不使用 MethodHandle：invokeExact 编译为 invoke-polymorphic，Android API 26 以下无法 dex。
+ * </p>
+ * <p>
+ *     异常与 {@link Method#invoke(Object, Object...)} 一致：参数个数、类型不符抛出 IllegalArgumentException，
+ *     目标方法抛出的异常包装为 {@link InvocationTargetException}。
+ * </p>
+ */
+public final class MethodAccessor {
+	private final Method method;
+	/**
+	 * 生成的索引，方法未收录时为 null
+	 */
+	private final ReflectIndex index;
+	private final int slot;
+	/**
+	 * 实例方法的所属类，静态方法为 null
+	 */
+	private final Class<?> owner;
+	private final Class<?>[] paramTypes;
+	private final Class<?>[] boxedTypes;
+
+	private MethodAccessor(Method method, ReflectIndex index, int slot) {
+		this.method = method;
+		this.index = index;
+		this.slot = slot;
+		this.owner = Modifier.isStatic(method.getModifiers()) ? null : method.getDeclaringClass();
+		this.paramTypes = method.getParameterTypes();
+		this.boxedTypes = Accessors.boxed(paramTypes);
+	}
+
+	static MethodAccessor of(Method method) {
+		method.setAccessible(true);
+		Class<?> owner = method.getDeclaringClass();
+		ReflectIndex index = Reflect.indexFor(owner);
+		int slot = null == index ? -1 : index.indexOf(Reflect.indexKey(owner.getName(), method.getName(), method.getParameterTypes()));
+		return new MethodAccessor(method, slot < 0 ? null : index, slot);
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	/**
+	 * 是否直接调用生成代码
+	 * @return
+	 */
+	public boolean isIndexed() {
+		return null != index;
+	}
+
+	private boolean accepts(Object target) {
+		return null == owner || owner.isInstance(target);
+	}
+
+	private boolean accepts(int i, Object arg) {
+		return Accessors.accepts(paramTypes[i], boxedTypes[i], arg);
+	}
+
+	/**
+	 * @param target 实例，静态方法传 null
+	 * @return 返回值，void 方法返回 null
+	 * @throws InvocationTargetException
+	 */
+	public Object invoke(Object target) throws InvocationTargetException {
+		if (null != index && 0 == paramTypes.length && accepts(target)) {
+			try {
+				return index.invoke0(slot, target);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		return invokeWith(target);
+	}
+
+	public Object invoke(Object target, Object arg0) throws InvocationTargetException {
+		if (null != index && 1 == paramTypes.length && accepts(target) && accepts(0, arg0)) {
+			try {
+				return index.invoke1(slot, target, arg0);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		return invokeWith(target, arg0);
+	}
+
+	public Object invoke(Object target, Object arg0, Object arg1) throws InvocationTargetException {
+		if (null != index && 2 == paramTypes.length && accepts(target) && accepts(0, arg0) && accepts(1, arg1)) {
+			try {
+				return index.invoke2(slot, target, arg0, arg1);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		return invokeWith(target, arg0, arg1);
+	}
+
+	public Object invoke(Object target, Object arg0, Object arg1, Object arg2) throws InvocationTargetException {
+		if (null != index && 3 == paramTypes.length && accepts(target)
+				&& accepts(0, arg0) && accepts(1, arg1) && accepts(2, arg2)) {
+			try {
+				return index.invoke3(slot, target, arg0, arg1, arg2);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		return invokeWith(target, arg0, arg1, arg2);
+	}
+
+	/**
+	 * 任意个数参数
+	 * @param target 实例，静态方法传 null
+	 * @param args
+	 * @return
+	 * @throws InvocationTargetException
+	 */
+	public Object invokeWith(Object target, Object... args) throws InvocationTargetException {
+		if (null != index && matches(target, args)) {
+			try {
+				return index.invoke(slot, target, args);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		try {
+			return method.invoke(target, args);
+		} catch (IllegalAccessException e) {
+			throw Accessors.inaccessible(e);
+		}
+	}
+
+	private boolean matches(Object target, Object[] args) {
+		int count = null == args ? 0 : args.length;
+		if (count != paramTypes.length || !accepts(target)) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			if (!accepts(i, args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
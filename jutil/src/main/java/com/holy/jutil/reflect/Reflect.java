@@ -4,6 +4,12 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * 封装反射简单实用
@@ -13,6 +19,22 @@ import java.lang.reflect.Method;
 public class Reflect {
 	private Reflect() {}
 
+	private static final String CONSTRUCTOR_NAME = "<init>";
+	private static final Object[] NO_ARGS = new Object[0];
+	private static final Object NOT_INDEXED = new Object();
+	private static final Object indexLock = new Object();
+	private static volatile IndexEntry[] indexes;
+
+	private static final class IndexEntry {
+		final ReflectIndex index;
+		final ClassLoader loader;
+
+		IndexEntry(ReflectIndex index) {
+			this.index = index;
+			this.loader = index.getClass().getClassLoader();
+		}
+	}
+
 	/**
 	 * 反射创建实例
 	 * @param clazz
@@ -27,7 +49,7 @@ public class Reflect {
 	public static Object newInstance(Class clazz, Class[] paramTypes, Object... params)
 			throws NoSuchMethodException, IllegalAccessException, InvocationTargetException,
 			InstantiationException {
-		Constructor constructor = clazz.getConstructor(paramTypes);
+		Constructor constructor = constructor(clazz, paramTypes);
 		return constructor.newInstance(params);
 	}
 
@@ -48,6 +70,10 @@ public class Reflect {
 			ClassLoader classLoader, String clazzName, Class[] paramTypes, Object... params
 	) throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException,
 			InvocationTargetException, InstantiationException {
+		Object indexed = invokeIndexed(classLoader, clazzName, CONSTRUCTOR_NAME, paramTypes, null, params);
+		if (NOT_INDEXED != indexed) {
+			return indexed;
+		}
 		Class clazz = classLoader.loadClass(clazzName);
 		return newInstance(clazz, paramTypes, params);
 	}
@@ -71,9 +97,8 @@ public class Reflect {
 		if (null == instance) {
 			instance = clazz;
 		}
-		Method method = clazz.getDeclaredMethod(methodName, paramTypes);
-		method.setAccessible(true);
-		return method.invoke(instance, paramObjs);
+		// 已有 Class 时不拼接索引键，缓存的访问器对收录的方法同样直接调用生成代码
+		return methodAccessor(clazz, methodName, paramTypes).invokeWith(instance, paramObjs);
 	}
 
 	/**
@@ -93,6 +118,10 @@ public class Reflect {
 	public static Object invoke(
 		Object obj, ClassLoader classLoader, String clazzName, String methodName, Class[] paramTypes, Object... paramObjs
 	) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, ClassNotFoundException {
+		Object indexed = invokeIndexed(classLoader, clazzName, methodName, paramTypes, obj, paramObjs);
+		if (NOT_INDEXED != indexed) {
+			return indexed;
+		}
 		Class clazz = classLoader.loadClass(clazzName);
 		return invoke(obj, clazz, methodName, paramTypes, paramObjs);
 	}
@@ -112,8 +141,7 @@ public class Reflect {
 		if (null == instance) {
 			instance = clazz;
 		}
-		Field field = clazz.getField(fieldName);
-		field.setAccessible(true);
+		Field field = publicField(clazz, fieldName);
 		field.set(instance, fieldValue);
 	}
 
@@ -150,8 +178,7 @@ public class Reflect {
 		if (null == instance) {
 			instance = clazz;
 		}
-		Field field = clazz.getField(fieldName);
-		field.setAccessible(true);
+		Field field = publicField(clazz, fieldName);
 		return field.get(instance);
 	}
 
@@ -172,4 +199,438 @@ public class Reflect {
 		Class clazz = classLoader.loadClass(clazzName);
 		return getField(instance, clazz, fieldName);
 	}
+
+	/**
+	 * 在类、父类及所有接口中查找成员变量（任意访问级别），结果（包括找不到）会缓存
+	 * <p>
+	 *     查找顺序：clazz 及其父类（子类优先），然后是各级实现的接口；找不到时不抛异常
+	 * </p>
+	 * @param clazz
+	 * @param fieldName
+	 * @return 已 setAccessible 的成员变量，找不到返回 null
+	 */
+	public static Field findField(Class<?> clazz, String fieldName) {
+		Object cached = ReflectCache.get(ReflectCache.HIERARCHY_FIELD, clazz, fieldName, null);
+		if (cached instanceof Field) {
+			return (Field) cached;
+		}
+		if (cached == ReflectCache.MISS) {
+			return null;
+		}
+		Field found = null;
+		search:
+		for (Class<?> c : hierarchy(clazz)) {
+			for (Field field : c.getDeclaredFields()) {
+				if (field.getName().equals(fieldName)) {
+					found = field;
+					break search;
+				}
+			}
+		}
+		if (null != found) {
+			found.setAccessible(true);
+		}
+		ReflectCache.put(ReflectCache.HIERARCHY_FIELD, clazz, fieldName, null, null == found ? ReflectCache.MISS : found);
+		return found;
+	}
+
+	/**
+	 * 在类、父类及所有接口中查找参数类型完全一致的方法（任意访问级别），结果（包括找不到）会缓存
+	 * <p>
+	 *     查找顺序同 {@link #findField(Class, String)}，同一类中优先非桥接方法；找不到时不抛异常
+	 * </p>
+	 * @param clazz
+	 * @param methodName
+	 * @param paramTypes
+	 * @return 已 setAccessible 的方法，找不到返回 null
+	 */
+	public static Method findMethod(Class<?> clazz, String methodName, Class<?>... paramTypes) {
+		Object cached = ReflectCache.get(ReflectCache.HIERARCHY_METHOD, clazz, methodName, paramTypes);
+		if (cached instanceof Method) {
+			return (Method) cached;
+		}
+		if (cached == ReflectCache.MISS) {
+			return null;
+		}
+		Class<?>[] types = null == paramTypes ? new Class<?>[0] : paramTypes;
+		Method found = null;
+		search:
+		for (Class<?> c : hierarchy(clazz)) {
+			for (Method method : c.getDeclaredMethods()) {
+				if (method.getName().equals(methodName) && Arrays.equals(method.getParameterTypes(), types)) {
+					found = method;
+					if (!method.isBridge()) {
+						break search;
+					}
+				}
+			}
+			if (null != found) {
+				break;
+			}
+		}
+		if (null != found) {
+			found.setAccessible(true);
+		}
+		ReflectCache.put(ReflectCache.HIERARCHY_METHOD, clazz, methodName, paramTypes, null == found ? ReflectCache.MISS : found);
+		return found;
+	}
+
+	/**
+	 * clazz 及其父类，然后是各级接口（去重）
+	 */
+	private static List<Class<?>> hierarchy(Class<?> clazz) {
+		List<Class<?>> classes = new ArrayList<>();
+		for (Class<?> c = clazz; null != c; c = c.getSuperclass()) {
+			classes.add(c);
+		}
+		Set<Class<?>> interfaces = new LinkedHashSet<>();
+		for (int i = 0; i < classes.size(); i++) {
+			collectInterfaces(classes.get(i), interfaces);
+		}
+		classes.addAll(interfaces);
+		return classes;
+	}
+
+	private static void collectInterfaces(Class<?> clazz, Set<Class<?>> interfaces) {
+		for (Class<?> face : clazz.getInterfaces()) {
+			if (interfaces.add(face)) {
+				collectInterfaces(face, interfaces);
+			}
+		}
+	}
+
+	/**
+	 * 方法访问器，查找规则同 {@link #invoke(Object, Class, String, Class[], Object...)}，结果会缓存
+	 * @param clazz
+	 * @param methodName
+	 * @param paramTypes
+	 * @return
+	 * @throws NoSuchMethodException
+	 */
+	public static MethodAccessor methodAccessor(Class<?> clazz, String methodName, Class<?>... paramTypes)
+			throws NoSuchMethodException {
+		Object cached = ReflectCache.get(ReflectCache.METHOD_ACCESSOR, clazz, methodName, paramTypes);
+		if (cached instanceof MethodAccessor) {
+			return (MethodAccessor) cached;
+		}
+		MethodAccessor accessor = MethodAccessor.of(declaredMethod(clazz, methodName, paramTypes));
+		ReflectCache.put(ReflectCache.METHOD_ACCESSOR, clazz, methodName, paramTypes, accessor);
+		return accessor;
+	}
+
+	/**
+	 * 方法访问器，不缓存
+	 * @param method
+	 * @return
+	 */
+	public static MethodAccessor methodAccessor(Method method) {
+		return MethodAccessor.of(method);
+	}
+
+	/**
+	 * 成员变量访问器，查找规则同 {@link #getField(Object, Class, String)}，结果会缓存
+	 * @param clazz
+	 * @param fieldName
+	 * @return
+	 * @throws NoSuchFieldException
+	 */
+	public static FieldAccessor fieldAccessor(Class<?> clazz, String fieldName) throws NoSuchFieldException {
+		Object cached = ReflectCache.get(ReflectCache.FIELD_ACCESSOR, clazz, fieldName, null);
+		if (cached instanceof FieldAccessor) {
+			return (FieldAccessor) cached;
+		}
+		FieldAccessor accessor = FieldAccessor.of(publicField(clazz, fieldName));
+		ReflectCache.put(ReflectCache.FIELD_ACCESSOR, clazz, fieldName, null, accessor);
+		return accessor;
+	}
+
+	/**
+	 * 成员变量访问器，不缓存
+	 * @param field
+	 * @return
+	 */
+	public static FieldAccessor fieldAccessor(Field field) {
+		return FieldAccessor.of(field);
+	}
+
+	/**
+	 * 构造方法访问器，查找规则同 {@link #newInstance(Class, Class[], Object...)}，结果会缓存
+	 * @param clazz
+	 * @param paramTypes
+	 * @param <T>
+	 * @return
+	 * @throws NoSuchMethodException
+	 * @throws InstantiationException 抽象类或接口
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ConstructorAccessor<T> constructorAccessor(Class<T> clazz, Class<?>... paramTypes)
+			throws NoSuchMethodException, InstantiationException {
+		Object cached = ReflectCache.get(ReflectCache.CONSTRUCTOR_ACCESSOR, clazz, null, paramTypes);
+		if (cached instanceof ConstructorAccessor) {
+			return (ConstructorAccessor<T>) cached;
+		}
+		ConstructorAccessor<T> accessor = constructorAccessor((Constructor<T>) constructor(clazz, paramTypes));
+		ReflectCache.put(ReflectCache.CONSTRUCTOR_ACCESSOR, clazz, null, paramTypes, accessor);
+		return accessor;
+	}
+
+	/**
+	 * 构造方法访问器，不缓存
+	 * @param constructor
+	 * @param <T>
+	 * @return
+	 * @throws InstantiationException 抽象类或接口
+	 */
+	public static <T> ConstructorAccessor<T> constructorAccessor(Constructor<T> constructor)
+			throws InstantiationException {
+		if (Modifier.isAbstract(constructor.getDeclaringClass().getModifiers())) {
+			throw new InstantiationException(constructor.getDeclaringClass().getName());
+		}
+		return ConstructorAccessor.of(constructor);
+	}
+
+	/**
+	 * 注册编译期生成的反射索引，按类名或 Class 创建实例、调用方法时优先使用
+	 * <p>
+	 *     默认名称的索引（{@link ReflectIndex#DEFAULT_CLASS_NAME}）会自动加载，不需要注册
+	 * </p>
+	 * @param index
+	 */
+	public static void register(ReflectIndex index) {
+		synchronized (indexLock) {
+			IndexEntry[] current = indexes();
+			IndexEntry[] next = Arrays.copyOf(current, current.length + 1);
+			next[current.length] = new IndexEntry(index);
+			indexes = next;
+		}
+	}
+
+	private static IndexEntry[] indexes() {
+		IndexEntry[] current = indexes;
+		if (null == current) {
+			synchronized (indexLock) {
+				current = indexes;
+				if (null == current) {
+					ReflectIndex generated = loadGeneratedIndex();
+					current = null == generated ? new IndexEntry[0] : new IndexEntry[] {new IndexEntry(generated)};
+					indexes = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private static ReflectIndex loadGeneratedIndex() {
+		ClassLoader[] loaders = {Reflect.class.getClassLoader(), Thread.currentThread().getContextClassLoader()};
+		for (ClassLoader loader : loaders) {
+			try {
+				return (ReflectIndex) Class.forName(ReflectIndex.DEFAULT_CLASS_NAME, true, loader).newInstance();
+			} catch (Exception | LinkageError e) {
+				// 没有生成索引
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 访问器绑定用：收录了该类、且与该类由同一个 ClassLoader 加载的索引
+	 * @param clazz
+	 * @return 没有时返回 null
+	 */
+	static ReflectIndex indexFor(Class<?> clazz) {
+		ClassLoader loader = clazz.getClassLoader();
+		String className = clazz.getName();
+		for (IndexEntry entry : indexes()) {
+			if (entry.loader == loader && entry.index.contains(className)) {
+				return entry.index;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 通过索引调用
+	 * <p>
+	 *     参数与参数类型不完全匹配（个数不同、类型不符、基本类型传 null 或需要拓宽转换）或实例成员的实例不是所属类的对象（包括 null）时不走索引，
+	 *     由反射按原有规则转换或抛出 IllegalArgumentException，因此索引调用抛出的异常都来自成员本身
+	 * </p>
+	 * @param loader 调用方的类加载器
+	 * @return 未收录返回 {@link #NOT_INDEXED}
+	 */
+	private static Object invokeIndexed(
+			ClassLoader loader, String className, String name, Class<?>[] paramTypes, Object target, Object[] args
+	) throws InvocationTargetException {
+		IndexEntry[] entries = indexes();
+		String key = null;
+		for (IndexEntry entry : entries) {
+			// 索引由 loader 或其祖先加载即可（按双亲委派能加载到同一个类）
+			if (!isAncestor(entry.loader, loader)) {
+				continue;
+			}
+			// 先按类名过滤，未收录的类不拼接成员键
+			if (!entry.index.contains(className)) {
+				continue;
+			}
+			if (null == key) {
+				key = indexKey(className, name, paramTypes);
+			}
+			int index = entry.index.indexOf(key);
+			if (index >= 0) {
+				Object[] actual = null == args ? NO_ARGS : args;
+				if (!argumentsMatch(paramTypes, actual)
+						|| !(entry.index.isStatic(index) || entry.index.isInstance(index, target))) {
+					return NOT_INDEXED;
+				}
+				try {
+					return entry.index.invoke(index, target, actual);
+				} catch (Throwable e) {
+					throw new InvocationTargetException(e);
+				}
+			}
+		}
+		return NOT_INDEXED;
+	}
+
+	/**
+	 * 参数能否不经转换直接传给索引生成的强制转换
+	 */
+	private static boolean argumentsMatch(Class<?>[] paramTypes, Object[] args) {
+		int count = null == paramTypes ? 0 : paramTypes.length;
+		if (args.length != count) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			Class<?> type = paramTypes[i];
+			Object arg = args[i];
+			if (type.isPrimitive()) {
+				if (null == arg || arg.getClass() != BeanCopier.wrap(type)) {
+					return false;
+				}
+			} else if (null != arg && !type.isInstance(arg)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isAncestor(ClassLoader ancestor, ClassLoader loader) {
+		if (null == ancestor) {
+			return true;
+		}
+		for (ClassLoader l = loader; null != l; l = l.getParent()) {
+			if (l == ancestor) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 索引成员键，格式见 {@link ReflectIndex}
+	 */
+	static String indexKey(String className, String name, Class<?>[] paramTypes) {
+		StringBuilder builder = new StringBuilder(className).append('#').append(name).append('(');
+		if (null != paramTypes) {
+			for (int i = 0; i < paramTypes.length; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				builder.append(null == paramTypes[i] ? "null" : paramTypes[i].getName());
+			}
+		}
+		return builder.append(')').toString();
+	}
+
+	/**
+	 * 清除由 classLoader 加载的类的反射缓存，卸载插件时调用
+	 * @param classLoader
+	 */
+	public static void clearCache(ClassLoader classLoader) {
+		ReflectCache.evict(classLoader);
+	}
+
+	/**
+	 * 清除全部反射缓存
+	 */
+	public static void clearCache() {
+		ReflectCache.clear();
+	}
+
+	/**
+	 * 缓存的 {@link Class#getConstructor(Class[])}
+	 */
+	static Constructor<?> constructor(Class<?> clazz, Class<?>[] paramTypes) throws NoSuchMethodException {
+		Object cached = ReflectCache.get(ReflectCache.PUBLIC_CONSTRUCTOR, clazz, null, paramTypes);
+		if (cached instanceof Constructor) {
+			return (Constructor<?>) cached;
+		}
+		if (cached == ReflectCache.MISS) {
+			throw new NoSuchMethodException(clazz.getName() + ".<init>" + typesToString(paramTypes));
+		}
+		try {
+			Constructor<?> constructor = clazz.getConstructor(paramTypes);
+			ReflectCache.put(ReflectCache.PUBLIC_CONSTRUCTOR, clazz, null, paramTypes, constructor);
+			return constructor;
+		} catch (NoSuchMethodException e) {
+			ReflectCache.put(ReflectCache.PUBLIC_CONSTRUCTOR, clazz, null, paramTypes, ReflectCache.MISS);
+			throw e;
+		}
+	}
+
+	/**
+	 * 缓存的 {@link Class#getDeclaredMethod(String, Class[])}，已 setAccessible
+	 */
+	static Method declaredMethod(Class<?> clazz, String methodName, Class<?>[] paramTypes) throws NoSuchMethodException {
+		Object cached = ReflectCache.get(ReflectCache.DECLARED_METHOD, clazz, methodName, paramTypes);
+		if (cached instanceof Method) {
+			return (Method) cached;
+		}
+		if (cached == ReflectCache.MISS) {
+			throw new NoSuchMethodException(clazz.getName() + "." + methodName + typesToString(paramTypes));
+		}
+		try {
+			Method method = clazz.getDeclaredMethod(methodName, paramTypes);
+			method.setAccessible(true);
+			ReflectCache.put(ReflectCache.DECLARED_METHOD, clazz, methodName, paramTypes, method);
+			return method;
+		} catch (NoSuchMethodException e) {
+			ReflectCache.put(ReflectCache.DECLARED_METHOD, clazz, methodName, paramTypes, ReflectCache.MISS);
+			throw e;
+		}
+	}
+
+	/**
+	 * 缓存的 {@link Class#getField(String)}，已 setAccessible
+	 */
+	static Field publicField(Class<?> clazz, String fieldName) throws NoSuchFieldException {
+		Object cached = ReflectCache.get(ReflectCache.PUBLIC_FIELD, clazz, fieldName, null);
+		if (cached instanceof Field) {
+			return (Field) cached;
+		}
+		if (cached == ReflectCache.MISS) {
+			throw new NoSuchFieldException(fieldName);
+		}
+		try {
+			Field field = clazz.getField(fieldName);
+			field.setAccessible(true);
+			ReflectCache.put(ReflectCache.PUBLIC_FIELD, clazz, fieldName, null, field);
+			return field;
+		} catch (NoSuchFieldException e) {
+			ReflectCache.put(ReflectCache.PUBLIC_FIELD, clazz, fieldName, null, ReflectCache.MISS);
+			throw e;
+		}
+	}
+
+	private static String typesToString(Class<?>[] paramTypes) {
+		StringBuilder builder = new StringBuilder("(");
+		if (null != paramTypes) {
+			for (int i = 0; i < paramTypes.length; i++) {
+				if (i > 0) {
+					builder.append(", ");
+				}
+				builder.append(null == paramTypes[i] ? "null" : paramTypes[i].getName());
+			}
+		}
+		return builder.append(')').toString();
+	}
 }
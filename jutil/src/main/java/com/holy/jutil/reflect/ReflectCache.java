@@ -0,0 +1,343 @@
+package com.holy.jutil.reflect;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 反射成员缓存
+ * <p>
+ *     键为 (类, 成员种类, 名称, 参数类型)，参数类型按 Class 比较，不同 ClassLoader 加载的同名类互不干扰；
+ *     值为已 setAccessible 的 Method / Field / Constructor 或对应的访问器，找不到的成员记为 {@link #MISS}，避免重复查找。
+ * </p>
+ * <p>
+ *     条目按类分组，存放在键涉及的类中 ClassLoader 最深的那个类（持有类）名下，组本身只被持有类的弱引用键索引，
+ *     组内的键也只弱引用类。持有类由 jutil 所在的 ClassLoader 或其祖先加载时（不会先于缓存卸载）值为强引用；
+ *     否则（插件等）值为弱引用，缓存不会让插件 ClassLoader 多存活，代价是 GC 后需要重新查找。
+ *     ClassLoader 互不相关的类组合不缓存。卸载插件时也可以调用 {@link #evict(ClassLoader)} 立即清除。
+ * </p>
+ */
+final class ReflectCache {
+	private ReflectCache() {}
+
+	static final int DECLARED_METHOD = 0;
+	static final int PUBLIC_FIELD = 1;
+	static final int PUBLIC_CONSTRUCTOR = 2;
+	static final int METHOD_ACCESSOR = 3;
+	static final int FIELD_ACCESSOR = 4;
+	static final int CONSTRUCTOR_ACCESSOR = 5;
+	static final int BEAN_COPIER = 6;
+	static final int HIERARCHY_FIELD = 7;
+	static final int HIERARCHY_METHOD = 8;
+
+	/**
+	 * 负缓存标记
+	 */
+	static final Object MISS = new Object();
+
+	private static final Class<?>[] NO_TYPES = new Class<?>[0];
+	private static final ClassLoader PINNED_LOADER = ReflectCache.class.getClassLoader();
+
+	private static final ConcurrentHashMap<ClassKey, ClassCache> classes = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<Class<?>> queue = new ReferenceQueue<>();
+
+	/**
+	 * @return 成员、{@link #MISS}，未缓存或已被回收时返回 null
+	 */
+	static Object get(int kind, Class<?> owner, String name, Class<?>[] paramTypes) {
+		Class<?>[] types = null == paramTypes ? NO_TYPES : paramTypes;
+		Class<?> holder = holder(owner, types);
+		if (null == holder) {
+			return null;
+		}
+		ClassCache group = classes.get(new LookupClassKey(holder));
+		if (null == group) {
+			return null;
+		}
+		Object value = group.members.get(new LookupKey(kind, owner, name, types));
+		if (value instanceof Reference) {
+			return ((Reference<?>) value).get();
+		}
+		return value;
+	}
+
+	/**
+	 * @param member 成员或 {@link #MISS}
+	 */
+	static void put(int kind, Class<?> owner, String name, Class<?>[] paramTypes, Object member) {
+		purge();
+		Class<?>[] types = null == paramTypes ? NO_TYPES : paramTypes;
+		Class<?> holder = holder(owner, types);
+		if (null == holder) {
+			return;
+		}
+		ClassCache group = classes.get(new LookupClassKey(holder));
+		if (null == group) {
+			ClassCache created = new ClassCache(isAncestor(holder.getClassLoader(), PINNED_LOADER));
+			group = classes.putIfAbsent(new WeakClassKey(holder, queue), created);
+			if (null == group) {
+				group = created;
+			}
+		}
+		Object value = member == MISS || group.pinned ? member : new WeakReference<>(member);
+		group.members.put(new WeakKey(kind, owner, name, types), value);
+	}
+
+	/**
+	 * 清除由 loader 加载的类的所有缓存
+	 * @param loader
+	 */
+	static void evict(ClassLoader loader) {
+		Iterator<ClassKey> iterator = classes.keySet().iterator();
+		while (iterator.hasNext()) {
+			Class<?> holder = iterator.next().get();
+			if (null == holder || holder.getClassLoader() == loader) {
+				iterator.remove();
+			}
+		}
+		purge();
+	}
+
+	static void clear() {
+		classes.clear();
+		purge();
+	}
+
+	static int size() {
+		int size = 0;
+		for (ClassCache group : classes.values()) {
+			size += group.members.size();
+		}
+		return size;
+	}
+
+	/**
+	 * 移除类已被回收的组
+	 */
+	private static void purge() {
+		Reference<? extends Class<?>> ref;
+		while (null != (ref = queue.poll())) {
+			classes.remove((WeakClassKey) ref);
+		}
+	}
+
+	/**
+	 * owner 和参数类型中 ClassLoader 最深的类，ClassLoader 互不为祖先时返回 null
+	 */
+	private static Class<?> holder(Class<?> owner, Class<?>[] types) {
+		Class<?> holder = owner;
+		ClassLoader holderLoader = owner.getClassLoader();
+		for (Class<?> type : types) {
+			if (null == type || type.isPrimitive()) {
+				continue;
+			}
+			ClassLoader loader = type.getClassLoader();
+			if (loader == holderLoader || isAncestor(loader, holderLoader)) {
+				continue;
+			}
+			if (!isAncestor(holderLoader, loader)) {
+				return null;
+			}
+			holder = type;
+			holderLoader = loader;
+		}
+		return holder;
+	}
+
+	/**
+	 * ancestor 是否是 loader 本身或其祖先，null 表示启动类加载器
+	 */
+	private static boolean isAncestor(ClassLoader ancestor, ClassLoader loader) {
+		if (null == ancestor) {
+			return true;
+		}
+		for (ClassLoader l = loader; null != l; l = l.getParent()) {
+			if (l == ancestor) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static final class ClassCache {
+		final boolean pinned;
+		final ConcurrentHashMap<Key, Object> members = new ConcurrentHashMap<>();
+
+		ClassCache(boolean pinned) {
+			this.pinned = pinned;
+		}
+	}
+
+	private interface ClassKey {
+		Class<?> get();
+	}
+
+	/**
+	 * 查询用的临时类键，强引用类
+	 */
+	private static final class LookupClassKey implements ClassKey {
+		private final Class<?> type;
+
+		LookupClassKey(Class<?> type) {
+			this.type = type;
+		}
+
+		@Override
+		public Class<?> get() {
+			return type;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(type);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof ClassKey && ((ClassKey) o).get() == type;
+		}
+	}
+
+	/**
+	 * 存入缓存的类键，只弱引用类
+	 */
+	private static final class WeakClassKey extends WeakReference<Class<?>> implements ClassKey {
+		private final int hash;
+
+		WeakClassKey(Class<?> type, ReferenceQueue<Class<?>> queue) {
+			super(type, queue);
+			this.hash = System.identityHashCode(type);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			Class<?> type = get();
+			return null != type && o instanceof ClassKey && ((ClassKey) o).get() == type;
+		}
+	}
+
+	private abstract static class Key {
+		final int kind;
+		final String name;
+		final int hash;
+
+		Key(int kind, Class<?> owner, String name, Class<?>[] paramTypes) {
+			this.kind = kind;
+			this.name = name;
+			int h = System.identityHashCode(owner);
+			h = 31 * h + kind;
+			h = 31 * h + (null == name ? 0 : name.hashCode());
+			for (Class<?> type : paramTypes) {
+				h = 31 * h + System.identityHashCode(type);
+			}
+			this.hash = h;
+		}
+
+		abstract Class<?> owner();
+
+		abstract int paramCount();
+
+		abstract Class<?> paramType(int index);
+
+		@Override
+		public final int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public final boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			Class<?> owner = owner();
+			if (hash != other.hash || kind != other.kind || null == owner || owner != other.owner()
+					|| paramCount() != other.paramCount()) {
+				return false;
+			}
+			if (null == name ? null != other.name : !name.equals(other.name)) {
+				return false;
+			}
+			for (int i = 0; i < paramCount(); i++) {
+				if (paramType(i) != other.paramType(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * 查询用的临时键，强引用类
+	 */
+	private static final class LookupKey extends Key {
+		private final Class<?> owner;
+		private final Class<?>[] paramTypes;
+
+		LookupKey(int kind, Class<?> owner, String name, Class<?>[] paramTypes) {
+			super(kind, owner, name, paramTypes);
+			this.owner = owner;
+			this.paramTypes = paramTypes;
+		}
+
+		@Override
+		Class<?> owner() {
+			return owner;
+		}
+
+		@Override
+		int paramCount() {
+			return paramTypes.length;
+		}
+
+		@Override
+		Class<?> paramType(int index) {
+			return paramTypes[index];
+		}
+	}
+
+	/**
+	 * 存入缓存的键，只弱引用类；参数类型由持有类的 ClassLoader 或其祖先加载，不会先于持有类被回收
+	 */
+	private static final class WeakKey extends Key {
+		private final WeakReference<Class<?>> owner;
+		private final WeakReference<?>[] paramTypes;
+
+		WeakKey(int kind, Class<?> owner, String name, Class<?>[] paramTypes) {
+			super(kind, owner, name, paramTypes);
+			this.owner = new WeakReference<Class<?>>(owner);
+			this.paramTypes = new WeakReference<?>[paramTypes.length];
+			for (int i = 0; i < paramTypes.length; i++) {
+				this.paramTypes[i] = null == paramTypes[i] ? null : new WeakReference<>(paramTypes[i]);
+			}
+		}
+
+		@Override
+		Class<?> owner() {
+			return owner.get();
+		}
+
+		@Override
+		int paramCount() {
+			return paramTypes.length;
+		}
+
+		@Override
+		Class<?> paramType(int index) {
+			return null == paramTypes[index] ? null : (Class<?>) paramTypes[index].get();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.holy.jutil.reflect;
+
+/**
+ * 编译期生成的反射索引，由 jutil-processor 根据 {@link Reflectable} 生成
+ * <p>
+ *     默认生成类 {@link #DEFAULT_CLASS_NAME}，{@link Reflect} 首次使用时自动加载；
+ *     通过处理器参数 {@code -Ajutil.reflectIndex=完整类名} 改名的索引需调用 {@link Reflect#register(ReflectIndex)}。
+ * </p>
+ * <p>
+ *     成员键格式：{@code 类名#方法名(参数类型名,...)}，构造方法名为 {@code <init>}，成员变量为 {@code 类名#变量名}，
+ *     类名和参数类型名与 {@link Class#getName()} 一致。
+ * </p>
+ * <p>
+ *     invokeN、get、set 不检查参数：调用方须保证实例和参数类型正确（基本类型为对应的包装类且不为 null），
+ *     否则生成代码中的强制转换会抛出 ClassCastException / NullPointerException。
+ * </p>
+ */
+public interface ReflectIndex {
+	String DEFAULT_CLASS_NAME = "com.holy.jutil.reflect.GeneratedReflectIndex";
+
+	/**
+	 * 是否收录了该类的成员，未收录时 {@link Reflect} 不再拼接成员键查找
+	 * @param className 与 {@link Class#getName()} 一致
+	 * @return
+	 */
+	boolean contains(String className);
+
+	/**
+	 * @param key 成员键
+	 * @return 成员编号，未收录返回 -1
+	 */
+	int indexOf(String key);
+
+	/**
+	 * @param index
+	 * @return 静态方法、静态成员变量和构造方法返回 true
+	 */
+	boolean isStatic(int index);
+
+	/**
+	 * @param index
+	 * @param target
+	 * @return target 是否是成员所属类的实例，null 返回 false
+	 */
+	boolean isInstance(int index, Object target);
+
+	/**
+	 * 调用成员
+	 * @param index {@link #indexOf(String)} 返回的编号
+	 * @param target 实例，构造方法和静态方法忽略
+	 * @param args 参数
+	 * @return 返回值，构造方法返回新实例，void 方法返回 null
+	 * @throws Throwable 成员本身抛出的异常
+	 */
+	Object invoke(int index, Object target, Object[] args) throws Throwable;
+
+	/**
+	 * 调用无参数的成员，不分配参数数组
+	 * @param index
+	 * @param target 实例，构造方法和静态方法忽略
+	 * @return 同 {@link #invoke(int, Object, Object[])}
+	 * @throws Throwable 成员本身抛出的异常
+	 */
+	Object invoke0(int index, Object target) throws Throwable;
+
+	Object invoke1(int index, Object target, Object arg0) throws Throwable;
+
+	Object invoke2(int index, Object target, Object arg0, Object arg1) throws Throwable;
+
+	Object invoke3(int index, Object target, Object arg0, Object arg1, Object arg2) throws Throwable;
+
+	/**
+	 * 读取成员变量
+	 * @param index
+	 * @param target 实例，静态成员忽略
+	 * @return 基本类型装箱后返回
+	 */
+	Object get(int index, Object target);
+
+	/**
+	 * 写入成员变量，final 成员变量未生成，抛出 IllegalArgumentException
+	 * @param index
+	 * @param target 实例，静态成员忽略
+	 * @param value
+	 */
+	void set(int index, Object target, Object value);
+}
@@ -0,0 +1,22 @@
+package com.holy.jutil.reflect;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记需要编译期生成反射索引的类
+ * <p>
+ *     模块添加 {@code annotationProcessor project(':jutil-processor')} 后，
+ *     注解类的 public 构造方法和 public 方法会被收录到生成的 {@link ReflectIndex} 中，
+ *     {@link Reflect} 按类名创建实例、调用方法时直接调用，不再加载类和反射查找。
+ *     类本身必须是 public 的顶层类或 public static 内部类。
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Reflectable {
+}
@@ -0,0 +1,276 @@
+package com.holy.jutil.security;
+
+import com.holy.jutil.io.BufferPool;
+import com.holy.jutil.io.FileUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES/CTR 多线程大文件加解密
+ * <p>
+ *     CTR 模式每个分组的密钥流只与计数器有关，文件按 16 字节对齐切段后，
+ *     每段从 iv + 段起始分组号 开始计数，各线程独立加密并按位置写回，
+ *     结果与单线程顺序 CTR 完全一致。CTR 加解密是同一个运算。
+ * </p>
+ */
+public class AESCtr {
+	private AESCtr() {}
+
+	private static final String TRANSFORMATION = "AES/CTR/NoPadding";
+	private static final int BLOCK_SIZE = 16;
+	private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+	/**
+	 * 每段最小长度，太小的文件不值得切分
+	 */
+	private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+
+	private static volatile ExecutorService sharedService;
+
+	/**
+	 * 多线程加密，线程数为 CPU 核数
+	 * @param in
+	 * @param out
+	 * @param key 16/24/32 字节
+	 * @param iv 16 字节初始计数器
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static void encrypt(File in, File out, byte[] key, byte[] iv) throws IOException, GeneralSecurityException {
+		crypt(in, out, key, iv, CPU_COUNT);
+	}
+
+	/**
+	 * 多线程解密，线程数为 CPU 核数
+	 * @param in
+	 * @param out
+	 * @param key
+	 * @param iv
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static void decrypt(File in, File out, byte[] key, byte[] iv) throws IOException, GeneralSecurityException {
+		crypt(in, out, key, iv, CPU_COUNT);
+	}
+
+	/**
+	 * 多线程加解密
+	 * @param in
+	 * @param out
+	 * @param key
+	 * @param iv
+	 * @param threads 切分段数，<= 1 时在当前线程顺序执行；各段在共享的线程池（CPU 核数个守护线程）中执行
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static void crypt(File in, File out, byte[] key, byte[] iv, int threads)
+			throws IOException, GeneralSecurityException {
+		FileInputStream fis = null;
+		RandomAccessFile raf = null;
+		try {
+			fis = new FileInputStream(in);
+			raf = new RandomAccessFile(out, "rw");
+			FileChannel iChannel = fis.getChannel();
+			FileChannel oChannel = raf.getChannel();
+			long length = iChannel.size();
+			int segments = segmentCount(length, threads);
+			crypt(iChannel, oChannel, 0, length, key, iv, segments > 1 ? service() : null, segments);
+		} finally {
+			FileUtil.closeQuietly(fis);
+			FileUtil.closeQuietly(raf);
+		}
+	}
+
+	/**
+	 * 按位置多线程加解密，in 的 [position, position + length) 写到 out 的 [0, length)
+	 * <p>
+	 *     只使用 FileChannel 的按位置读写，不改变两个 channel 的当前位置
+	 * </p>
+	 * @param in
+	 * @param out
+	 * @param position in 的起始位置
+	 * @param length 处理长度
+	 * @param key
+	 * @param iv
+	 * @param service 执行各段的线程池，为 null 时在当前线程顺序执行
+	 * @param segments 切分段数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static void crypt(final FileChannel in, final FileChannel out, final long position, long length,
+							 final byte[] key, final byte[] iv, ExecutorService service, int segments)
+			throws IOException, GeneralSecurityException {
+		if (null == iv || iv.length != BLOCK_SIZE) {
+			throw new IllegalArgumentException("iv must be " + BLOCK_SIZE + " bytes");
+		}
+		if (out.size() > length) {
+			out.truncate(length);
+		}
+		if (null == service || segments <= 1 || length <= BLOCK_SIZE) {
+			cryptSegment(in, out, position, 0, length, key, iv);
+			return;
+		}
+
+		// 段长度按分组对齐，保证每段从整数个计数器开始
+		long blocks = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		long segmentBlocks = (blocks + segments - 1) / segments;
+		long segmentSize = segmentBlocks * BLOCK_SIZE;
+
+		List<Future<Void>> futures = new ArrayList<>();
+		for (long start = 0; start < length; start += segmentSize) {
+			final long offset = start;
+			final long size = Math.min(segmentSize, length - start);
+			futures.add(service.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					cryptSegment(in, out, position, offset, size, key, iv);
+					return null;
+				}
+			}));
+		}
+
+		try {
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("AES/CTR interrupted");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof GeneralSecurityException) {
+				throw (GeneralSecurityException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		} finally {
+			// 不中断：中断会关闭调用方的 FileChannel（ClosedByInterruptException）
+			for (Future<Void> future : futures) {
+				future.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * 计算 iv 向后偏移 blockIndex 个分组后的计数器（128 位大端整数相加，溢出回绕）
+	 * @param iv
+	 * @param blockIndex
+	 * @return
+	 */
+	static byte[] counterAt(byte[] iv, long blockIndex) {
+		byte[] counter = iv.clone();
+		long carry = blockIndex;
+		for (int i = BLOCK_SIZE - 1; i >= 0 && carry != 0; i--) {
+			long sum = (counter[i] & 0xFF) + (carry & 0xFF);
+			counter[i] = (byte) sum;
+			carry = (carry >>> 8) + (sum >>> 8);
+		}
+		return counter;
+	}
+
+	/**
+	 * 共享线程池，首次使用时创建，空闲 60s 后线程退出
+	 */
+	private static ExecutorService service() {
+		ExecutorService current = sharedService;
+		if (null == current) {
+			synchronized (AESCtr.class) {
+				current = sharedService;
+				if (null == current) {
+					ThreadPoolExecutor executor = new ThreadPoolExecutor(CPU_COUNT, CPU_COUNT, 60, TimeUnit.SECONDS,
+							new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+								private final AtomicInteger count = new AtomicInteger();
+
+								@Override
+								public Thread newThread(Runnable r) {
+									Thread thread = new Thread(r, "AESCtr-" + count.incrementAndGet());
+									thread.setDaemon(true);
+									return thread;
+								}
+							});
+					executor.allowCoreThreadTimeOut(true);
+					current = executor;
+					sharedService = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private static int segmentCount(long length, int threads) {
+		if (threads <= 1) {
+			return 1;
+		}
+		long bySize = length / MIN_SEGMENT_SIZE;
+		return (int) Math.max(1, Math.min(threads, bySize));
+	}
+
+	/**
+	 * 顺序处理一段 [offset, offset + size)
+	 */
+	private static void cryptSegment(FileChannel in, FileChannel out, long position, long offset, long size,
+									 byte[] key, byte[] iv) throws IOException, GeneralSecurityException {
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"),
+				new IvParameterSpec(counterAt(iv, offset / BLOCK_SIZE)));
+
+		BufferPool pool = BufferPool.getDefault();
+		byte[] inArray = pool.acquire();
+		byte[] outArray = pool.acquire();
+		try {
+			ByteBuffer inBuf = ByteBuffer.wrap(inArray);
+			ByteBuffer outBuf = ByteBuffer.wrap(outArray);
+			long done = 0;
+			while (done < size) {
+				inBuf.clear();
+				inBuf.limit((int) Math.min(inArray.length, size - done));
+				while (inBuf.hasRemaining()) {
+					int n = in.read(inBuf, position + offset + done + inBuf.position());
+					if (n == -1) {
+						throw new IOException("Unexpected end of file at " + (offset + done + inBuf.position()));
+					}
+				}
+				inBuf.flip();
+				outBuf.clear();
+				cipher.update(inBuf, outBuf);
+				outBuf.flip();
+				long writePos = offset + done;
+				while (outBuf.hasRemaining()) {
+					writePos += out.write(outBuf, writePos);
+				}
+				done += inBuf.limit();
+			}
+			outBuf.clear();
+			cipher.doFinal(ByteBuffer.allocate(0), outBuf);
+		} finally {
+			pool.release(inArray);
+			pool.release(outArray);
+		}
+	}
+}
@@ -0,0 +1,432 @@
+package com.holy.jutil.security;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * 查表实现的 Base64 / Base32 编解码
+ * <p>
+ *     直接读写 ByteBuffer，不产生中间拷贝；也可以包装 InputStream / OutputStream 做流式编解码，
+ *     内存占用与数据大小无关，适合对大块加密数据做编码。
+ * </p>
+ * <p>
+ *     解码时忽略空白字符，缺省的补位 '=' 也可以正常解码
+ * </p>
+ */
+public class BaseNCodec {
+	/**
+	 * StandardCharsets 需要 Android API 19，且须在下面的编解码器之前初始化
+	 */
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	/**
+	 * RFC 4648 标准 Base64
+	 */
+	public static final BaseNCodec BASE64 = new BaseNCodec(
+			"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/", 6, false);
+	/**
+	 * RFC 4648 URL 安全 Base64（'-' '_' 代替 '+' '/'）
+	 */
+	public static final BaseNCodec BASE64_URL = new BaseNCodec(
+			"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_", 6, false);
+	/**
+	 * RFC 4648 Base32，解码时不区分大小写
+	 */
+	public static final BaseNCodec BASE32 = new BaseNCodec(
+			"ABCDEFGHIJKLMNOPQRSTUVWXYZ234567", 5, true);
+
+	private static final byte PAD = '=';
+	private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+
+	private final byte[] encodeTable;
+	private final byte[] decodeTable = new byte[256];
+	private final int bits; // 每个字符表示的位数
+	private final int mask;
+	private final int blockBytes; // 每组字节数
+	private final int blockChars; // 每组字符数
+	private final boolean padding;
+
+	private BaseNCodec(String alphabet, int bits, boolean ignoreCase) {
+		this(alphabet.getBytes(ASCII), bits, ignoreCase, true);
+	}
+
+	private BaseNCodec(byte[] encodeTable, int bits, boolean ignoreCase, boolean padding) {
+		this.encodeTable = encodeTable;
+		this.bits = bits;
+		this.mask = (1 << bits) - 1;
+		this.blockChars = 8 / gcd(8, bits);
+		this.blockBytes = blockChars * bits / 8;
+		this.padding = padding;
+
+		for (int i = 0; i < decodeTable.length; i++) {
+			decodeTable[i] = -1;
+		}
+		for (int i = 0; i < encodeTable.length; i++) {
+			decodeTable[encodeTable[i]] = (byte) i;
+			if (ignoreCase) {
+				decodeTable[Character.toLowerCase(encodeTable[i])] = (byte) i;
+			}
+		}
+	}
+
+	/**
+	 * 不输出补位 '=' 的编码器，解码规则不变
+	 * @return
+	 */
+	public BaseNCodec withoutPadding() {
+		if (!padding) {
+			return this;
+		}
+		BaseNCodec codec = new BaseNCodec(encodeTable, bits, false, false);
+		System.arraycopy(decodeTable, 0, codec.decodeTable, 0, decodeTable.length);
+		return codec;
+	}
+
+	/**
+	 * 编码后的长度
+	 * @param length 原始字节数
+	 * @return
+	 */
+	public long encodedLength(long length) {
+		if (padding) {
+			return (length + blockBytes - 1) / blockBytes * blockChars;
+		}
+		return (length * 8 + bits - 1) / bits;
+	}
+
+	/**
+	 * 解码后的最大长度
+	 * @param length 编码字符数
+	 * @return
+	 */
+	public long maxDecodedLength(long length) {
+		return length * bits / 8;
+	}
+
+	public String encode(byte[] data) {
+		byte[] out = new byte[(int) encodedLength(data.length)];
+		ByteBuffer dst = ByteBuffer.wrap(out);
+		encode(ByteBuffer.wrap(data), dst);
+		return new String(out, 0, dst.position(), ASCII);
+	}
+
+	public byte[] decode(CharSequence str) {
+		int length = str.length();
+		byte[] src = new byte[length];
+		for (int i = 0; i < length; i++) {
+			char c = str.charAt(i);
+			if (c > 0xFF) {
+				throw new IllegalArgumentException("Illegal character at " + i);
+			}
+			src[i] = (byte) c;
+		}
+		ByteBuffer dst = ByteBuffer.allocate((int) maxDecodedLength(length));
+		decode(ByteBuffer.wrap(src), dst);
+		byte[] result = new byte[dst.position()];
+		System.arraycopy(dst.array(), 0, result, 0, result.length);
+		return result;
+	}
+
+	/**
+	 * 编码 src 剩余的全部字节，ASCII 结果写入 dst
+	 * @param src
+	 * @param dst 剩余空间至少 encodedLength(src.remaining())
+	 * @return 写入的字节数
+	 */
+	public int encode(ByteBuffer src, ByteBuffer dst) {
+		int start = dst.position();
+		encodeBlocks(src, dst);
+		encodeTail(src, dst);
+		return dst.position() - start;
+	}
+
+	/**
+	 * 解码 src 剩余的全部字符，结果写入 dst
+	 * @param src ASCII 编码的字符
+	 * @param dst 剩余空间至少 maxDecodedLength(src.remaining())
+	 * @return 写入的字节数
+	 * @throws IllegalArgumentException 含非法字符
+	 */
+	public int decode(ByteBuffer src, ByteBuffer dst) {
+		int start = dst.position();
+		DecodeState state = new DecodeState();
+		decode(src, dst, state);
+		finish(dst, state);
+		return dst.position() - start;
+	}
+
+	/**
+	 * 包装为编码输出流，写入原始字节、向 out 输出编码后的字符，close 时补齐末尾分组并关闭 out
+	 * @param out
+	 * @return
+	 */
+	public OutputStream wrap(OutputStream out) {
+		return new EncodingOutputStream(out);
+	}
+
+	/**
+	 * 包装为解码输入流，从 in 读取编码字符、读出原始字节
+	 * @param in
+	 * @return
+	 */
+	public InputStream wrap(InputStream in) {
+		return new DecodingInputStream(in);
+	}
+
+	/**
+	 * 编码所有完整分组
+	 */
+	private void encodeBlocks(ByteBuffer src, ByteBuffer dst) {
+		final int topShift = (blockChars - 1) * bits;
+		while (src.remaining() >= blockBytes) {
+			long acc = 0;
+			for (int i = 0; i < blockBytes; i++) {
+				acc = (acc << 8) | (src.get() & 0xFF);
+			}
+			for (int shift = topShift; shift >= 0; shift -= bits) {
+				dst.put(encodeTable[(int) (acc >>> shift) & mask]);
+			}
+		}
+	}
+
+	/**
+	 * 编码最后不足一组的字节，按需补位
+	 */
+	private void encodeTail(ByteBuffer src, ByteBuffer dst) {
+		int remaining = src.remaining();
+		if (remaining == 0) {
+			return;
+		}
+		long acc = 0;
+		for (int i = 0; i < blockBytes; i++) {
+			acc = (acc << 8) | (i < remaining ? src.get() & 0xFF : 0);
+		}
+		int chars = (remaining * 8 + bits - 1) / bits;
+		int shift = (blockChars - 1) * bits;
+		for (int i = 0; i < blockChars; i++, shift -= bits) {
+			if (i < chars) {
+				dst.put(encodeTable[(int) (acc >>> shift) & mask]);
+			} else if (padding) {
+				dst.put(PAD);
+			} else {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * 解码状态，流式解码时跨多次调用保存未满一组的字符
+	 */
+	private static class DecodeState {
+		long acc;
+		int count;
+		boolean padded;
+	}
+
+	private void decode(ByteBuffer src, ByteBuffer dst, DecodeState state) {
+		while (src.hasRemaining()) {
+			int c = src.get() & 0xFF;
+			int value = decodeTable[c];
+			if (value >= 0) {
+				if (state.padded) {
+					throw new IllegalArgumentException("Data after padding");
+				}
+				state.acc = (state.acc << bits) | value;
+				if (++state.count == blockChars) {
+					for (int shift = (blockBytes - 1) * 8; shift >= 0; shift -= 8) {
+						dst.put((byte) (state.acc >>> shift));
+					}
+					state.acc = 0;
+					state.count = 0;
+				}
+			} else if (c == PAD) {
+				state.padded = true;
+			} else if (c != '\r' && c != '\n' && c != ' ' && c != '\t') {
+				throw new IllegalArgumentException("Illegal character: " + c);
+			}
+		}
+	}
+
+	/**
+	 * 输出最后不足一组的字符对应的字节
+	 */
+	private void finish(ByteBuffer dst, DecodeState state) {
+		if (state.count == 0) {
+			return;
+		}
+		int bytes = state.count * bits / 8;
+		if (bytes == 0) {
+			throw new IllegalArgumentException("Truncated input");
+		}
+		long acc = state.acc << ((blockChars - state.count) * bits);
+		int shift = (blockBytes - 1) * 8;
+		for (int i = 0; i < bytes; i++, shift -= 8) {
+			dst.put((byte) (acc >>> shift));
+		}
+		state.acc = 0;
+		state.count = 0;
+	}
+
+	private static int gcd(int a, int b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+
+	/**
+	 * 编码输出流
+	 */
+	private class EncodingOutputStream extends FilterOutputStream {
+		private final byte[] pending = new byte[blockBytes];
+		private int pendingLen = 0;
+		private final ByteBuffer outBuf = ByteBuffer.allocate(STREAM_BUFFER_SIZE / blockChars * blockChars);
+		private final int chunkBytes = outBuf.capacity() / blockChars * blockBytes;
+		private boolean closed = false;
+
+		EncodingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException("Stream closed");
+			}
+			// 先补齐上次剩余的分组
+			if (pendingLen > 0) {
+				int n = Math.min(len, blockBytes - pendingLen);
+				System.arraycopy(b, off, pending, pendingLen, n);
+				pendingLen += n;
+				off += n;
+				len -= n;
+				if (pendingLen < blockBytes) {
+					return;
+				}
+				outBuf.clear();
+				encodeBlocks(ByteBuffer.wrap(pending), outBuf);
+				out.write(outBuf.array(), 0, outBuf.position());
+				pendingLen = 0;
+			}
+			// 完整分组直接从调用方数组编码
+			int full = len / blockBytes * blockBytes;
+			ByteBuffer src = ByteBuffer.wrap(b, off, full);
+			while (src.hasRemaining()) {
+				int chunk = Math.min(chunkBytes, src.remaining());
+				ByteBuffer slice = src.slice();
+				slice.limit(chunk);
+				outBuf.clear();
+				encodeBlocks(slice, outBuf);
+				out.write(outBuf.array(), 0, outBuf.position());
+				src.position(src.position() + chunk);
+			}
+			pendingLen = len - full;
+			System.arraycopy(b, off + full, pending, 0, pendingLen);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				if (pendingLen > 0) {
+					outBuf.clear();
+					encodeTail(ByteBuffer.wrap(pending, 0, pendingLen), outBuf);
+					out.write(outBuf.array(), 0, outBuf.position());
+					pendingLen = 0;
+				}
+				out.flush();
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * 解码输入流
+	 */
+	private class DecodingInputStream extends FilterInputStream {
+		private final byte[] inBuf = new byte[STREAM_BUFFER_SIZE];
+		private final ByteBuffer outBuf = ByteBuffer.allocate(STREAM_BUFFER_SIZE * bits / 8 + blockBytes);
+		private final DecodeState state = new DecodeState();
+		private boolean eof = false;
+
+		DecodingInputStream(InputStream in) {
+			super(in);
+			outBuf.flip(); // 初始为空
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] one = new byte[1];
+			int n = read(one, 0, 1);
+			return n == -1 ? -1 : one[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			while (!outBuf.hasRemaining()) {
+				if (eof) {
+					return -1;
+				}
+				fill();
+			}
+			int n = Math.min(len, outBuf.remaining());
+			outBuf.get(b, off, n);
+			return n;
+		}
+
+		private void fill() throws IOException {
+			outBuf.clear();
+			try {
+				int n = in.read(inBuf);
+				if (n == -1) {
+					eof = true;
+					finish(outBuf, state);
+				} else {
+					decode(ByteBuffer.wrap(inBuf, 0, n), outBuf, state);
+				}
+			} catch (IllegalArgumentException e) {
+				throw new IOException(e.getMessage(), e);
+			} finally {
+				outBuf.flip();
+			}
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			byte[] buffer = new byte[(int) Math.min(n, STREAM_BUFFER_SIZE)];
+			long skipped = 0;
+			while (skipped < n) {
+				int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+				if (r == -1) {
+					break;
+				}
+				skipped += r;
+			}
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return outBuf.remaining();
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
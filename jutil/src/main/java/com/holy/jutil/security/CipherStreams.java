@@ -0,0 +1,284 @@
+package com.holy.jutil.security;
+
+import com.holy.jutil.io.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 流式 AES 加解密实现，对外入口见 {@link Crypter}
+ * <p>
+ *     数据按块处理，缓冲区来自 {@link BufferPool}，内存占用与数据大小无关
+ * </p>
+ * <p>
+ *     GCM 模式采用分段格式：
+ *     <pre>
+ *     header  : version(1) | salt(16) | noncePrefix(7)
+ *     segment : ciphertext(<= SEGMENT_SIZE) | tag(16)
+ *     </pre>
+ *     每段 nonce = noncePrefix(7) | segmentIndex(4) | lastFlag(1)，header 作为每段的 AAD，
+ *     可检测段的篡改、重排与截断
+ * </p>
+ * <p>
+ *     每个流使用 HmacSHA256(key, salt) 截取 key 长度派生的子密钥，而不是直接使用 key：
+ *     只靠 7 字节随机前缀区分流时，同一 key 加密约 2^28 个流后前缀重复的概率就不可忽略，
+ *     前缀重复即 nonce 重复，GCM 会泄露明文异或并可伪造。
+ *     派生后 nonce 只需在同一子密钥内唯一，同一 key 可加密的流数由 16 字节 salt 决定，实际不受限
+ * </p>
+ */
+final class CipherStreams {
+	private CipherStreams() {}
+
+	private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+	private static final byte GCM_VERSION = 1;
+	private static final int GCM_SALT_SIZE = 16;
+	private static final int GCM_PREFIX_SIZE = 7;
+	private static final int GCM_HEADER_SIZE = 1 + GCM_SALT_SIZE + GCM_PREFIX_SIZE;
+	private static final int GCM_NONCE_SIZE = 12;
+	private static final int GCM_TAG_SIZE = 16;
+	/**
+	 * 每段明文大小，加上 tag 后不超过一个默认缓冲区
+	 */
+	static final int GCM_SEGMENT_SIZE = BufferPool.DEFAULT_BUFFER_SIZE - 32;
+	/**
+	 * ECB 每次读入的大小，预留一个分组给 update 的输出
+	 */
+	private static final int ECB_CHUNK_SIZE = BufferPool.DEFAULT_BUFFER_SIZE - 32;
+
+	private static final SecureRandom secureRandom = new SecureRandom();
+
+	private static final ThreadLocal<Cipher> gcmLocal = new ThreadLocal<>();
+	private static final ThreadLocal<Mac> hmacLocal = new ThreadLocal<>();
+
+	private static Cipher getGCMCipher() throws GeneralSecurityException {
+		Cipher cipher = gcmLocal.get();
+		if (null == cipher) {
+			cipher = Cipher.getInstance(GCM_TRANSFORMATION);
+			gcmLocal.set(cipher);
+		}
+		return cipher;
+	}
+
+	/**
+	 * 由 header 中的 salt 派生本流的子密钥，长度与 key 相同
+	 */
+	private static SecretKeySpec streamKey(byte[] key, byte[] header) throws GeneralSecurityException {
+		Mac mac = hmacLocal.get();
+		if (null == mac) {
+			mac = Mac.getInstance("HmacSHA256");
+			hmacLocal.set(mac);
+		}
+		mac.init(new SecretKeySpec(key, "HmacSHA256"));
+		mac.update(header, 1, GCM_SALT_SIZE);
+		byte[] derived = mac.doFinal();
+		if (key.length > derived.length) {
+			throw new InvalidKeyException("Invalid AES key length: " + key.length);
+		}
+		return new SecretKeySpec(derived, 0, key.length, "AES");
+	}
+
+	private static BufferPool pool() {
+		return BufferPool.getDefault();
+	}
+
+	/**
+	 * AES/ECB/PKCS5Padding 流式加解密
+	 * @param mode Cipher.ENCRYPT_MODE / Cipher.DECRYPT_MODE
+	 * @param in
+	 * @param out
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	static long ecb(int mode, InputStream in, OutputStream out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		Cipher cipher = Crypter.getAESCipher(mode, key);
+		byte[] inBuf = pool().acquire();
+		byte[] outBuf = pool().acquire();
+		long written = 0;
+		try {
+			int len;
+			while ((len = in.read(inBuf, 0, ECB_CHUNK_SIZE)) != -1) {
+				int n = cipher.update(inBuf, 0, len, outBuf, 0);
+				if (n > 0) {
+					out.write(outBuf, 0, n);
+					written += n;
+				}
+			}
+			int n = cipher.doFinal(outBuf, 0);
+			if (n > 0) {
+				out.write(outBuf, 0, n);
+				written += n;
+			}
+			out.flush();
+			return written;
+		} catch (Exception e) {
+			// 中途失败时 Cipher 残留了部分分组，不能再复用
+			Crypter.evictAESCipher(mode, key);
+			throw e;
+		} finally {
+			pool().release(inBuf);
+			pool().release(outBuf);
+		}
+	}
+
+	/**
+	 * AES/GCM 分段加密
+	 * @param in
+	 * @param out
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	static long gcmEncrypt(InputStream in, OutputStream out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		Cipher cipher = getGCMCipher();
+
+		byte[] header = new byte[GCM_HEADER_SIZE];
+		byte[] random = new byte[GCM_HEADER_SIZE - 1];
+		secureRandom.nextBytes(random);
+		header[0] = GCM_VERSION;
+		System.arraycopy(random, 0, header, 1, random.length);
+		SecretKeySpec secretKey = streamKey(key, header);
+		out.write(header);
+		long written = GCM_HEADER_SIZE;
+
+		byte[] nonce = new byte[GCM_NONCE_SIZE];
+		System.arraycopy(header, 1 + GCM_SALT_SIZE, nonce, 0, GCM_PREFIX_SIZE);
+		byte[] inBuf = pool().acquire();
+		byte[] outBuf = pool().acquire();
+		try {
+			int index = 0;
+			int carry = -1; // 判断是否最后一段时多读出的一个字节
+			while (true) {
+				int len = 0;
+				if (carry >= 0) {
+					inBuf[len++] = (byte) carry;
+				}
+				len += readFully(in, inBuf, len, GCM_SEGMENT_SIZE - len);
+				carry = len == GCM_SEGMENT_SIZE ? in.read() : -1;
+				boolean last = carry < 0;
+
+				setNonce(nonce, index, last);
+				cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_SIZE * 8, nonce));
+				cipher.updateAAD(header);
+				int n = cipher.doFinal(inBuf, 0, len, outBuf, 0);
+				out.write(outBuf, 0, n);
+				written += n;
+
+				if (last) {
+					break;
+				}
+				index = nextIndex(index);
+			}
+			out.flush();
+			return written;
+		} finally {
+			pool().release(inBuf);
+			pool().release(outBuf);
+		}
+	}
+
+	/**
+	 * AES/GCM 分段解密，每段验证通过后才写出该段明文
+	 * @param in
+	 * @param out
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException 数据被篡改或截断
+	 */
+	static long gcmDecrypt(InputStream in, OutputStream out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		Cipher cipher = getGCMCipher();
+
+		byte[] header = new byte[GCM_HEADER_SIZE];
+		if (readFully(in, header, 0, GCM_HEADER_SIZE) != GCM_HEADER_SIZE || header[0] != GCM_VERSION) {
+			throw new AEADBadTagException("Invalid stream header");
+		}
+		SecretKeySpec secretKey = streamKey(key, header);
+		byte[] nonce = new byte[GCM_NONCE_SIZE];
+		System.arraycopy(header, 1 + GCM_SALT_SIZE, nonce, 0, GCM_PREFIX_SIZE);
+
+		final int segment = GCM_SEGMENT_SIZE + GCM_TAG_SIZE;
+		byte[] inBuf = pool().acquire();
+		byte[] outBuf = pool().acquire();
+		long written = 0;
+		try {
+			int index = 0;
+			int carry = -1;
+			while (true) {
+				int len = 0;
+				if (carry >= 0) {
+					inBuf[len++] = (byte) carry;
+				}
+				len += readFully(in, inBuf, len, segment - len);
+				carry = len == segment ? in.read() : -1;
+				boolean last = carry < 0;
+				if (len < GCM_TAG_SIZE) {
+					throw new AEADBadTagException("Truncated segment: " + index);
+				}
+
+				setNonce(nonce, index, last);
+				cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_SIZE * 8, nonce));
+				cipher.updateAAD(header);
+				int n = cipher.doFinal(inBuf, 0, len, outBuf, 0);
+				out.write(outBuf, 0, n);
+				written += n;
+
+				if (last) {
+					break;
+				}
+				index = nextIndex(index);
+			}
+			out.flush();
+			return written;
+		} finally {
+			pool().release(inBuf);
+			pool().release(outBuf);
+		}
+	}
+
+	private static void setNonce(byte[] nonce, int index, boolean last) {
+		nonce[GCM_PREFIX_SIZE] = (byte) (index >>> 24);
+		nonce[GCM_PREFIX_SIZE + 1] = (byte) (index >>> 16);
+		nonce[GCM_PREFIX_SIZE + 2] = (byte) (index >>> 8);
+		nonce[GCM_PREFIX_SIZE + 3] = (byte) index;
+		nonce[GCM_NONCE_SIZE - 1] = (byte) (last ? 1 : 0);
+	}
+
+	private static int nextIndex(int index) throws GeneralSecurityException {
+		if (index == -1) {
+			// 段序号用完（约 256TB），继续会导致 nonce 重复
+			throw new GeneralSecurityException("Stream too large for AES/GCM segments");
+		}
+		return index + 1;
+	}
+
+	/**
+	 * 尽量读满 len 个字节，返回实际读取数
+	 */
+	private static int readFully(InputStream in, byte[] buffer, int offset, int len) throws IOException {
+		int total = 0;
+		while (total < len) {
+			int n = in.read(buffer, offset + total, len - total);
+			if (n == -1) {
+				break;
+			}
+			total += n;
+		}
+		return total;
+	}
+}
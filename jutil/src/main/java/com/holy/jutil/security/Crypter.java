@@ -1,12 +1,23 @@
 package com.holy.jutil.security;
 
+import com.holy.jutil.io.BufferPool;
+import com.holy.jutil.io.FileUtil;
+import com.holy.jutil.rand.RandUtil;
+
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
@@ -15,11 +26,116 @@ import javax.crypto.spec.SecretKeySpec;
  * Created by fengyoutian on 2015/5/26.
  */
 public class Crypter {
+	private static final String AES_TRANSFORMATION = "AES/ECB/PKCS5Padding"; // 加解密方式/工作模式/填充方式
+	private static final int CIPHER_CACHE_SIZE = 16; // 每个线程最多缓存的已初始化Cipher数
+	private static final char[] DIGITS = "0123456789".toCharArray();
+	private static final char[] SUPER_HEX = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+	/**
+	 * 每个线程复用一个 MD5 实例，避免每次调用都查找 Provider
+	 */
+	private static final ThreadLocal<MessageDigest> md5Local = new ThreadLocal<>();
+
+	/**
+	 * 每个线程按 (mode, key) 缓存已初始化的 Cipher，省去 getInstance 和密钥扩展
+	 */
+	private static final ThreadLocal<Map<CipherKey, Cipher>> cipherLocal = new ThreadLocal<Map<CipherKey, Cipher>>() {
+		@Override
+		protected Map<CipherKey, Cipher> initialValue() {
+			return new LinkedHashMap<CipherKey, Cipher>(CIPHER_CACHE_SIZE, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<CipherKey, Cipher> eldest) {
+					return size() > CIPHER_CACHE_SIZE;
+				}
+			};
+		}
+	};
+
+	/**
+	 * Cipher 缓存的键
+	 */
+	private static class CipherKey {
+		private final int mode;
+		private final byte[] key;
+		private final int hash;
+
+		CipherKey(int mode, byte[] key) {
+			this.mode = mode;
+			this.key = key;
+			this.hash = 31 * mode + Arrays.hashCode(key);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof CipherKey)) {
+				return false;
+			}
+			CipherKey other = (CipherKey) o;
+			return mode == other.mode && Arrays.equals(key, other.key);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * 获取当前线程的 MD5 实例（已重置）
+	 *
+	 * @return
+	 * @throws NoSuchAlgorithmException
+	 */
+	static MessageDigest getMD5() throws NoSuchAlgorithmException {
+		MessageDigest md = md5Local.get();
+		if (null == md) {
+			md = MessageDigest.getInstance("MD5");
+			md5Local.set(md);
+		} else {
+			md.reset();
+		}
+		return md;
+	}
+
+	/**
+	 * 获取当前线程已按 key 初始化好的 AES Cipher
+	 *
+	 * @param mode Cipher.ENCRYPT_MODE / Cipher.DECRYPT_MODE
+	 * @param key
+	 * @return
+	 * @throws GeneralSecurityException
+	 */
+	static Cipher getAESCipher(int mode, byte[] key) throws GeneralSecurityException {
+		Map<CipherKey, Cipher> cache = cipherLocal.get();
+		CipherKey cacheKey = new CipherKey(mode, key);
+		Cipher cipher = cache.get(cacheKey);
+		if (null == cipher) {
+			Key secretKey = new SecretKeySpec(key, "AES");
+			cipher = Cipher.getInstance(AES_TRANSFORMATION);
+			cipher.init(mode, secretKey);
+			// 拷贝一份key，防止调用方修改数组后缓存错乱
+			cache.put(new CipherKey(mode, key.clone()), cipher);
+		}
+		return cipher;
+	}
+
+	/**
+	 * 出错后 Cipher 状态不确定，从缓存中移除
+	 *
+	 * @param mode
+	 * @param key
+	 */
+	static void evictAESCipher(int mode, byte[] key) {
+		cipherLocal.get().remove(new CipherKey(mode, key));
+	}
 
     public static String md5(String str) {
         String result = null;
         try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
+            MessageDigest md = getMD5();
             md.update(str.getBytes());
             byte[] b = md.digest();
 
@@ -43,11 +159,9 @@ public class Crypter {
 
     public static String md5(File file) {
          try {
-             MessageDigest md5 = MessageDigest.getInstance("MD5");
-             byte[] bytes = getByte(file);
-             if (null != bytes) {
-                 md5.update(bytes);
-                 return byte2Hex(md5.digest());
+             byte[] digest = md5Digest(file);
+             if (null != digest) {
+                 return byte2Hex(digest);
              }
          } catch (Exception e) {
              e.printStackTrace();
@@ -55,6 +169,161 @@ public class Crypter {
          return null;
     }
 
+	/**
+	 * 流式计算文件 MD5，不把整个文件读入内存
+	 *
+	 * @param file
+	 * @return 16 字节摘要，文件不存在时返回 null
+	 * @throws IOException
+	 */
+	public static byte[] md5Digest(File file) throws IOException {
+		if (null == file || !file.isFile()) {
+			return null;
+		}
+		MessageDigest md5;
+		try {
+			md5 = getMD5();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		BufferPool pool = BufferPool.getDefault();
+		byte[] buffer = pool.acquire();
+		InputStream is = null;
+		try {
+			is = new FileInputStream(file);
+			int len;
+			while ((len = is.read(buffer)) != -1) {
+				md5.update(buffer, 0, len);
+			}
+			return md5.digest();
+		} finally {
+			FileUtil.closeQuietly(is);
+			pool.release(buffer);
+		}
+	}
+
+	/**
+	 * 批量计算 MD5，结果以两个 long 返回（高 64 位在前），不生成十六进制字符串
+	 * <p>
+	 *     字符串按 UTF-8 编码到线程内复用的缓冲区，整个批次除缓冲区扩容外不分配内存
+	 * </p>
+	 *
+	 * @param src
+	 * @param dst 长度至少 2 * src.length，dst[2i] 为高 64 位，dst[2i + 1] 为低 64 位
+	 */
+	public static void md5Batch(CharSequence[] src, long[] dst) {
+		if (dst.length < src.length * 2) {
+			throw new IllegalArgumentException("dst length " + dst.length + " < " + src.length * 2);
+		}
+		for (int i = 0; i < src.length; i++) {
+			md5To(src[i], dst, i * 2);
+		}
+	}
+
+	/**
+	 * 计算 MD5（UTF-8），写入 dst[offset]（高 64 位）和 dst[offset + 1]（低 64 位）
+	 *
+	 * @param str
+	 * @param dst
+	 * @param offset
+	 */
+	public static void md5To(CharSequence str, long[] dst, int offset) {
+		byte[] digest = digestUTF8(str);
+		dst[offset] = getLong(digest, 0);
+		dst[offset + 1] = getLong(digest, 8);
+	}
+
+	/**
+	 * 计算 MD5（UTF-8），16 字节写入 dst[offset, offset + 16)
+	 *
+	 * @param str
+	 * @param dst
+	 * @param offset
+	 */
+	public static void md5To(CharSequence str, byte[] dst, int offset) {
+		System.arraycopy(digestUTF8(str), 0, dst, offset, 16);
+	}
+
+	/**
+	 * 线程内复用的编码/摘要缓冲区
+	 */
+	private static class HashScratch {
+		byte[] bytes = new byte[256];
+		final byte[] digest = new byte[16];
+	}
+
+	private static final ThreadLocal<HashScratch> scratchLocal = new ThreadLocal<HashScratch>() {
+		@Override
+		protected HashScratch initialValue() {
+			return new HashScratch();
+		}
+	};
+
+	/**
+	 * UTF-8 编码后计算 MD5，返回线程内的摘要缓冲区，调用方需立即拷走
+	 */
+	private static byte[] digestUTF8(CharSequence str) {
+		HashScratch scratch = scratchLocal.get();
+		int len = encodeUTF8(str, scratch);
+		try {
+			MessageDigest md = getMD5();
+			md.update(scratch.bytes, 0, len);
+			md.digest(scratch.digest, 0, 16);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+		return scratch.digest;
+	}
+
+	/**
+	 * 按 UTF-8 编码到 scratch.bytes，非法的单个代理字符编码为 '?'，与 String.getBytes("UTF-8") 一致
+	 *
+	 * @return 编码后的字节数
+	 */
+	private static int encodeUTF8(CharSequence str, HashScratch scratch) {
+		int length = str.length();
+		if (scratch.bytes.length < length * 3) {
+			scratch.bytes = new byte[Math.max(length * 3, scratch.bytes.length * 2)];
+		}
+		byte[] out = scratch.bytes;
+		int pos = 0;
+		for (int i = 0; i < length; i++) {
+			char c = str.charAt(i);
+			if (c < 0x80) {
+				out[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				out[pos++] = (byte) (0xC0 | (c >> 6));
+				out[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				char low;
+				if (Character.isHighSurrogate(c) && i + 1 < length
+						&& Character.isLowSurrogate(low = str.charAt(i + 1))) {
+					int cp = Character.toCodePoint(c, low);
+					out[pos++] = (byte) (0xF0 | (cp >> 18));
+					out[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+					out[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+					out[pos++] = (byte) (0x80 | (cp & 0x3F));
+					i++;
+				} else {
+					out[pos++] = '?';
+				}
+			} else {
+				out[pos++] = (byte) (0xE0 | (c >> 12));
+				out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				out[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return pos;
+	}
+
+	private static long getLong(byte[] b, int offset) {
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | (b[offset + i] & 0xFF);
+		}
+		return value;
+	}
+
     /**
      * 把一个文件转化为字节
      *
@@ -162,14 +431,7 @@ public class Crypter {
 	public static String genRandString(int len, boolean numberOnly) {
 		// String include 0-9a-zA-Z
 		char[] buffer = new char[len];
-		Random random = new Random();
-		for (int i = 0; i < len; i++) {
-			if (numberOnly) {
-				buffer[i] = String.valueOf(random.nextInt(65535) % 10).charAt(0);
-			} else {
-				buffer[i] = int2SHex(random.nextInt(65535) % 61);
-			}
-		}
+		RandUtil.fill(buffer, numberOnly ? DIGITS : SUPER_HEX);
 		return new String(buffer);
 	}
 
@@ -202,12 +464,13 @@ public class Crypter {
 	 */
 	public static byte[] decryptAES(byte[] content, byte[] key) {
 		try {
-			Key secretKey = new SecretKeySpec(key, "AES"); // 用Base64解码成byte[]之后加载key
-			// 解密
-			Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding"); // 加解密方式/工作模式/填充方式
-			cipher.init(Cipher.DECRYPT_MODE, secretKey);
+			// 解密，doFinal 之后 Cipher 回到初始化状态，可直接复用
+			Cipher cipher = getAESCipher(Cipher.DECRYPT_MODE, key);
 			return cipher.doFinal(content);
 		} catch (Exception e) {
+			if (null != key) {
+				evictAESCipher(Cipher.DECRYPT_MODE, key);
+			}
 			e.printStackTrace();
 		}
 		return null;
@@ -220,14 +483,141 @@ public class Crypter {
 	 */
 	public static byte[] encodeAES(byte[] content, byte[] key) {
 		try {
-			Key secretKey = new SecretKeySpec(key, "AES"); // 用Base64解码成byte[]之后加载key
-			// 加密
-			Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding"); // 加解密方式/工作模式/填充方式
-			cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+			// 加密，doFinal 之后 Cipher 回到初始化状态，可直接复用
+			Cipher cipher = getAESCipher(Cipher.ENCRYPT_MODE, key);
 			return cipher.doFinal(content);
 		} catch (Exception e) {
+			if (null != key) {
+				evictAESCipher(Cipher.ENCRYPT_MODE, key);
+			}
 			e.printStackTrace();
 		}
 		return null;
 	}
+
+	/**
+	 * AES流式加密（AES/ECB/PKCS5Padding），与 {@link #encodeAES(byte[], byte[])} 结果一致
+	 *
+	 * @param in 明文流，读到末尾为止，不负责关闭
+	 * @param out 密文流，不负责关闭
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static long encodeAES(InputStream in, OutputStream out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		return CipherStreams.ecb(Cipher.ENCRYPT_MODE, in, out, key);
+	}
+
+	/**
+	 * AES流式解密（AES/ECB/PKCS5Padding）
+	 *
+	 * @param in 密文流，不负责关闭
+	 * @param out 明文流，不负责关闭
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static long decryptAES(InputStream in, OutputStream out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		return CipherStreams.ecb(Cipher.DECRYPT_MODE, in, out, key);
+	}
+
+	/**
+	 * AES文件加密（AES/ECB/PKCS5Padding），从 in 的当前位置读到末尾，写到 out 的当前位置
+	 *
+	 * @param in
+	 * @param out
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static long encodeAES(FileChannel in, FileChannel out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		return encodeAES(Channels.newInputStream(in), Channels.newOutputStream(out), key);
+	}
+
+	/**
+	 * AES文件解密（AES/ECB/PKCS5Padding）
+	 *
+	 * @param in
+	 * @param out
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static long decryptAES(FileChannel in, FileChannel out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		return decryptAES(Channels.newInputStream(in), Channels.newOutputStream(out), key);
+	}
+
+	/**
+	 * AES/GCM 认证加密，按 64KB 分段处理，可用于下载/打包时边读边加密
+	 * <p>
+	 *     格式见 {@link CipherStreams}，只能用 {@link #decryptAESGCM(InputStream, OutputStream, byte[])} 解密
+	 * </p>
+	 *
+	 * @param in 明文流，不负责关闭
+	 * @param out 密文流，不负责关闭
+	 * @param key 16/24/32 字节
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static long encodeAESGCM(InputStream in, OutputStream out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		return CipherStreams.gcmEncrypt(in, out, key);
+	}
+
+	/**
+	 * AES/GCM 认证解密，每段校验通过后才写出
+	 * <p>
+	 *     抛出 {@link javax.crypto.AEADBadTagException} 时数据被篡改或截断，已写出的内容应丢弃
+	 * </p>
+	 *
+	 * @param in 密文流，不负责关闭
+	 * @param out 明文流，不负责关闭
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static long decryptAESGCM(InputStream in, OutputStream out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		return CipherStreams.gcmDecrypt(in, out, key);
+	}
+
+	/**
+	 * AES/GCM 文件认证加密
+	 *
+	 * @param in
+	 * @param out
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static long encodeAESGCM(FileChannel in, FileChannel out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		return encodeAESGCM(Channels.newInputStream(in), Channels.newOutputStream(out), key);
+	}
+
+	/**
+	 * AES/GCM 文件认证解密
+	 *
+	 * @param in
+	 * @param out
+	 * @param key
+	 * @return 写出的字节数
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static long decryptAESGCM(FileChannel in, FileChannel out, byte[] key)
+			throws IOException, GeneralSecurityException {
+		return decryptAESGCM(Channels.newInputStream(in), Channels.newOutputStream(out), key);
+	}
 }
@@ -0,0 +1,257 @@
+package com.holy.jutil.security;
+
+import com.holy.jutil.io.FileUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件 MD5 缓存
+ * <p>
+ *     以 (canonical path, size, mtime) 判断文件是否变化，未变化的文件直接返回上次的摘要，不再重新读取。
+ *     内存中保存最近使用的 maxEntries 条，{@link #save()} / {@link #close()} 时写入紧凑的二进制索引文件，
+ *     下次构造时加载，重启后依然有效。
+ * </p>
+ * <p>
+ *     文件系统 mtime 精度有限，刚修改不久（{@link #RACY_WINDOW} 内）的文件不缓存，
+ *     避免同一时间戳内再次修改且大小不变时返回旧摘要。
+ * </p>
+ */
+public class DigestCache implements Closeable {
+	private static final int INDEX_MAGIC = 0x4D443543; // "MD5C"
+	private static final int INDEX_VERSION = 1;
+	private static final int DIGEST_SIZE = 16;
+	/**
+	 * mtime 距离计算时刻小于该值的文件不缓存
+	 */
+	public static final long RACY_WINDOW = 2000;
+
+	private final File indexFile;
+	private final Map<String, Record> entries;
+	private boolean dirty = false;
+	/**
+	 * 串行化 {@link #save()}，保证后开始的保存写出的快照不会被先开始的覆盖；与 this 分开，写盘时不阻塞查询
+	 */
+	private final Object saveLock = new Object();
+
+	private static class Record {
+		final long size;
+		final long mtime;
+		final byte[] digest;
+
+		Record(long size, long mtime, byte[] digest) {
+			this.size = size;
+			this.mtime = mtime;
+			this.digest = digest;
+		}
+	}
+
+	/**
+	 * @param indexFile 索引文件，为 null 时只做内存缓存
+	 * @param maxEntries 最多缓存的文件数
+	 */
+	public DigestCache(File indexFile, final int maxEntries) {
+		this.indexFile = indexFile;
+		this.entries = new LinkedHashMap<String, Record>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Record> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		load();
+	}
+
+	/**
+	 * 取文件 MD5，文件未变化时不重新计算
+	 * @param file
+	 * @return 十六进制字符串，失败返回 null
+	 */
+	public String md5(File file) {
+		try {
+			byte[] digest = md5Digest(file);
+			if (null != digest) {
+				return Crypter.byte2Hex(digest);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * 取文件 MD5，文件未变化时不重新计算
+	 * @param file
+	 * @return 16 字节摘要（副本），文件不存在返回 null
+	 * @throws IOException
+	 */
+	public byte[] md5Digest(File file) throws IOException {
+		if (null == file || !file.isFile()) {
+			return null;
+		}
+		String path = file.getCanonicalPath();
+		long size = file.length();
+		long mtime = file.lastModified();
+		synchronized (this) {
+			Record entry = entries.get(path);
+			if (null != entry && entry.size == size && entry.mtime == mtime) {
+				return entry.digest.clone();
+			}
+		}
+
+		long start = System.currentTimeMillis();
+		byte[] digest = Crypter.md5Digest(file);
+		if (null == digest) {
+			return null;
+		}
+		// 计算期间文件被修改，或 mtime 过新，结果不可靠，不缓存
+		if (file.length() == size && file.lastModified() == mtime && start - mtime >= RACY_WINDOW) {
+			synchronized (this) {
+				entries.put(path, new Record(size, mtime, digest.clone()));
+				dirty = true;
+			}
+		}
+		return digest;
+	}
+
+	/**
+	 * 移除某个文件的缓存
+	 * @param file
+	 * @throws IOException
+	 */
+	public void invalidate(File file) throws IOException {
+		String path = file.getCanonicalPath();
+		synchronized (this) {
+			if (null != entries.remove(path)) {
+				dirty = true;
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		if (!entries.isEmpty()) {
+			entries.clear();
+			dirty = true;
+		}
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * 把缓存写入索引文件，先写临时文件再替换，写入过程中崩溃不会损坏旧索引
+	 * <p>
+	 *     多个线程同时调用时依次执行；临时文件名每次不同，共用同一索引文件的其他实例、进程也不会互相覆盖写到一半的文件
+	 * </p>
+	 * @throws IOException
+	 */
+	public void save() throws IOException {
+		if (null == indexFile) {
+			return;
+		}
+		synchronized (saveLock) {
+			write();
+		}
+	}
+
+	private void write() throws IOException {
+		List<String> paths;
+		List<Record> values;
+		synchronized (this) {
+			if (!dirty) {
+				return;
+			}
+			paths = new ArrayList<>(entries.keySet());
+			values = new ArrayList<>(entries.values());
+			dirty = false;
+		}
+
+		File parentDir = indexFile.getAbsoluteFile().getParentFile();
+		if (null != parentDir && !parentDir.exists()) {
+			parentDir.mkdirs();
+		}
+		File tmpFile = null;
+		DataOutputStream out = null;
+		try {
+			tmpFile = File.createTempFile(indexFile.getName() + "-save", ".tmp", parentDir);
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(INDEX_VERSION);
+			out.writeInt(paths.size());
+			// 按 LRU 顺序写出，加载后保持相同的淘汰顺序
+			for (int i = 0; i < paths.size(); i++) {
+				Record entry = values.get(i);
+				out.writeUTF(paths.get(i));
+				out.writeLong(entry.size);
+				out.writeLong(entry.mtime);
+				out.write(entry.digest);
+			}
+			out.close();
+			out = null;
+			if (!tmpFile.renameTo(indexFile)) {
+				indexFile.delete();
+				if (!tmpFile.renameTo(indexFile)) {
+					throw new IOException("rename " + tmpFile + " to " + indexFile + " failed");
+				}
+			}
+		} catch (IOException e) {
+			synchronized (this) {
+				dirty = true;
+			}
+			throw e;
+		} finally {
+			FileUtil.closeQuietly(out);
+			if (null != tmpFile && tmpFile.exists()) {
+				tmpFile.delete();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		save();
+	}
+
+	/**
+	 * 加载索引文件，文件损坏时丢弃已读部分以外的内容
+	 */
+	private void load() {
+		if (null == indexFile || !indexFile.isFile()) {
+			return;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String path = in.readUTF();
+				long size = in.readLong();
+				long mtime = in.readLong();
+				byte[] digest = new byte[DIGEST_SIZE];
+				in.readFully(digest);
+				entries.put(path, new Record(size, mtime, digest));
+			}
+		} catch (EOFException e) {
+			dirty = true; // 索引不完整，下次保存时重写
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			FileUtil.closeQuietly(in);
+		}
+	}
+}
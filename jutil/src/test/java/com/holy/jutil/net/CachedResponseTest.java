@@ -0,0 +1,110 @@
+package com.holy.jutil.net;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CachedResponseTest {
+	private static final long NOW = 1000000000000L;
+	private static final byte[] BODY = "body".getBytes();
+
+	@Test
+	public void invalidExpiresIsAlreadyExpired() {
+		Map<String, List<String>> headers = headers("Expires", "0", "Last-Modified", "Thu, 01 Jan 1970 00:00:00 GMT");
+		CachedResponse response = CachedResponse.create(200, headers, BODY, NOW, request());
+		assertNotNull("validator keeps it cacheable", response);
+		assertFalse(response.isFresh(NOW));
+	}
+
+	@Test
+	public void maxAgeTakesPrecedenceOverInvalidExpires() {
+		CachedResponse response = CachedResponse.create(200, headers("Cache-Control", "max-age=60", "Expires", "0"), BODY, NOW, request());
+		assertTrue(response.isFresh(NOW + 59000));
+	}
+
+	@Test
+	public void authorizedRequestCachedOnlyWhenPublic() {
+		Map<String, String> request = request("Authorization", "Bearer token");
+		assertNull(CachedResponse.create(200, headers("Cache-Control", "max-age=60"), BODY, NOW, request));
+		assertNotNull(CachedResponse.create(200, headers("Cache-Control", "public, max-age=60"), BODY, NOW, request));
+		assertNotNull(CachedResponse.create(200, headers("Cache-Control", "max-age=60"), BODY, NOW, request()));
+	}
+
+	@Test
+	public void varyHeadersMustMatch() {
+		CachedResponse response = CachedResponse.create(200, headers("Cache-Control", "max-age=60", "Vary", "Accept-Language, X-Token"),
+				BODY, NOW, request("accept-language", "en", "Accept-Encoding", "gzip"));
+		assertTrue(response.matches(request("Accept-Language", "en", "Accept-Encoding", "identity")));
+		assertFalse(response.matches(request("Accept-Language", "fr")));
+		assertFalse(response.matches(request("Accept-Language", "en", "X-Token", "a")));
+		assertFalse(response.matches(request()));
+	}
+
+	@Test
+	public void varyStarIsNotCached() {
+		assertNull(CachedResponse.create(200, headers("Cache-Control", "max-age=60", "Vary", "*"), BODY, NOW, request()));
+	}
+
+	@Test
+	public void varySurvivesSerialization() throws IOException {
+		CachedResponse response = CachedResponse.create(200, headers("Cache-Control", "max-age=60", "Vary", "Accept-Language"),
+				BODY, NOW, request("Accept-Language", "en"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		response.writeTo(out);
+		CachedResponse read = CachedResponse.readFrom(new ByteArrayInputStream(out.toByteArray()));
+		assertArrayEquals(BODY, read.getBody());
+		assertEquals(response.getExpiresTime(), read.getExpiresTime());
+		assertTrue(read.matches(request("Accept-Language", "en")));
+		assertFalse(read.matches(request("Accept-Language", "fr")));
+	}
+
+	@Test
+	public void revalidatedKeepsVary() {
+		CachedResponse response = CachedResponse.create(200, headers("ETag", "\"1\"", "Vary", "Accept-Language"),
+				BODY, NOW, request("Accept-Language", "en"));
+		CachedResponse refreshed = response.revalidated(headers("Cache-Control", "max-age=60"), NOW + 1000);
+		assertTrue(refreshed.isFresh(NOW + 2000));
+		assertFalse(refreshed.matches(request("Accept-Language", "fr")));
+	}
+
+	@Test
+	public void diskTierServesAndRemoves() throws IOException {
+		File directory = File.createTempFile("cache", "dir");
+		directory.delete();
+		TieredHttpCache cache = new TieredHttpCache(0, directory, 1024 * 1024);
+		CachedResponse response = CachedResponse.create(200, headers("Cache-Control", "max-age=60"), BODY, NOW, request());
+		cache.put("k", response);
+		assertEquals(0, cache.getMemoryBytes());
+		assertArrayEquals(BODY, cache.get("k").getBody());
+		cache.remove("k");
+		assertNull(cache.get("k"));
+		assertEquals(0, cache.getDiskBytes());
+		cache.clear();
+		directory.delete();
+	}
+
+	private static Map<String, List<String>> headers(String... pairs) {
+		Map<String, List<String>> headers = new LinkedHashMap<>();
+		for (int i = 0; i < pairs.length; i += 2) {
+			headers.put(pairs[i], Collections.singletonList(pairs[i + 1]));
+		}
+		return headers;
+	}
+
+	private static Map<String, String> request(String... pairs) {
+		Map<String, String> headers = new LinkedHashMap<>();
+		for (int i = 0; i < pairs.length; i += 2) {
+			headers.put(pairs[i], pairs[i + 1]);
+		}
+		return headers;
+	}
+}
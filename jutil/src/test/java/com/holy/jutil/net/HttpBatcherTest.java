@@ -0,0 +1,141 @@
+package com.holy.jutil.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批次顺序、close 和空闲地址的移除，使用本地 HttpServer
+ */
+public class HttpBatcherTest {
+	private HttpServer server;
+	private String base;
+	/**
+	 * 服务端按收到的顺序记录的每一项
+	 */
+	private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+				try (InputStream in = exchange.getRequestBody()) {
+					byte[] buffer = new byte[1024];
+					int len;
+					while ((len = in.read(buffer)) != -1) {
+						body.write(buffer, 0, len);
+					}
+				}
+				received.addAll(Arrays.asList(new String(body.toByteArray(), "UTF-8").split("\n")));
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+			}
+		});
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	private static HttpRequest item(String url, String value) throws IOException {
+		return HttpRequest.post(url, value.getBytes("UTF-8")).timeOut(5000);
+	}
+
+	@Test
+	public void batchesOfOneEndpointKeepSubmitOrder() throws Exception {
+		// 每主机一个连接，服务端收到的顺序即交给调度器的顺序
+		final HttpBatcher batcher = new HttpBatcher(new HttpClient(1), HttpBatcher.NEWLINE_DELIMITED, 1 << 20, 3, 10000, 1000);
+		final int perThread = 60;
+		final List<HttpFuture> futures = Collections.synchronizedList(new ArrayList<HttpFuture>());
+		Thread[] threads = new Thread[2];
+		for (int t = 0; t < threads.length; t++) {
+			final String prefix = String.valueOf((char) ('a' + t));
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < perThread; i++) {
+							futures.add(batcher.submit(item(base + "/batch", prefix + i), null));
+						}
+					} catch (IOException e) {
+						throw new AssertionError(e);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		batcher.flush();
+		for (HttpFuture future : futures) {
+			assertEquals(HttpResult.Status.SUCCESS, future.get(5, TimeUnit.SECONDS).getStatus());
+		}
+		assertEquals(2 * perThread, received.size());
+		// 每个提交线程的请求按提交顺序到达
+		int[] next = new int[threads.length];
+		for (String value : received) {
+			int t = value.charAt(0) - 'a';
+			assertEquals(value, String.valueOf(next[t]), value.substring(1));
+			next[t]++;
+		}
+		batcher.close();
+	}
+
+	@Test
+	public void closeSendsPendingAndRejectsLater() throws Exception {
+		HttpBatcher batcher = new HttpBatcher(new HttpClient(2), HttpBatcher.NEWLINE_DELIMITED, 1 << 20, 100, 60000, 100);
+		HttpFuture pending = batcher.submit(item(base + "/batch", "x"), null);
+		assertFalse(pending.isDone());
+		batcher.close();
+		// 不等 60 秒的定时发送
+		assertEquals(HttpResult.Status.SUCCESS, pending.get(5, TimeUnit.SECONDS).getStatus());
+		assertEquals(Collections.singletonList("x"), received);
+		HttpFuture late = batcher.submit(item(base + "/batch", "y"), null);
+		assertEquals(HttpResult.Status.REJECTED, late.get(1, TimeUnit.SECONDS).getStatus());
+	}
+
+	@Test
+	public void idleEndpointsAreRemoved() throws Exception {
+		HttpBatcher batcher = new HttpBatcher(new HttpClient(2), HttpBatcher.NEWLINE_DELIMITED, 1 << 20, 100, 20, 100);
+		List<HttpFuture> futures = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			futures.add(batcher.submit(item(base + "/batch/" + i, "v" + i), null));
+		}
+		assertEquals(20, batcher.getEndpointCount());
+		for (HttpFuture future : futures) {
+			assertEquals(HttpResult.Status.SUCCESS, future.get(5, TimeUnit.SECONDS).getStatus());
+		}
+		// 回调完成 future 之前已移除地址
+		assertEquals(0, batcher.getEndpointCount());
+		// 移除后同一地址仍可继续提交
+		assertEquals(HttpResult.Status.SUCCESS, batcher.submit(item(base + "/batch/0", "again"), null).get(5, TimeUnit.SECONDS).getStatus());
+		assertEquals(0, batcher.getEndpointCount());
+		batcher.close();
+	}
+}
@@ -0,0 +1,222 @@
+package com.holy.jutil.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流式上传，使用本地 HttpServer 核对服务端收到的请求头、字节与上报的进度
+ */
+public class HttpBodyTest {
+	private static final int SIZE = 200 * 1024 + 7;
+
+	private HttpServer server;
+	private String url;
+	private File file;
+	private final byte[] data = new byte[SIZE];
+	private final List<Received> received = Collections.synchronizedList(new ArrayList<Received>());
+
+	@Before
+	public void setUp() throws IOException {
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i * 31);
+		}
+		file = File.createTempFile("body", ".bin");
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(data);
+		}
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/upload", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				Received request = new Received();
+				request.contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+				request.transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+				request.contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+				try (InputStream in = exchange.getRequestBody()) {
+					byte[] buffer = new byte[4096];
+					int len;
+					while ((len = in.read(buffer)) != -1) {
+						body.write(buffer, 0, len);
+					}
+				}
+				request.body = body.toByteArray();
+				received.add(request);
+				byte[] response = String.valueOf(request.body.length).getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, response.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(response);
+				}
+			}
+		});
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+		file.delete();
+	}
+
+	@Test
+	public void knownLengthUsesFixedLengthMode() throws IOException {
+		Progress progress = new Progress();
+		assertEquals(String.valueOf(SIZE), upload(HttpBody.of(new ByteArrayInputStream(data), SIZE, "application/x-test"), progress));
+		Received request = received.get(0);
+		assertEquals(String.valueOf(SIZE), request.contentLength);
+		assertNull(request.transferEncoding);
+		assertEquals("application/x-test", request.contentType);
+		assertArrayEquals(data, request.body);
+		progress.assertComplete(SIZE, SIZE);
+	}
+
+	@Test
+	public void unknownLengthIsChunked() throws IOException {
+		Progress progress = new Progress();
+		assertEquals(String.valueOf(SIZE), upload(HttpBody.of(new ByteArrayInputStream(data), -1, null), progress));
+		Received request = received.get(0);
+		assertNull(request.contentLength);
+		assertEquals("chunked", request.transferEncoding);
+		assertEquals("application/octet-stream", request.contentType);
+		assertArrayEquals(data, request.body);
+		progress.assertComplete(SIZE, -1);
+	}
+
+	@Test
+	public void streamLongerThanLengthSendsOnlyLength() throws IOException {
+		upload(HttpBody.of(new ByteArrayInputStream(data), 1000, null), null);
+		assertArrayEquals(Arrays.copyOf(data, 1000), received.get(0).body);
+	}
+
+	@Test
+	public void streamShorterThanLengthFails() {
+		try {
+			upload(HttpBody.of(new ByteArrayInputStream(data, 0, 10), 20, null), null);
+			fail("expected IOException");
+		} catch (IOException e) {
+			// 定长请求体的实际长度不足
+		}
+		assertTrue(received.isEmpty());
+	}
+
+	@Test
+	public void fileBodyCanBeResent() throws IOException {
+		HttpBody body = HttpBody.of(file, null);
+		assertEquals(SIZE, body.getLength());
+		for (int i = 0; i < 2; i++) {
+			Progress progress = new Progress();
+			assertEquals(String.valueOf(SIZE), upload(body, progress));
+			assertArrayEquals(data, received.get(i).body);
+			progress.assertComplete(SIZE, SIZE);
+		}
+	}
+
+	@Test
+	public void fileChannelSendsRangeWithoutMovingPosition() throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			FileChannel channel = raf.getChannel();
+			channel.position(7);
+			int position = 100;
+			int length = 70000;
+			HttpBody body = HttpBody.of(channel, position, length, null);
+			for (int i = 0; i < 2; i++) {
+				Progress progress = new Progress();
+				upload(body, progress);
+				Received request = received.get(i);
+				assertEquals(String.valueOf(length), request.contentLength);
+				assertArrayEquals(Arrays.copyOfRange(data, position, position + length), request.body);
+				progress.assertComplete(length, length);
+			}
+			assertEquals(7, channel.position());
+		}
+	}
+
+	@Test
+	public void fileChannelRangePastEndFails() throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			upload(HttpBody.of(raf.getChannel(), SIZE - 10, 20, null), null);
+			fail("expected IOException");
+		} catch (IOException e) {
+			// 文件在范围结束前到达末尾
+		}
+		assertTrue(received.isEmpty());
+	}
+
+	@Test
+	public void httpUtilUploadsFile() throws IOException {
+		Progress progress = new Progress();
+		InputStream in = HttpUtil.connection(url, file, null, progress);
+		assertNotNull(in);
+		try {
+			ByteArrayOutputStream response = new ByteArrayOutputStream();
+			int b;
+			while ((b = in.read()) != -1) {
+				response.write(b);
+			}
+			assertEquals(String.valueOf(SIZE), response.toString("UTF-8"));
+		} finally {
+			in.close();
+		}
+		assertArrayEquals(data, received.get(0).body);
+		progress.assertComplete(SIZE, SIZE);
+	}
+
+	private String upload(HttpBody body, ProgressListener listener) throws IOException {
+		HttpRequest request = new HttpRequest("POST", url).body(body).progress(listener).timeOut(5000);
+		return new HttpClient(1).execute(request).string();
+	}
+
+	private static class Received {
+		String contentLength;
+		String transferEncoding;
+		String contentType;
+		byte[] body;
+	}
+
+	private static class Progress implements ProgressListener {
+		private final List<long[]> events = new ArrayList<>();
+
+		@Override
+		public void onProgress(long written, long total) {
+			events.add(new long[]{written, total});
+		}
+
+		/**
+		 * 进度递增、总数不变，最后一次等于总字节数；每个缓冲区最多一次
+		 */
+		void assertComplete(long size, long total) {
+			assertFalse(events.isEmpty());
+			long last = 0;
+			for (long[] event : events) {
+				assertTrue(event[0] > last);
+				assertEquals(total, event[1]);
+				last = event[0];
+			}
+			assertEquals(size, last);
+			assertTrue(events.size() < size / 1024 + 2);
+		}
+	}
+}
@@ -0,0 +1,218 @@
+package com.holy.jutil.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * gzip 请求体、gzip 响应解压，使用本地 HttpServer
+ */
+public class HttpClientGzipTest {
+	private HttpServer server;
+	private String base;
+	private HttpClient client;
+
+	private volatile String requestEncoding;
+	private volatile String acceptEncoding;
+	private volatile byte[] requestBody;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/echo", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				requestEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+				acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+				byte[] raw = readAll(exchange.getRequestBody());
+				requestBody = "gzip".equals(requestEncoding) ? gunzip(raw) : raw;
+				respond(exchange, "ok".getBytes("UTF-8"), false);
+			}
+		});
+		server.createContext("/text", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+				respond(exchange, repeated(20000), null != acceptEncoding && acceptEncoding.contains("gzip"));
+			}
+		});
+		server.createContext("/empty-gzip", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+			}
+		});
+		server.createContext("/bomb", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange, new byte[8 * 1024 * 1024], true);
+			}
+		});
+		server.createContext("/plain-large", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange, new byte[2 * 1024 * 1024], false);
+			}
+		});
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort();
+		client = new HttpClient(2);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	public void requestGzipDisabledByDefault() throws IOException {
+		byte[] body = repeated(4096);
+		client.execute(HttpRequest.post(base + "/echo", body)).close();
+		assertNull(requestEncoding);
+		assertArrayEquals(body, requestBody);
+	}
+
+	@Test
+	public void requestAboveThresholdIsGzipped() throws IOException {
+		client.setGzipThreshold(1024);
+		byte[] body = repeated(10000);
+		client.execute(HttpRequest.post(base + "/echo", body)).close();
+		assertEquals("gzip", requestEncoding);
+		assertArrayEquals(body, requestBody);
+		assertTrue(client.getRequestBytesSaved() > 0);
+	}
+
+	@Test
+	public void requestAtThresholdIsGzipped() throws IOException {
+		client.setGzipThreshold(1024);
+		client.execute(HttpRequest.post(base + "/echo", repeated(1024))).close();
+		assertEquals("gzip", requestEncoding);
+	}
+
+	@Test
+	public void requestBelowThresholdIsPlain() throws IOException {
+		client.setGzipThreshold(1024);
+		byte[] body = repeated(1023);
+		client.execute(HttpRequest.post(base + "/echo", body)).close();
+		assertNull(requestEncoding);
+		assertArrayEquals(body, requestBody);
+	}
+
+	@Test
+	public void incompressibleRequestIsPlain() throws IOException {
+		client.setGzipThreshold(0);
+		byte[] body = new byte[4096];
+		new Random(44).nextBytes(body);
+		client.execute(HttpRequest.post(base + "/echo", body)).close();
+		assertNull(requestEncoding);
+		assertArrayEquals(body, requestBody);
+		assertEquals(0, client.getRequestBytesSaved());
+	}
+
+	@Test
+	public void callerContentEncodingIsKept() throws IOException {
+		client.setGzipThreshold(0);
+		byte[] body = repeated(4096);
+		client.execute(HttpRequest.post(base + "/echo", body).header("Content-Encoding", "identity")).close();
+		assertEquals("identity", requestEncoding);
+		assertArrayEquals(body, requestBody);
+	}
+
+	@Test
+	public void gzipResponseIsDecoded() throws IOException {
+		HttpResponse response = client.execute(HttpRequest.get(base + "/text"));
+		assertTrue(response.isGzipped());
+		assertArrayEquals(repeated(20000), response.bytes());
+		assertEquals("gzip", acceptEncoding);
+		assertTrue(client.getResponseBytesSaved() > 0);
+	}
+
+	@Test
+	public void emptyGzipResponseIsEmpty() throws IOException {
+		HttpResponse response = client.execute(HttpRequest.get(base + "/empty-gzip"));
+		assertEquals(0, response.bytes().length);
+	}
+
+	@Test
+	public void decodedLimitStopsGzipBomb() throws IOException {
+		client.setMaxResponseBytes(1024 * 1024);
+		HttpResponse response = client.execute(HttpRequest.get(base + "/bomb"));
+		assertTrue("compressed length must be under the limit", response.getContentLength() < 1024 * 1024);
+		try {
+			response.bytes();
+			fail("expected IOException");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("exceeds"));
+		}
+	}
+
+	@Test
+	public void declaredLengthOverLimitIsRejected() throws IOException {
+		client.setMaxResponseBytes(1024 * 1024);
+		try {
+			client.execute(HttpRequest.get(base + "/plain-large")).bytes();
+			fail("expected IOException");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("too large"));
+		}
+		// 连接已断开或释放，后续请求仍可用
+		assertArrayEquals(repeated(20000), client.execute(HttpRequest.get(base + "/text")).bytes());
+	}
+
+	private static void respond(HttpExchange exchange, byte[] body, boolean gzip) throws IOException {
+		byte[] payload = body;
+		if (gzip) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+				zip.write(body);
+			}
+			payload = out.toByteArray();
+			exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+		}
+		exchange.sendResponseHeaders(200, payload.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(payload);
+		}
+	}
+
+	private static byte[] repeated(int size) {
+		byte[] pattern = "jutil gzip test line\n".getBytes();
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = pattern[i % pattern.length];
+		}
+		return data;
+	}
+
+	private static byte[] gunzip(byte[] data) throws IOException {
+		return readAll(new GZIPInputStream(new ByteArrayInputStream(data)));
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			out.write(buffer, 0, len);
+		}
+		return out.toByteArray();
+	}
+}
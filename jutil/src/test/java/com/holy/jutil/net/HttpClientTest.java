@@ -0,0 +1,194 @@
+package com.holy.jutil.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 每主机连接数限制与连接释放，使用本地 HttpServer
+ */
+public class HttpClientTest {
+	private HttpServer server;
+	private String base;
+	/**
+	 * 服务端看到的客户端地址，每个不同的端口是一个新接受的连接
+	 */
+	private final Set<InetSocketAddress> sockets = Collections.synchronizedSet(new HashSet<InetSocketAddress>());
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/hello", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				sockets.add(exchange.getRemoteAddress());
+				byte[] body = "hello".getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		});
+		server.createContext("/json", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] body = "{\"ok\":1}\n".getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		});
+		server.createContext("/close", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				sockets.add(exchange.getRemoteAddress());
+				exchange.getResponseHeaders().set("Connection", "close");
+				byte[] body = "bye".getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		});
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	public void bodyReadToEofReleasesPermitWithoutClose() throws IOException {
+		HttpClient client = new HttpClient(1);
+		for (int i = 0; i < 5; i++) {
+			// 只读完不关闭，与 HttpUtil.connction 的调用方一样
+			InputStream in = client.execute(HttpRequest.get(base + "/hello").timeOut(1000)).getBody();
+			assertEquals("hello", read(in));
+		}
+		assertEquals(5, client.getReleasedCount());
+		assertEquals(0, client.getDiscardedCount());
+	}
+
+	@Test
+	public void readAfterEofReturnsEnd() throws IOException {
+		HttpClient client = new HttpClient(1);
+		InputStream in = client.execute(HttpRequest.get(base + "/hello")).getBody();
+		read(in);
+		assertEquals(-1, in.read());
+		assertEquals(-1, in.read(new byte[4], 0, 4));
+		assertEquals(0, in.available());
+		in.close();
+		assertEquals(1, client.getReleasedCount());
+	}
+
+	@Test
+	public void unreadBodyHoldsPermitUntilClose() throws IOException {
+		HttpClient client = new HttpClient(1);
+		HttpResponse first = client.execute(HttpRequest.get(base + "/hello"));
+		try {
+			client.execute(HttpRequest.get(base + "/hello").timeOut(200)).close();
+			fail("expected SocketTimeoutException");
+		} catch (SocketTimeoutException e) {
+			// 唯一的连接仍被占用
+		}
+		first.close();
+		assertEquals("hello", client.execute(HttpRequest.get(base + "/hello").timeOut(1000)).string());
+	}
+
+	@Test(timeout = 10000)
+	public void legacyStreamAbandonedAfterPartialReadKeepsNoPermit() throws IOException {
+		// 超过默认客户端的每主机连接数，调用方只读一行就丢弃流，不 close
+		for (int i = 0; i < 3 * HttpClient.DEFAULT_MAX_PER_HOST; i++) {
+			InputStream in = HttpUtil.get(base + "/json", null);
+			assertNotNull("call " + i, in);
+			assertEquals("{\"ok\":1}", new BufferedReader(new InputStreamReader(in, "UTF-8")).readLine());
+		}
+	}
+
+	@Test
+	public void estimatedReuseMatchesAcceptedSockets() throws IOException {
+		HttpClient client = new HttpClient(1);
+		for (int i = 0; i < 10; i++) {
+			assertEquals("hello", client.execute(HttpRequest.get(base + "/hello").timeOut(1000)).string());
+		}
+		assertEquals(10, client.getRequestCount());
+		assertEquals(10 - sockets.size(), client.getEstimatedReusedCount());
+		assertTrue(client.getEstimatedReuseRate() > 0.5);
+	}
+
+	@Test
+	public void connectionCloseIsNotCountedAsReuse() throws IOException {
+		HttpClient client = new HttpClient(1);
+		for (int i = 0; i < 5; i++) {
+			assertEquals("bye", client.execute(HttpRequest.get(base + "/close").timeOut(1000)).string());
+		}
+		assertEquals(5, sockets.size());
+		assertEquals(0, client.getEstimatedReusedCount());
+		assertEquals(5, client.getDiscardedCount());
+	}
+
+	@Test
+	public void idleHostsArePruned() throws IOException {
+		HttpServer other = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		other.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.sendResponseHeaders(204, -1);
+				exchange.close();
+			}
+		});
+		other.start();
+		try {
+			String otherBase = "http://127.0.0.1:" + other.getAddress().getPort();
+			HttpClient client = new HttpClient(1);
+			// 连接未进入 keep-alive 缓存的主机在下一个新主机出现时移除
+			client.execute(HttpRequest.get(base + "/close").timeOut(1000)).close();
+			client.execute(HttpRequest.get(otherBase + "/").timeOut(1000)).close();
+			assertEquals(1, client.getHostCount());
+			// 还有未过期空闲连接的主机保留
+			client.execute(HttpRequest.get(base + "/hello").timeOut(1000)).string();
+			assertEquals(2, client.getHostCount());
+			// 移除后再访问同一主机照常工作
+			assertEquals("bye", client.execute(HttpRequest.get(base + "/close").timeOut(1000)).string());
+		} finally {
+			other.stop(0);
+		}
+	}
+
+	@Test
+	public void constructorLeavesMaxConnectionsAlone() {
+		String before = System.getProperty("http.maxConnections");
+		new HttpClient(17);
+		assertEquals(before, System.getProperty("http.maxConnections"));
+	}
+
+	private static String read(InputStream in) throws IOException {
+		StringBuilder text = new StringBuilder();
+		byte[] buffer = new byte[2];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			text.append(new String(buffer, 0, len, "UTF-8"));
+		}
+		return text.toString();
+	}
+}
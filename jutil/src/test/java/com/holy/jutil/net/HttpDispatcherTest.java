@@ -0,0 +1,97 @@
+package com.holy.jutil.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 排队请求的超时，使用本地 HttpServer
+ */
+public class HttpDispatcherTest {
+	private HttpServer server;
+	private String base;
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/slow", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				byte[] body = "slow".getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		});
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		server.stop(0);
+	}
+
+	@Test
+	public void queuedRequestExpiresWithoutOtherActivity() throws Exception {
+		HttpDispatcher dispatcher = new HttpDispatcher(new HttpClient(2), 1, 1, 10);
+		HttpFuture running = dispatcher.submit(HttpRequest.get(base + "/slow").timeOut(10000), null);
+		HttpFuture queued = dispatcher.submit(HttpRequest.get(base + "/slow").timeOut(200), null);
+		assertEquals(1, dispatcher.getQueuedCount());
+		// 执行中的请求一直不结束，排队的请求仍按时超时
+		HttpResult result = queued.get(2, TimeUnit.SECONDS);
+		assertEquals(HttpResult.Status.TIMEOUT, result.getStatus());
+		assertEquals(0, dispatcher.getQueuedCount());
+		assertFalse(running.isDone());
+		release.countDown();
+		assertEquals(HttpResult.Status.SUCCESS, running.get(5, TimeUnit.SECONDS).getStatus());
+	}
+
+	@Test
+	public void expiredBehindConcurrencyLimitAreReapedOnPromote() throws Exception {
+		HttpDispatcher dispatcher = new HttpDispatcher(new HttpClient(2), 1, 1, 10);
+		dispatcher.submit(HttpRequest.get(base + "/slow").timeOut(10000), null);
+		HttpFuture waiting = dispatcher.submit(HttpRequest.get(base + "/slow").timeOut(10000), null);
+		HttpFuture expiring = dispatcher.submit(HttpRequest.get(base + "/slow").timeOut(100), null);
+		Thread.sleep(150);
+		// 新提交触发调度，并发已满也要扫描到排在后面的到期请求
+		dispatcher.submit(HttpRequest.get(base + "/slow").timeOut(10000), null);
+		assertTrue(expiring.isDone());
+		assertEquals(HttpResult.Status.TIMEOUT, expiring.get().getStatus());
+		assertFalse(waiting.isDone());
+		assertEquals(2, dispatcher.getQueuedCount());
+	}
+
+	@Test
+	public void canceledRequestLeavesQueue() throws Exception {
+		HttpDispatcher dispatcher = new HttpDispatcher(new HttpClient(2), 1, 1, 10);
+		dispatcher.submit(HttpRequest.get(base + "/slow").timeOut(10000), null);
+		HttpFuture queued = dispatcher.submit(HttpRequest.get(base + "/slow").timeOut(200), null);
+		assertTrue(queued.cancel(false));
+		assertEquals(0, dispatcher.getQueuedCount());
+		Thread.sleep(300);
+		assertTrue(queued.isCancelled());
+	}
+}
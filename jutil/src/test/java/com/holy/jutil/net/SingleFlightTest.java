@@ -0,0 +1,241 @@
+package com.holy.jutil.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 相同并发请求的合并，使用本地 HttpServer；服务端在所有等待者加入后才响应
+ */
+public class SingleFlightTest {
+	private static final int WAITERS = 4;
+
+	private HttpServer server;
+	private String base;
+	private File tempDir;
+	private ExecutorService executor;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final CountDownLatch respond = new CountDownLatch(1);
+	private final byte[] large = new byte[10 * 1024];
+
+	@Before
+	public void setUp() throws IOException {
+		for (int i = 0; i < large.length; i++) {
+			large[i] = (byte) i;
+		}
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/small", new Handler("small".getBytes("UTF-8")));
+		server.createContext("/large", new Handler(large));
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort();
+		tempDir = File.createTempFile("flight", "dir");
+		tempDir.delete();
+		tempDir.mkdirs();
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		respond.countDown();
+		executor.shutdownNow();
+		server.stop(0);
+		File[] files = tempDir.listFiles();
+		if (null != files) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		tempDir.delete();
+	}
+
+	@Test(timeout = 10000)
+	public void concurrentIdenticalGetsHitOriginOnce() throws Exception {
+		final SingleFlight flight = new SingleFlight(new HttpClient(WAITERS + 1), 1024, tempDir);
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < WAITERS + 1; i++) {
+			results.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return flight.execute(HttpRequest.get(base + "/small").timeOut(5000)).string();
+				}
+			}));
+		}
+		awaitShared(flight, WAITERS);
+		respond.countDown();
+		for (Future<String> result : results) {
+			assertEquals("small", result.get());
+		}
+		assertEquals(1, hits.get());
+		assertEquals(1, flight.getFlightCount());
+		assertEquals(WAITERS, flight.getSharedCount());
+		// 小响应体不落盘
+		assertEquals(0, tempDir.list().length);
+
+		// 请求完成后再来的相同请求重新发出
+		assertEquals("small", flight.execute(HttpRequest.get(base + "/small").timeOut(5000)).string());
+		assertEquals(2, hits.get());
+	}
+
+	@Test
+	public void differentHeadersAreNotMerged() {
+		assertEquals(SingleFlight.key(HttpRequest.get("http://a/").header("A", "1").header("B", "2")),
+				SingleFlight.key(HttpRequest.get("http://a/").header("B", "2").header("A", "1")));
+		assertNotEquals(SingleFlight.key(HttpRequest.get("http://a/").header("A", "1")),
+				SingleFlight.key(HttpRequest.get("http://a/").header("A", "2")));
+		assertNotEquals(SingleFlight.key(HttpRequest.get("http://a/")),
+				SingleFlight.key(new HttpRequest("HEAD", "http://a/")));
+	}
+
+	@Test(timeout = 10000)
+	public void largeBodyIsSharedThroughTempFile() throws Exception {
+		final SingleFlight flight = new SingleFlight(new HttpClient(WAITERS + 1), 1024, tempDir);
+		List<Future<HttpResponse>> results = new ArrayList<>();
+		for (int i = 0; i < WAITERS + 1; i++) {
+			results.add(executor.submit(new Callable<HttpResponse>() {
+				@Override
+				public HttpResponse call() throws Exception {
+					return flight.execute(HttpRequest.get(base + "/large").timeOut(5000));
+				}
+			}));
+		}
+		awaitShared(flight, WAITERS);
+		respond.countDown();
+		List<HttpResponse> responses = new ArrayList<>();
+		for (Future<HttpResponse> result : results) {
+			responses.add(result.get());
+		}
+		assertEquals(1, hits.get());
+		assertEquals(1, tempDir.list().length);
+		// 每个等待者各自读文件，最后一个 close 后删除
+		for (int i = 0; i < responses.size(); i++) {
+			HttpResponse response = responses.get(i);
+			assertEquals(large.length, response.getContentLength());
+			assertTrue(Arrays.equals(large, response.bytes()));
+			response.close();
+			assertEquals(i == responses.size() - 1 ? 0 : 1, tempDir.list().length);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void failedRequestFailsEveryWaiter() throws Exception {
+		final SingleFlight flight = new SingleFlight(new HttpClient(WAITERS + 1), 1024, tempDir);
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < WAITERS + 1; i++) {
+			results.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					// 服务端不响应，读超时
+					return flight.execute(HttpRequest.get(base + "/small").timeOut(500)).string();
+				}
+			}));
+		}
+		awaitShared(flight, WAITERS);
+		for (Future<String> result : results) {
+			try {
+				result.get();
+				fail("expected IOException");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause().toString(), e.getCause() instanceof IOException);
+			}
+		}
+		assertEquals(1, hits.get());
+		assertEquals(0, tempDir.list().length);
+	}
+
+	@Test(timeout = 10000)
+	public void interruptedWaiterDoesNotLeakFile() throws Exception {
+		final SingleFlight flight = new SingleFlight(new HttpClient(2), 1024, tempDir);
+		Future<HttpResponse> leader = executor.submit(new Callable<HttpResponse>() {
+			@Override
+			public HttpResponse call() throws Exception {
+				return flight.execute(HttpRequest.get(base + "/large").timeOut(5000));
+			}
+		});
+		awaitHits(1);
+		final AtomicInteger interrupted = new AtomicInteger();
+		Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					flight.execute(HttpRequest.get(base + "/large").timeOut(5000)).close();
+				} catch (InterruptedIOException e) {
+					if (Thread.currentThread().isInterrupted()) {
+						interrupted.incrementAndGet();
+					}
+				} catch (IOException e) {
+					// 计数不变，断言失败
+				}
+			}
+		});
+		waiter.start();
+		awaitShared(flight, 1);
+		waiter.interrupt();
+		waiter.join();
+		assertEquals(1, interrupted.get());
+
+		respond.countDown();
+		HttpResponse response = leader.get();
+		assertEquals(1, tempDir.list().length);
+		assertTrue(Arrays.equals(large, response.bytes()));
+		response.close();
+		assertEquals(0, tempDir.list().length);
+	}
+
+	private void awaitShared(SingleFlight flight, int count) throws InterruptedException {
+		while (flight.getSharedCount() < count) {
+			Thread.sleep(5);
+		}
+	}
+
+	private void awaitHits(int count) throws InterruptedException {
+		while (hits.get() < count) {
+			Thread.sleep(5);
+		}
+	}
+
+	private class Handler implements HttpHandler {
+		private final byte[] body;
+
+		Handler(byte[] body) {
+			this.body = body;
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			hits.incrementAndGet();
+			try {
+				respond.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.holy.jutil.rand;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 伯努利采样的选中率与边界概率
+ */
+public class BernoulliSamplerTest {
+	@Test
+	public void rateMatchesProbability() {
+		double[] probabilities = {0.5, 0.1, 0.01, 0.001};
+		int n = 1000000;
+		for (double p : probabilities) {
+			BernoulliSampler sampler = new BernoulliSampler(p, new Random(6));
+			int selected = 0;
+			for (int i = 0; i < n; i++) {
+				if (sampler.sample()) {
+					selected++;
+				}
+			}
+			double expected = n * p;
+			// 约 5 个标准差
+			assertEquals("p " + p, expected, selected, 5 * Math.sqrt(expected * (1 - p)));
+		}
+	}
+
+	@Test
+	public void tinyProbabilityStillSelectsSometimes() {
+		// log(1 - 1e-17) 会舍入为 0
+		BernoulliSampler sampler = new BernoulliSampler(1e-17, new Random(7));
+		long skipped = sampler.skip();
+		assertTrue(skipped > 0);
+		assertTrue(sampler.sample());
+	}
+
+	@Test
+	public void boundaryProbabilities() {
+		BernoulliSampler always = new BernoulliSampler(1, new Random(8));
+		BernoulliSampler never = new BernoulliSampler(0, new Random(8));
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(always.sample());
+			assertFalse(never.sample());
+		}
+		assertEquals(0, always.skip());
+		assertEquals(Long.MAX_VALUE, new BernoulliSampler(0).skip());
+	}
+
+	@Test
+	public void filterReturnsSelectedItems() {
+		List<Integer> items = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			items.add(i);
+		}
+		Iterator<Integer> filtered = new BernoulliSampler(0.2, new Random(9)).filter(items.iterator());
+		int count = 0;
+		int last = -1;
+		while (filtered.hasNext()) {
+			int item = filtered.next();
+			assertTrue(item > last);
+			last = item;
+			count++;
+		}
+		assertEquals(2000, count, 5 * Math.sqrt(10000 * 0.2 * 0.8));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsProbabilityOutOfRange() {
+		new BernoulliSampler(1.5);
+	}
+}
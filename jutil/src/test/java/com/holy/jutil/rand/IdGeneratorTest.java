@@ -0,0 +1,66 @@
+package com.holy.jutil.rand;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IdGeneratorTest {
+	@Test
+	public void encodeDecodeRoundTripUnsigned() {
+		long[] values = {0, 1, 61, 62, Long.MAX_VALUE, Long.MIN_VALUE, -1};
+		char[] buffer = new char[IdGenerator.BASE62_LENGTH];
+		for (long value : values) {
+			IdGenerator.encode(value, buffer, 0);
+			assertEquals(value, IdGenerator.decode(new String(buffer)));
+		}
+	}
+
+	@Test
+	public void decodeRejectsOverflow() {
+		char[] buffer = new char[IdGenerator.BASE62_LENGTH];
+		IdGenerator.encode(-1, buffer, 0);
+		String max = new String(buffer);
+		assertEquals("LygHa16AHYF", max);
+		for (String overflow : new String[] {"LygHa16AHYG", "LygHa16AHZ0", "zzzzzzzzzzz"}) {
+			try {
+				IdGenerator.decode(overflow);
+				fail("expected overflow: " + overflow);
+			} catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage().startsWith("overflow"));
+			}
+		}
+	}
+
+	@Test
+	public void idsIncreaseAndCarryNode() {
+		IdGenerator generator = new IdGenerator(5);
+		long previous = generator.nextId();
+		for (int i = 0; i < 100000; i++) {
+			long id = generator.nextId();
+			assertTrue(id > previous);
+			assertEquals(5, IdGenerator.nodeOf(id));
+			previous = id;
+		}
+	}
+
+	@Test
+	public void defaultNodeIsExplicitAndFixed() {
+		IdGenerator.setDefaultNode(7);
+		IdGenerator.setDefaultNode(7);
+		assertEquals(7, IdGenerator.getDefault().getNode());
+		try {
+			IdGenerator.setDefaultNode(8);
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// 已设置
+		}
+	}
+
+	@Test
+	public void randomIdUsesBase62() {
+		String id = IdGenerator.randomId(22);
+		assertEquals(22, id.length());
+		assertTrue(id.matches("[0-9A-Za-z]+"));
+		assertNotEquals(id, IdGenerator.randomId(22));
+	}
+}
@@ -0,0 +1,134 @@
+package com.holy.jutil.rand;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 蓄水池采样：样本大小、均匀性、合并，以及 w 极小时的跳跃长度
+ */
+public class ReservoirSamplerTest {
+	@Test
+	public void sampleSizeIsMinOfCapacityAndCount() {
+		ReservoirSampler<Integer> sampler = new ReservoirSampler<>(5, new Random(1));
+		assertTrue(sampler.getSample().isEmpty());
+		for (int i = 0; i < 3; i++) {
+			sampler.offer(i);
+		}
+		assertEquals(3, sampler.getSample().size());
+		for (int i = 3; i < 1000; i++) {
+			sampler.offer(i);
+			assertTrue(sampler.skipCount() >= 0);
+		}
+		List<Integer> sample = sampler.getSample();
+		assertEquals(5, sample.size());
+		assertEquals(5, new HashSet<>(sample).size());
+		assertEquals(1000, sampler.getCount());
+	}
+
+	@Test
+	public void everyItemIsEquallyLikely() {
+		int n = 50;
+		int k = 5;
+		int trials = 20000;
+		int[] hits = new int[n];
+		Random random = new Random(2);
+		for (int t = 0; t < trials; t++) {
+			ReservoirSampler<Integer> sampler = new ReservoirSampler<>(k, random);
+			for (int i = 0; i < n; i++) {
+				sampler.offer(i);
+			}
+			for (int item : sampler.getSample()) {
+				hits[item]++;
+			}
+		}
+		double expected = (double) trials * k / n;
+		for (int i = 0; i < n; i++) {
+			assertEquals("item " + i, expected, hits[i], expected * 0.1);
+		}
+	}
+
+	@Test
+	public void tinyWeightSkipsFarAhead() {
+		// log(1 - 1e-17) 舍入为 0，log1p 得到 -1e-17
+		double expected = -Math.log(0.5) / 1e-17;
+		assertEquals(expected, ReservoirSampler.skip(0.5, 1e-17, 100), expected * 1e-9);
+		assertEquals(Long.MAX_VALUE - 100, ReservoirSampler.skip(0.5, 1e-30, 100));
+		assertEquals(Long.MAX_VALUE - 100, ReservoirSampler.skip(0.5, 0, 100));
+		assertEquals(Long.MAX_VALUE - 100, ReservoirSampler.skip(1, 0, 100));
+		assertEquals(1, ReservoirSampler.skip(1, 0.5, 100));
+		assertEquals(2, ReservoirSampler.skip(0.5, 0.5, 100));
+	}
+
+	@Test
+	public void mergeKeepsCapacityAndCount() {
+		ReservoirSampler<Integer> left = new ReservoirSampler<>(5, new Random(3));
+		ReservoirSampler<Integer> right = new ReservoirSampler<>(5, new Random(4));
+		for (int i = 0; i < 100; i++) {
+			left.offer(i);
+		}
+		for (int i = 100; i < 130; i++) {
+			right.offer(i);
+		}
+		ReservoirSampler<Integer> merged = left.merge(right);
+		assertEquals(130, merged.getCount());
+		List<Integer> sample = merged.getSample();
+		assertEquals(5, sample.size());
+		assertEquals(5, new HashSet<>(sample).size());
+		Set<Integer> candidates = new HashSet<>(left.getSample());
+		candidates.addAll(right.getSample());
+		assertTrue(candidates.containsAll(sample));
+		// 合并后可以继续采样
+		for (int i = 130; i < 200; i++) {
+			merged.offer(i);
+		}
+		assertEquals(200, merged.getCount());
+		assertEquals(5, merged.getSample().size());
+	}
+
+	@Test
+	public void mergeOfSmallStreamsKeepsEverything() {
+		ReservoirSampler<Integer> left = new ReservoirSampler<>(10);
+		ReservoirSampler<Integer> right = new ReservoirSampler<>(10);
+		for (int i = 0; i < 3; i++) {
+			left.offer(i);
+			right.offer(10 + i);
+		}
+		Set<Integer> sample = new HashSet<>(left.merge(right).getSample());
+		assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 10, 11, 12)), sample);
+	}
+
+	@Test
+	public void mergeIsProportionalToStreamLength() {
+		int trials = 5000;
+		int fromLeft = 0;
+		Random random = new Random(5);
+		for (int t = 0; t < trials; t++) {
+			ReservoirSampler<Integer> left = new ReservoirSampler<>(4, random);
+			ReservoirSampler<Integer> right = new ReservoirSampler<>(4, random);
+			for (int i = 0; i < 300; i++) {
+				left.offer(i);
+			}
+			for (int i = 300; i < 400; i++) {
+				right.offer(i);
+			}
+			for (int item : left.merge(right).getSample()) {
+				if (item < 300) {
+					fromLeft++;
+				}
+			}
+		}
+		assertEquals(0.75, (double) fromLeft / (trials * 4), 0.02);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mergeRejectsDifferentCapacity() {
+		new ReservoirSampler<Integer>(3).merge(new ReservoirSampler<Integer>(4));
+	}
+}
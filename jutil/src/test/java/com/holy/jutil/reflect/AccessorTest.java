@@ -0,0 +1,177 @@
+package com.holy.jutil.reflect;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 访问器：@Reflectable 类直接调用生成代码，类型不完全匹配时与反射的结果和异常一致
+ */
+public class AccessorTest {
+	@Reflectable
+	public static class Target {
+		public static int counter;
+		public final String name;
+		public int count;
+		public Object any;
+
+		public Target() {
+			this("default");
+		}
+
+		public Target(String name) {
+			this.name = name;
+		}
+
+		public Target(String name, int count, long extra) {
+			this.name = name;
+			this.count = count + (int) extra;
+		}
+
+		public String name() {
+			return name;
+		}
+
+		public String join(String a, int b) {
+			return name + a + b;
+		}
+
+		public long sum(long a, long b, long c) {
+			return a + b + c;
+		}
+
+		public static long twice(long value) {
+			return value * 2;
+		}
+
+		public void touch() {
+			count++;
+		}
+
+		public void fail() {
+			throw new IllegalStateException("from member");
+		}
+	}
+
+	public static class Plain {
+		public int value = 3;
+
+		public int value() {
+			return value;
+		}
+	}
+
+	@Test
+	public void reflectableMembersAreIndexed() throws Exception {
+		assertTrue(Reflect.methodAccessor(Target.class, "join", String.class, int.class).isIndexed());
+		assertTrue(Reflect.fieldAccessor(Target.class, "count").isIndexed());
+		assertTrue(Reflect.constructorAccessor(Target.class, String.class).isIndexed());
+		assertFalse(Reflect.methodAccessor(Plain.class, "value").isIndexed());
+		assertFalse(Reflect.fieldAccessor(Plain.class, "value").isIndexed());
+	}
+
+	@Test
+	public void fixedArityCalls() throws Exception {
+		Target target = Reflect.constructorAccessor(Target.class, String.class).newInstance("t");
+		assertEquals("t", Reflect.methodAccessor(Target.class, "name").invoke(target));
+		assertEquals("tx1", Reflect.methodAccessor(Target.class, "join", String.class, int.class).invoke(target, "x", 1));
+		assertEquals(6L, Reflect.methodAccessor(Target.class, "sum", long.class, long.class, long.class).invoke(target, 1L, 2L, 3L));
+		assertEquals(8L, Reflect.methodAccessor(Target.class, "twice", long.class).invoke(null, 4L));
+		assertNull(Reflect.methodAccessor(Target.class, "touch").invoke(target));
+		assertEquals(1, target.count);
+		assertEquals("default", Reflect.constructorAccessor(Target.class).newInstance().name);
+		assertEquals(5, Reflect.constructorAccessor(Target.class, String.class, int.class, long.class).newInstance("a", 2, 3L).count);
+		assertEquals(3, Reflect.methodAccessor(Plain.class, "value").invoke(new Plain()));
+	}
+
+	@Test
+	public void varargsCallsUseIndexToo() throws Exception {
+		Target target = new Target("v");
+		assertEquals("vy2", Reflect.methodAccessor(Target.class, "join", String.class, int.class).invokeWith(target, "y", 2));
+		assertEquals("w", Reflect.constructorAccessor(Target.class, String.class).newInstanceWith("w").name);
+	}
+
+	@Test
+	public void wideningFallsBackToReflection() throws Exception {
+		assertEquals(8L, Reflect.methodAccessor(Target.class, "twice", long.class).invoke(null, 4));
+		assertEquals(7, Reflect.constructorAccessor(Target.class, String.class, int.class, long.class).newInstance("a", (short) 3, 4).count);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongArgumentTypeIsIllegalArgument() throws Exception {
+		Reflect.methodAccessor(Target.class, "join", String.class, int.class).invoke(new Target(), 1, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullPrimitiveIsIllegalArgument() throws Exception {
+		Reflect.methodAccessor(Target.class, "twice", long.class).invoke(null, null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongArgumentCountIsIllegalArgument() throws Exception {
+		Reflect.methodAccessor(Target.class, "name").invoke(new Target(), "extra");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongTargetIsIllegalArgument() throws Exception {
+		Reflect.methodAccessor(Target.class, "name").invoke("not a target");
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void nullTargetIsNullPointer() throws Exception {
+		// 与 Method.invoke 一致
+		Reflect.methodAccessor(Target.class, "name").invoke(null);
+	}
+
+	@Test
+	public void memberExceptionIsInvocationTarget() throws Exception {
+		try {
+			Reflect.methodAccessor(Target.class, "fail").invoke(new Target());
+			fail("expected InvocationTargetException");
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			assertEquals("from member", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void fields() throws Exception {
+		Target target = new Target("f");
+		FieldAccessor count = Reflect.fieldAccessor(Target.class, "count");
+		count.set(target, 4);
+		assertEquals(4, count.get(target));
+		FieldAccessor any = Reflect.fieldAccessor(Target.class, "any");
+		any.set(target, "x");
+		assertEquals("x", any.get(target));
+		any.set(target, null);
+		assertNull(target.any);
+		FieldAccessor counter = Reflect.fieldAccessor(Target.class, "counter");
+		counter.set(null, 9);
+		assertEquals(9, Target.counter);
+		assertEquals(9, counter.get(null));
+		// final 成员变量没有生成写入，由反射写入
+		FieldAccessor name = Reflect.fieldAccessor(Target.class, "name");
+		assertEquals("f", name.get(target));
+		name.set(target, "g");
+		assertEquals("g", name.get(target));
+	}
+
+	@Test
+	public void fieldWideningFallsBackToReflection() throws Exception {
+		Target target = new Target();
+		Reflect.fieldAccessor(Target.class, "count").set(target, (short) 2);
+		assertEquals(2, target.count);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void fieldWrongTypeIsIllegalArgument() throws Exception {
+		Reflect.fieldAccessor(Target.class, "count").set(new Target(), "x");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void fieldWrongTargetIsIllegalArgument() throws Exception {
+		Reflect.fieldAccessor(Target.class, "count").get("not a target");
+	}
+}
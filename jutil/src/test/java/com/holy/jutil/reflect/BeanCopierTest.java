@@ -0,0 +1,138 @@
+package com.holy.jutil.reflect;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按成员变量名复制：父类私有成员、基本类型与包装类、数值与 String 转换、null 源值
+ */
+public class BeanCopierTest {
+	enum Color {
+		RED, GREEN
+	}
+
+	static class BaseSource {
+		private String id = "base-id";
+		private int shadowed = 1;
+	}
+
+	static class Source extends BaseSource {
+		private int shadowed = 2;
+		private int count = 3;
+		private Integer boxed = 4;
+		private Long nullLong;
+		private long wide = 5L;
+		private double ratio = 6.9;
+		private String number = " 7 ";
+		private String flag = "true";
+		private String letter = "xyz";
+		private String color = "GREEN";
+		private Color shade = Color.RED;
+		private Object unrelated = new Object();
+		private static int ignored = 8;
+	}
+
+	static class BaseTarget {
+		private String id;
+		private int shadowed;
+	}
+
+	static class Target extends BaseTarget {
+		private long count;
+		private int boxed;
+		private long nullLong = -1;
+		private int wide;
+		private int ratio;
+		private int number;
+		private boolean flag;
+		private char letter;
+		private Color color;
+		private String shade;
+		private Integer unrelated = 9;
+		private final int fixed = 10;
+		private static int ignored;
+
+		private Target() {
+		}
+	}
+
+	static class Strings {
+		String count = "1";
+		String number = "oops";
+		String color = "RED";
+	}
+
+	static class Numbers {
+		int count;
+		int number = -1;
+		Color color = Color.GREEN;
+	}
+
+	@Test
+	public void copiesInheritedPrivateFields() throws Exception {
+		Target target = BeanCopier.create(Source.class, Target.class).copy(new Source());
+		assertEquals("base-id", ((BaseTarget) target).id);
+		// 子类同名成员优先
+		assertEquals(2, ((BaseTarget) target).shadowed);
+	}
+
+	@Test
+	public void convertsPrimitivesWrappersNumbersAndStrings() throws Exception {
+		Target target = BeanCopier.create(Source.class, Target.class).copy(new Source());
+		assertEquals(3L, target.count);
+		assertEquals(4, target.boxed);
+		assertEquals(5, target.wide);
+		assertEquals(6, target.ratio);
+		assertEquals(7, target.number);
+		assertTrue(target.flag);
+		assertEquals('x', target.letter);
+		assertEquals(Color.GREEN, target.color);
+		assertEquals("RED", target.shade);
+	}
+
+	@Test
+	public void nullIntoPrimitiveKeepsTargetValue() throws Exception {
+		Target target = BeanCopier.create(Source.class, Target.class).copy(new Source());
+		assertEquals(-1L, target.nullLong);
+	}
+
+	@Test
+	public void skipsUnconvertibleFinalAndStaticFields() throws Exception {
+		BeanCopier<Source, Target> copier = BeanCopier.create(Source.class, Target.class);
+		Target target = copier.copy(new Source());
+		assertEquals(Integer.valueOf(9), target.unrelated);
+		assertEquals(10, target.fixed);
+		assertEquals(0, Target.ignored);
+		assertFalse(copier.getFieldNames().contains("unrelated"));
+		assertFalse(copier.getFieldNames().contains("fixed"));
+		assertFalse(copier.getFieldNames().contains("ignored"));
+	}
+
+	@Test
+	public void failedConversionLeavesTargetUnchanged() {
+		Numbers target = new Numbers();
+		try {
+			BeanCopier.copy(new Strings(), target);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// "oops" 不是数值
+		}
+		assertEquals(0, target.count);
+		assertEquals(-1, target.number);
+		assertEquals(Color.GREEN, target.color);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownEnumNameIsIllegalArgument() {
+		Strings source = new Strings();
+		source.number = "2";
+		source.color = "BLUE";
+		BeanCopier.copy(source, new Numbers());
+	}
+
+	@Test
+	public void copierIsCached() {
+		assertSame(BeanCopier.create(Strings.class, Numbers.class), BeanCopier.create(Strings.class, Numbers.class));
+	}
+}
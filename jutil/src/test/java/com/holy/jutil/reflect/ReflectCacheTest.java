@@ -0,0 +1,109 @@
+package com.holy.jutil.reflect;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.*;
+
+public class ReflectCacheTest {
+	public static class Plugin {
+		public String name() {
+			return "plugin";
+		}
+	}
+
+	@After
+	public void tearDown() {
+		ReflectCache.clear();
+	}
+
+	@Test
+	public void sameNamedTypesFromDifferentLoadersDoNotCollide() throws Exception {
+		Class<?> a = new IsolatingLoader().loadClass(Plugin.class.getName());
+		Class<?> b = new IsolatingLoader().loadClass(Plugin.class.getName());
+		assertEquals(a.getName(), b.getName());
+		assertNotSame(a, b);
+		ReflectCache.put(ReflectCache.DECLARED_METHOD, String.class, "accept", new Class<?>[] {a}, ReflectCache.MISS);
+		assertSame(ReflectCache.MISS, ReflectCache.get(ReflectCache.DECLARED_METHOD, String.class, "accept", new Class<?>[] {a}));
+		assertNull(ReflectCache.get(ReflectCache.DECLARED_METHOD, String.class, "accept", new Class<?>[] {b}));
+	}
+
+	@Test
+	public void appClassesStayCached() throws Exception {
+		ReflectCache.put(ReflectCache.DECLARED_METHOD, Plugin.class, "name", null, Plugin.class.getMethod("name"));
+		gc();
+		assertNotNull(ReflectCache.get(ReflectCache.DECLARED_METHOD, Plugin.class, "name", null));
+	}
+
+	@Test
+	public void pluginLoaderIsCollectable() throws Exception {
+		WeakReference<ClassLoader> loader = cachePluginMethod();
+		for (int i = 0; i < 50 && null != loader.get(); i++) {
+			gc();
+		}
+		assertNull("cache must not keep the plugin loader alive", loader.get());
+		ReflectCache.put(ReflectCache.DECLARED_METHOD, String.class, "length", null, ReflectCache.MISS);
+		assertEquals(1, ReflectCache.size());
+	}
+
+	@Test
+	public void evictRemovesLoaderEntries() throws Exception {
+		IsolatingLoader loader = new IsolatingLoader();
+		Class<?> plugin = loader.loadClass(Plugin.class.getName());
+		ReflectCache.put(ReflectCache.DECLARED_METHOD, plugin, "name", null, ReflectCache.MISS);
+		ReflectCache.put(ReflectCache.DECLARED_METHOD, String.class, "length", null, ReflectCache.MISS);
+		ReflectCache.evict(loader);
+		assertNull(ReflectCache.get(ReflectCache.DECLARED_METHOD, plugin, "name", null));
+		assertEquals(1, ReflectCache.size());
+	}
+
+	private static WeakReference<ClassLoader> cachePluginMethod() throws Exception {
+		IsolatingLoader loader = new IsolatingLoader();
+		Class<?> plugin = loader.loadClass(Plugin.class.getName());
+		ReflectCache.put(ReflectCache.DECLARED_METHOD, plugin, "name", null, plugin.getMethod("name"));
+		ReflectCache.put(ReflectCache.DECLARED_METHOD, plugin, "missing", new Class<?>[] {plugin}, ReflectCache.MISS);
+		return new WeakReference<ClassLoader>(loader);
+	}
+
+	private static void gc() throws InterruptedException {
+		System.gc();
+		Thread.sleep(20);
+	}
+
+	/**
+	 * 自己定义 Plugin 类的子加载器，与应用加载器的 Plugin 同名不同类
+	 */
+	private static final class IsolatingLoader extends ClassLoader {
+		IsolatingLoader() {
+			super(ReflectCacheTest.class.getClassLoader());
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!name.equals(Plugin.class.getName())) {
+				return super.loadClass(name, resolve);
+			}
+			Class<?> loaded = findLoadedClass(name);
+			if (null != loaded) {
+				return loaded;
+			}
+			try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				int len;
+				while ((len = in.read(buffer)) != -1) {
+					out.write(buffer, 0, len);
+				}
+				byte[] bytes = out.toByteArray();
+				return defineClass(name, bytes, 0, bytes.length);
+			} catch (IOException e) {
+				throw new ClassNotFoundException(name, e);
+			}
+		}
+	}
+}
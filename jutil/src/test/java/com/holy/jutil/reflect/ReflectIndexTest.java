@@ -0,0 +1,135 @@
+package com.holy.jutil.reflect;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 通过测试编译时生成的索引调用，异常类型须与反射一致
+ */
+public class ReflectIndexTest {
+	@Reflectable
+	public static class Sample {
+		public final String name;
+
+		public Sample(String name) {
+			this.name = name;
+		}
+
+		public String greet(String other) {
+			return name + " " + other;
+		}
+
+		public static long twice(long value) {
+			return value * 2;
+		}
+
+		public void fail(Object value) {
+			throw new ClassCastException("from member");
+		}
+	}
+
+	public static class Unindexed {
+		public String hello() {
+			return "hello";
+		}
+	}
+
+	@Test
+	public void generatedIndexListsOnlyAnnotatedClasses() throws Exception {
+		ReflectIndex index = (ReflectIndex) Class.forName(ReflectIndex.DEFAULT_CLASS_NAME).newInstance();
+		assertTrue(index.contains(Sample.class.getName()));
+		assertFalse(index.contains(Unindexed.class.getName()));
+		assertTrue(index.indexOf(Reflect.indexKey(Sample.class.getName(), "greet", new Class<?>[] {String.class})) >= 0);
+	}
+
+	@Test
+	public void indexedCalls() throws Exception {
+		Sample sample = (Sample) Reflect.newInstance(Sample.class, new Class[] {String.class}, "a");
+		assertEquals("a b", Reflect.invoke(sample, Sample.class, "greet", new Class[] {String.class}, "b"));
+		assertEquals(6L, Reflect.invoke(null, Sample.class, "twice", new Class[] {long.class}, 3L));
+		assertEquals("hello", Reflect.invoke(new Unindexed(), Unindexed.class, "hello", new Class[0]));
+	}
+
+	@Test
+	public void wideningFallsBackToReflection() throws Exception {
+		assertEquals(6L, Reflect.invoke(null, Sample.class, "twice", new Class[] {long.class}, 3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongArgumentTypeIsIllegalArgument() throws Exception {
+		Reflect.invoke(new Sample("a"), Sample.class, "greet", new Class[] {String.class}, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullPrimitiveIsIllegalArgument() throws Exception {
+		Reflect.invoke(null, Sample.class, "twice", new Class[] {long.class}, (Object) null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongArgumentCountIsIllegalArgument() throws Exception {
+		Reflect.invoke(new Sample("a"), Sample.class, "greet", new Class[] {String.class}, "b", "c");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongTargetIsIllegalArgument() throws Exception {
+		Reflect.invoke("not a sample", Sample.class, "greet", new Class[] {String.class}, "b");
+	}
+
+	@Test
+	public void indexedCallsByName() throws Exception {
+		ClassLoader loader = getClass().getClassLoader();
+		Object sample = Reflect.newInstance(loader, Sample.class.getName(), new Class[] {String.class}, "n");
+		assertEquals("n m", Reflect.invoke(sample, loader, Sample.class.getName(), "greet", new Class[] {String.class}, "m"));
+		// 静态方法忽略实例
+		assertEquals(4L, Reflect.invoke(null, loader, Sample.class.getName(), "twice", new Class[] {long.class}, 2L));
+		assertEquals(4L, Reflect.invoke("ignored", loader, Sample.class.getName(), "twice", new Class[] {long.class}, 2L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullTargetIsIllegalArgument() throws Exception {
+		Reflect.invoke(null, Sample.class, "greet", new Class[] {String.class}, "b");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullTargetByNameIsIllegalArgument() throws Exception {
+		Reflect.invoke(null, getClass().getClassLoader(), Sample.class.getName(), "greet", new Class[] {String.class}, "b");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void classTargetByNameIsIllegalArgument() throws Exception {
+		Reflect.invoke(Sample.class, getClass().getClassLoader(), Sample.class.getName(), "greet", new Class[] {String.class}, "b");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongTargetByNameIsIllegalArgument() throws Exception {
+		Reflect.invoke("not a sample", getClass().getClassLoader(), Sample.class.getName(), "greet", new Class[] {String.class}, "b");
+	}
+
+	@Test
+	public void staticnessIsGenerated() throws Exception {
+		ReflectIndex index = (ReflectIndex) Class.forName(ReflectIndex.DEFAULT_CLASS_NAME).newInstance();
+		int greet = index.indexOf(Reflect.indexKey(Sample.class.getName(), "greet", new Class<?>[] {String.class}));
+		int twice = index.indexOf(Reflect.indexKey(Sample.class.getName(), "twice", new Class<?>[] {long.class}));
+		int init = index.indexOf(Reflect.indexKey(Sample.class.getName(), "<init>", new Class<?>[] {String.class}));
+		assertFalse(index.isStatic(greet));
+		assertTrue(index.isStatic(twice));
+		assertTrue(index.isStatic(init));
+		assertTrue(index.isInstance(greet, new Sample("a")));
+		assertFalse(index.isInstance(greet, null));
+		assertFalse(index.isInstance(greet, Sample.class));
+	}
+
+	@Test
+	public void memberExceptionIsInvocationTarget() throws Exception {
+		try {
+			Reflect.invoke(new Sample("a"), Sample.class, "fail", new Class[] {Object.class}, "x");
+			fail("expected InvocationTargetException");
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof ClassCastException);
+			assertEquals("from member", e.getCause().getMessage());
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.holy.jutil.security;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.*;
+
+/**
+ * 多线程 CTR 与 JDK 单线程 AES/CTR/NoPadding 逐字节比较
+ */
+public class AESCtrTest {
+	private static final byte[] KEY = new byte[16];
+	private static final byte[] IV = new byte[16];
+
+	static {
+		Random random = new Random(28);
+		random.nextBytes(KEY);
+		random.nextBytes(IV);
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutorService service;
+
+	@Before
+	public void setUp() {
+		service = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		service.shutdownNow();
+	}
+
+	@Test
+	public void unalignedOffsetsAndLengthsMatchSequentialCtr() throws Exception {
+		byte[] data = randomBytes(3 * 1024 * 1024 + 4099 + 31);
+		File in = write(data);
+		long[] positions = {0, 1, 15, 16, 17, 4099};
+		int[] lengths = {0, 1, 15, 16, 17, 1000, 65543, 3 * 1024 * 1024 + 5};
+		for (long position : positions) {
+			for (int length : lengths) {
+				for (int segments : new int[]{1, 3, 4, 7}) {
+					byte[] expected = sequential(KEY, IV, Arrays.copyOfRange(data, (int) position, (int) position + length));
+					byte[] actual = parallel(in, position, length, KEY, IV, segments);
+					assertArrayEquals("position=" + position + " length=" + length + " segments=" + segments, expected, actual);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void counterCarryAcrossSegmentsMatchesSequentialCtr() throws Exception {
+		byte[] iv = new byte[16];
+		Arrays.fill(iv, 8, 16, (byte) 0xFF);
+		iv[15] = (byte) 0xF0;
+		byte[] data = randomBytes(1024 * 1024 + 13);
+		File in = write(data);
+		assertArrayEquals(sequential(KEY, iv, data), parallel(in, 0, data.length, KEY, iv, 4));
+	}
+
+	@Test
+	public void counterAtAddsBigEndianWithWrap() {
+		byte[] iv = new byte[16];
+		Arrays.fill(iv, (byte) 0xFF);
+		assertArrayEquals(new byte[16], AESCtr.counterAt(iv, 1));
+
+		byte[] expected = new byte[16];
+		expected[7] = 1;
+		expected[15] = 0x0F;
+		byte[] start = new byte[16];
+		Arrays.fill(start, 8, 16, (byte) 0xFF);
+		assertArrayEquals(expected, AESCtr.counterAt(start, 0x10));
+	}
+
+	@Test
+	public void fileApiRoundTripAndTruncatesOutput() throws Exception {
+		byte[] data = randomBytes(5 * 1024 * 1024 + 3);
+		File in = write(data);
+		File encrypted = folder.newFile();
+		write(encrypted, randomBytes(6 * 1024 * 1024)); // 旧内容更长，应被截断
+		AESCtr.crypt(in, encrypted, KEY, IV, 4);
+		assertArrayEquals(sequential(KEY, IV, data), read(encrypted));
+
+		File decrypted = folder.newFile();
+		AESCtr.decrypt(encrypted, decrypted, KEY, IV);
+		assertArrayEquals(data, read(decrypted));
+	}
+
+	private byte[] parallel(File in, long position, int length, byte[] key, byte[] iv, int segments) throws Exception {
+		File out = folder.newFile();
+		try (RandomAccessFile input = new RandomAccessFile(in, "r"); RandomAccessFile output = new RandomAccessFile(out, "rw")) {
+			FileChannel inChannel = input.getChannel();
+			AESCtr.crypt(inChannel, output.getChannel(), position, length, key, iv, service, segments);
+			assertEquals("channel position must not move", 0, inChannel.position());
+		}
+		byte[] result = read(out);
+		assertTrue(out.delete());
+		return result;
+	}
+
+	private static byte[] sequential(byte[] key, byte[] iv, byte[] data) throws Exception {
+		Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+		cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+		return cipher.doFinal(data);
+	}
+
+	private static byte[] randomBytes(int size) {
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+		return data;
+	}
+
+	private File write(byte[] data) throws Exception {
+		File file = folder.newFile();
+		write(file, data);
+		return file;
+	}
+
+	private static void write(File file, byte[] data) throws Exception {
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(data);
+		}
+	}
+
+	private static byte[] read(File file) throws Exception {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			byte[] data = new byte[(int) raf.length()];
+			raf.readFully(data);
+			return data;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.holy.jutil.security;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * RFC 4648 测试向量，以及流、ByteBuffer 的往返
+ */
+public class BaseNCodecTest {
+	private static final String[] PLAIN = {"", "f", "fo", "foo", "foob", "fooba", "foobar"};
+	private static final String[] BASE64 = {"", "Zg==", "Zm8=", "Zm9v", "Zm9vYg==", "Zm9vYmE=", "Zm9vYmFy"};
+	private static final String[] BASE32 = {"", "MY======", "MZXQ====", "MZXW6===", "MZXW6YQ=", "MZXW6YTB", "MZXW6YTBOI======"};
+
+	@Test
+	public void base64Vectors() throws Exception {
+		for (int i = 0; i < PLAIN.length; i++) {
+			byte[] data = PLAIN[i].getBytes("US-ASCII");
+			assertEquals(BASE64[i], BaseNCodec.BASE64.encode(data));
+			assertArrayEquals(data, BaseNCodec.BASE64.decode(BASE64[i]));
+			assertEquals(BASE64[i].length(), BaseNCodec.BASE64.encodedLength(data.length));
+		}
+	}
+
+	@Test
+	public void base32Vectors() throws Exception {
+		for (int i = 0; i < PLAIN.length; i++) {
+			byte[] data = PLAIN[i].getBytes("US-ASCII");
+			assertEquals(BASE32[i], BaseNCodec.BASE32.encode(data));
+			assertArrayEquals(data, BaseNCodec.BASE32.decode(BASE32[i]));
+			// 不区分大小写
+			assertArrayEquals(data, BaseNCodec.BASE32.decode(BASE32[i].toLowerCase()));
+		}
+	}
+
+	@Test
+	public void urlSafeAlphabet() {
+		byte[] data = {(byte) 0xfb, (byte) 0xff, (byte) 0xbf};
+		assertEquals("+/+/", BaseNCodec.BASE64.encode(data));
+		assertEquals("-_-_", BaseNCodec.BASE64_URL.encode(data));
+		assertArrayEquals(data, BaseNCodec.BASE64_URL.decode("-_-_"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void urlSafeRejectsStandardCharacters() {
+		BaseNCodec.BASE64_URL.decode("+/+/");
+	}
+
+	@Test
+	public void paddingIsOptionalOnDecode() throws Exception {
+		assertEquals("Zg", BaseNCodec.BASE64.withoutPadding().encode("f".getBytes("US-ASCII")));
+		assertEquals("MZXQ", BaseNCodec.BASE32.withoutPadding().encode("fo".getBytes("US-ASCII")));
+		assertEquals(2, BaseNCodec.BASE64.withoutPadding().encodedLength(1));
+		assertEquals("f", new String(BaseNCodec.BASE64.decode("Zg"), "US-ASCII"));
+		assertEquals("fo", new String(BaseNCodec.BASE32.decode("MZXQ"), "US-ASCII"));
+	}
+
+	@Test
+	public void whitespaceIsIgnored() throws Exception {
+		assertEquals("foobar", new String(BaseNCodec.BASE64.decode("Zm9v\r\nYmFy \t"), "US-ASCII"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void dataAfterPaddingIsRejected() {
+		BaseNCodec.BASE64.decode("Zg==Zg==");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void truncatedInputIsRejected() {
+		BaseNCodec.BASE64.decode("Z");
+	}
+
+	@Test
+	public void byteBufferRoundTrip() {
+		Random random = new Random(31);
+		BaseNCodec[] codecs = {BaseNCodec.BASE64, BaseNCodec.BASE64_URL, BaseNCodec.BASE32, BaseNCodec.BASE32.withoutPadding()};
+		for (BaseNCodec codec : codecs) {
+			for (int length = 0; length < 40; length++) {
+				byte[] data = new byte[length];
+				random.nextBytes(data);
+				// 带偏移的直接缓冲区
+				ByteBuffer src = ByteBuffer.allocateDirect(length + 3);
+				src.position(3);
+				src.put(data);
+				src.position(3);
+				ByteBuffer encoded = ByteBuffer.allocateDirect((int) codec.encodedLength(length) + 2);
+				encoded.position(2);
+				assertEquals(codec.encodedLength(length), codec.encode(src, encoded));
+				assertFalse(src.hasRemaining());
+				encoded.flip();
+				encoded.position(2);
+				ByteBuffer decoded = ByteBuffer.allocate((int) codec.maxDecodedLength(encoded.remaining()));
+				assertEquals(length, codec.decode(encoded, decoded));
+				assertArrayEquals(data, Arrays.copyOf(decoded.array(), decoded.position()));
+			}
+		}
+	}
+
+	@Test
+	public void streamRoundTrip() throws IOException {
+		Random random = new Random(32);
+		BaseNCodec[] codecs = {BaseNCodec.BASE64, BaseNCodec.BASE64_URL, BaseNCodec.BASE32};
+		// 跨越流内部 8 KB 缓冲区的长度
+		int[] lengths = {0, 1, 2, 3, 4, 5, 7, 1000, 8191, 8192, 8193, 20000};
+		for (BaseNCodec codec : codecs) {
+			for (int length : lengths) {
+				byte[] data = new byte[length];
+				random.nextBytes(data);
+				ByteArrayOutputStream sink = new ByteArrayOutputStream();
+				OutputStream out = codec.wrap(sink);
+				// 大小不一的写入，分组在多次写入之间拆开
+				for (int off = 0; off < length; ) {
+					int n = Math.min(length - off, 1 + random.nextInt(700));
+					if (1 == n) {
+						out.write(data[off]);
+					} else {
+						out.write(data, off, n);
+					}
+					off += n;
+				}
+				out.close();
+				String encoded = sink.toString("US-ASCII");
+				assertEquals(codec.encode(data), encoded);
+
+				InputStream in = codec.wrap(new ByteArrayInputStream(sink.toByteArray()));
+				ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+				byte[] buffer = new byte[1 + random.nextInt(100)];
+				int n;
+				while ((n = in.read(buffer)) != -1) {
+					decoded.write(buffer, 0, n);
+				}
+				assertEquals(-1, in.read());
+				assertArrayEquals(data, decoded.toByteArray());
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void streamReportsIllegalCharacter() throws IOException {
+		InputStream in = BaseNCodec.BASE64.wrap(new ByteArrayInputStream("Zm9v!".getBytes("US-ASCII")));
+		while (in.read() != -1) {
+			// 读到非法字符
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package com.holy.jutil.security;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.AEADBadTagException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流式 ECB 与分段 GCM：跨段边界的往返，截断、重排、篡改的拒绝
+ */
+public class CipherStreamsTest {
+	private static final int SEGMENT = CipherStreams.GCM_SEGMENT_SIZE;
+	private static final int TAG = 16;
+	private static final int HEADER = 24;
+	private static final byte[] KEY = new byte[16];
+
+	static {
+		new Random(27).nextBytes(KEY);
+	}
+
+	@Test
+	public void ecbRoundTripAcrossChunks() throws Exception {
+		int[] sizes = {0, 1, 15, 16, 17, SEGMENT, 64 * 1024, 64 * 1024 + 1, 3 * 64 * 1024 + 5};
+		for (int size : sizes) {
+			byte[] plain = random(size);
+			ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+			long written = Crypter.encodeAES(new ByteArrayInputStream(plain), encrypted, KEY);
+			assertEquals(encrypted.size(), written);
+			// 与整体加密的结果一致
+			assertArrayEquals("size " + size, Crypter.encodeAES(plain, KEY), encrypted.toByteArray());
+			ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+			Crypter.decryptAES(new ByteArrayInputStream(encrypted.toByteArray()), decrypted, KEY);
+			assertArrayEquals("size " + size, plain, decrypted.toByteArray());
+		}
+	}
+
+	@Test
+	public void gcmRoundTripAcrossSegments() throws Exception {
+		int[] sizes = {0, 1, SEGMENT - 1, SEGMENT, SEGMENT + 1, 2 * SEGMENT, 2 * SEGMENT + 3};
+		for (int size : sizes) {
+			byte[] plain = random(size);
+			byte[] encrypted = gcmEncrypt(plain);
+			int segments = Math.max(1, (size + SEGMENT - 1) / SEGMENT);
+			assertEquals("size " + size, HEADER + size + segments * TAG, encrypted.length);
+			assertArrayEquals("size " + size, plain, gcmDecrypt(encrypted, KEY));
+		}
+	}
+
+	@Test
+	public void gcmStreamsUseFreshSaltAndNonce() throws Exception {
+		byte[] plain = random(100);
+		byte[] first = gcmEncrypt(plain);
+		byte[] second = gcmEncrypt(plain);
+		assertFalse(Arrays.equals(Arrays.copyOf(first, HEADER), Arrays.copyOf(second, HEADER)));
+		assertFalse(Arrays.equals(Arrays.copyOfRange(first, HEADER, first.length), Arrays.copyOfRange(second, HEADER, second.length)));
+	}
+
+	@Test
+	public void gcmRejectsTruncationAtSegmentBoundary() throws Exception {
+		byte[] encrypted = gcmEncrypt(random(2 * SEGMENT + 3));
+		// 截断后剩下的末段加密时不是最后一段，nonce 中的 lastFlag 不符
+		assertRejected(Arrays.copyOf(encrypted, HEADER + SEGMENT + TAG), 0);
+		assertRejected(Arrays.copyOf(encrypted, HEADER + 2 * (SEGMENT + TAG)), SEGMENT);
+	}
+
+	@Test
+	public void gcmRejectsTruncationInsideSegment() throws Exception {
+		byte[] encrypted = gcmEncrypt(random(SEGMENT + 100));
+		assertRejected(Arrays.copyOf(encrypted, encrypted.length - 1), SEGMENT);
+		assertRejected(Arrays.copyOf(encrypted, HEADER + SEGMENT + TAG + TAG - 1), SEGMENT);
+		assertRejected(Arrays.copyOf(encrypted, HEADER - 1), 0);
+		assertRejected(new byte[0], 0);
+	}
+
+	@Test
+	public void gcmRejectsReorderedSegments() throws Exception {
+		byte[] encrypted = gcmEncrypt(random(3 * SEGMENT));
+		int segment = SEGMENT + TAG;
+		byte[] swapped = encrypted.clone();
+		System.arraycopy(encrypted, HEADER + segment, swapped, HEADER, segment);
+		System.arraycopy(encrypted, HEADER, swapped, HEADER + segment, segment);
+		assertRejected(swapped, 0);
+	}
+
+	@Test
+	public void gcmRejectsSegmentFromAnotherStream() throws Exception {
+		byte[] plain = random(2 * SEGMENT);
+		byte[] first = gcmEncrypt(plain);
+		byte[] second = gcmEncrypt(plain);
+		byte[] mixed = first.clone();
+		System.arraycopy(second, HEADER + SEGMENT + TAG, mixed, HEADER + SEGMENT + TAG, SEGMENT + TAG);
+		assertRejected(mixed, SEGMENT);
+	}
+
+	@Test
+	public void gcmRejectsFlippedBytes() throws Exception {
+		byte[] encrypted = gcmEncrypt(random(SEGMENT + 10));
+		// 最后一段的 tag、第一段的密文、header 中的 salt 和 nonce 前缀、版本
+		int[] positions = {encrypted.length - 1, encrypted.length - TAG, HEADER + 5, 1, HEADER - 1, 0};
+		for (int position : positions) {
+			byte[] tampered = encrypted.clone();
+			tampered[position] ^= 0x01;
+			assertRejected(tampered, position >= HEADER + SEGMENT + TAG ? SEGMENT : 0);
+		}
+	}
+
+	@Test
+	public void gcmRejectsWrongKey() throws Exception {
+		byte[] encrypted = gcmEncrypt(random(10));
+		byte[] other = KEY.clone();
+		other[0] ^= 0x01;
+		try {
+			gcmDecrypt(encrypted, other);
+			fail("expected AEADBadTagException");
+		} catch (AEADBadTagException e) {
+			// 派生出的子密钥不同
+		}
+	}
+
+	@Test(expected = GeneralSecurityException.class)
+	public void gcmRejectsInvalidKeyLength() throws Exception {
+		Crypter.encodeAESGCM(new ByteArrayInputStream(new byte[1]), new ByteArrayOutputStream(), new byte[20]);
+	}
+
+	/**
+	 * 解密应失败，且只写出校验通过的段
+	 */
+	private static void assertRejected(byte[] encrypted, int expectedWritten) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			Crypter.decryptAESGCM(new ByteArrayInputStream(encrypted), out, KEY);
+			fail("expected AEADBadTagException");
+		} catch (AEADBadTagException e) {
+			assertEquals(expectedWritten, out.size());
+		}
+	}
+
+	private static byte[] gcmEncrypt(byte[] plain) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = Crypter.encodeAESGCM(new ByteArrayInputStream(plain), out, KEY);
+		assertEquals(out.size(), written);
+		return out.toByteArray();
+	}
+
+	private static byte[] gcmDecrypt(byte[] encrypted, byte[] key) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = Crypter.decryptAESGCM(new ByteArrayInputStream(encrypted), out, key);
+		assertEquals(out.size(), written);
+		return out.toByteArray();
+	}
+
+	private static byte[] random(int size) {
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+		return data;
+	}
+}
@@ -0,0 +1,118 @@
+package com.holy.jutil.security;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * 文件 MD5 缓存：索引的保存与加载、并发保存
+ */
+public class DigestCacheTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void digestSurvivesReload() throws IOException {
+		File file = oldFile("a", "hello");
+		File index = new File(folder.getRoot(), "index");
+		DigestCache cache = new DigestCache(index, 10);
+		assertEquals(Crypter.md5(file), cache.md5(file));
+		assertEquals(1, cache.size());
+		cache.close();
+
+		DigestCache reloaded = new DigestCache(index, 10);
+		assertEquals(1, reloaded.size());
+		assertEquals(Crypter.md5(file), reloaded.md5(file));
+	}
+
+	@Test
+	public void changedFileIsRecomputed() throws IOException {
+		File file = oldFile("a", "hello");
+		DigestCache cache = new DigestCache(null, 10);
+		cache.md5(file);
+		write(file, "world");
+		file.setLastModified(System.currentTimeMillis() - 2 * DigestCache.RACY_WINDOW);
+		assertEquals(Crypter.md5(file), cache.md5(file));
+	}
+
+	@Test
+	public void recentlyModifiedFileIsNotCached() throws IOException {
+		File file = folder.newFile("fresh");
+		write(file, "fresh");
+		DigestCache cache = new DigestCache(null, 10);
+		assertEquals(Crypter.md5(file), cache.md5(file));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void concurrentSavesLeaveAValidIndex() throws Exception {
+		final int threads = 4;
+		final int filesPerThread = 50;
+		final File index = new File(folder.getRoot(), "index");
+		final DigestCache cache = new DigestCache(index, threads * filesPerThread);
+		final List<File> files = new ArrayList<>();
+		for (int i = 0; i < threads * filesPerThread; i++) {
+			files.add(oldFile("f" + i, "content " + i));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				final int offset = t * filesPerThread;
+				results.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						for (int i = 0; i < filesPerThread; i++) {
+							assertNotNull(cache.md5(files.get(offset + i)));
+							// 每次都有新条目，每次 save 都真正写盘
+							cache.save();
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		cache.save();
+
+		// 没有残留的临时文件，最后一次保存包含全部条目
+		String[] names = folder.getRoot().list();
+		for (String name : names) {
+			assertFalse(name, name.endsWith(".tmp"));
+		}
+		DigestCache reloaded = new DigestCache(index, threads * filesPerThread);
+		assertEquals(threads * filesPerThread, reloaded.size());
+		for (File file : files) {
+			assertEquals(Crypter.md5(file), reloaded.md5(file));
+		}
+	}
+
+	private File oldFile(String name, String content) throws IOException {
+		File file = folder.newFile(name);
+		write(file, content);
+		file.setLastModified(System.currentTimeMillis() - 2 * DigestCache.RACY_WINDOW);
+		return file;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(content.getBytes("UTF-8"));
+		}
+	}
+}